@@ -15,6 +15,7 @@ import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 import dataprocessing.Geocoder;
+import dataprocessing.MapSnapshot;
 
 //import com.fazecast.jSerialComm.SerialPort;
 
@@ -23,10 +24,13 @@ import gps.*;
 //import graph.CandidateLabelList;
 //import graph.CandidateLabelManager;
 //import graph.LabelCorrectingAlgorithm;
+import graph.AlternativeRoutes;
+import graph.AlternativeRoutesWorker;
 import graph.LabelSettingAlgorithm;
 import graph.PathFindingWorker;
 import graph.PermanentLabelBuckets;
 import graph.PermanentLabelManager;
+import graph.RerouteEngine;
 import graph.ShortestPathAlgorithm;
 import graph.StreetNetwork;
 import grid.Grid;
@@ -43,10 +47,13 @@ public class PA6App implements ActionListener, Runnable,
   private static final int SET_DESTINATION = 0;
   private static final int SET_ORIGIN = 1;
   private static final int CALCULATE_PATH = 2;
+  private static final int ALTERNATIVE_COUNT = 3;
 
+  private static final String ALTERNATIVES = "Alternatives";
   private static final String CALCULATE = "Calculate";
   private static final String EXIT = "Exit";
   private static final String DESTINATION = "Destination";
+  private static final String NEXT_ALTERNATIVE = "Next Alternative";
   private static final String ORIGIN = "Origin";
   private static final String PATH = "path";
   
@@ -60,8 +67,12 @@ public class PA6App implements ActionListener, Runnable,
   private GeocodeDialog dialog;
   private int mode;
   private PathFindingWorker task;
+  private AlternativeRoutes alternatives;
+  private AlternativeRoutesWorker alternativesTask;
+  private List<Map<String, StreetSegment>> routes;
+  private int shownRoute;
   private StreetSegment originSegment, destinationSegment;
-  private Map<String, Map<String, StreetSegment>> allPaths;
+  private RerouteEngine reroute;
   private Map<String, StreetSegment> path;
   private PropertyChangeSupport pcs;
 
@@ -107,22 +118,63 @@ public class PA6App implements ActionListener, Runnable,
 
     if (ac.equals(CALCULATE))
     {
-      // TODO CONSTUCT THE ALGORITHM   --   Use a Label Setting Algorithm
-//      PermanentLabelManager labels = new PermanentLabelList(network.size());
-      PermanentLabelManager labels = new PermanentLabelBuckets(network.size());
-//      PermanentLabelManager labels = new PermanentLabelHeap(5, network.size());
-      alg = new LabelSettingAlgorithm(labels);
+      // The algorithm and its label workspace are reused by every route
+      if (alg == null)
+      {
+        // TODO CONSTUCT THE ALGORITHM   --   Use a Label Setting Algorithm
+//        PermanentLabelManager labels = new PermanentLabelList(network.size());
+        PermanentLabelManager labels = new PermanentLabelBuckets(network);
+//        PermanentLabelManager labels = new PermanentLabelIndexedHeap(4, network.size());
+        alg = new LabelSettingAlgorithm(labels);
+        alg.setEarlyTermination(true);
+      
+        // Build the full tree to the destination on every core
+//        alg = new DeltaSteppingAlgorithm();
+      
+        // Search from both ends when only the one route is needed
+//        alg = new BidirectionalLabelSettingAlgorithm(
+//            new PermanentLabelIndexedHeap(4, network.size()), 
+//            new PermanentLabelIndexedHeap(4, network.size()));
+      
+        // Guide the search toward the destination
+//        alg = new AStarAlgorithm(new PermanentLabelIndexedHeap(4, network.size()));
+//        try
+//        {
+//          alg = new ALTAlgorithm(new PermanentLabelIndexedHeap(4, network.size()), 
+//              LandmarkTable.loadOrCreate(new File("rockingham-streets.alt"), network, 8));
+//        }
+//        catch (IOException ioe)
+//        {
+//          JOptionPane.showMessageDialog(frame, ioe.toString(), "Error", 
+//              JOptionPane.ERROR_MESSAGE);
+//          alg = new ALTAlgorithm(new PermanentLabelIndexedHeap(4, network.size()), 
+//              LandmarkTable.create(network, 8));
+//        }
+      
+        // Answer routes from a contraction hierarchy
+//        alg = new ContractionHierarchyAlgorithm(ContractionHierarchy.create(network));
+//        alg = new CustomizableContractionHierarchyAlgorithm(
+//            CustomizableContractionHierarchy.create(network));
       
-      // TODO CONSTRUCT THE ALGORITHM   --   Use a LabelCorrecting Algorithm
-//      CandidateLabelManager labels = new CandidateLabelList(CandidateLabelList.NEWEST, 
-//          network.size()); 
-//      alg = new LabelCorrectingAlgorithm(labels);
+        // Charge for turns, with U-turns forbidden
+//        TurnCostTable turnCosts = new TurnCostTable(network);
+//        turnCosts.setUTurnCost(Double.POSITIVE_INFINITY);
+//        alg = new TurnCostAlgorithm(turnCosts);
+      
+        // TODO CONSTRUCT THE ALGORITHM   --   Use a LabelCorrecting Algorithm
+//        CandidateLabelManager labels = new CandidateLabelList(CandidateLabelList.NEWEST, 
+//            network.size()); 
+//        alg = new LabelCorrectingAlgorithm(labels);
+//        alg = new LabelCorrectingAlgorithm(CandidateLabelDeque.PAPE, network.size());
+      }
+
+      // Build the tree for rerouting while the route is found
+      reroute.setDestination(destinationSegment.getHead());
 
       // Construct the SwingWorker
-      allPaths.clear();
       task = new PathFindingWorker(alg, 
           originSegment.getHead(), destinationSegment.getHead(), network, 
-          document, panel, allPaths);
+          document, panel, null);
       task.addPropertyChangeListener(this);
       task.shouldShowIntermediateResults(true);
       pcs.addPropertyChangeListener(panel);
@@ -138,6 +190,32 @@ public class PA6App implements ActionListener, Runnable,
       btd.execute();
     }
 
+    if (ac.equals(ALTERNATIVES))
+    {
+      if (alternatives == null) alternatives = new AlternativeRoutes(network);
+
+      alternativesTask = new AlternativeRoutesWorker(alternatives, 
+          originSegment.getHead(), destinationSegment.getHead(), ALTERNATIVE_COUNT);
+      alternativesTask.addPropertyChangeListener(this);
+      pcs.addPropertyChangeListener(panel);
+      dialog.setVisible(false);
+
+      BackgroundTaskDialog<List<Map<String, StreetSegment>>, String> btd = 
+          new BackgroundTaskDialog<List<Map<String, StreetSegment>>, String>(
+              frame, "Finding alternatives...", alternativesTask);
+      btd.execute();
+    }
+
+    // Show the alternatives one at a time
+    if (ac.equals(NEXT_ALTERNATIVE) && routes != null && !routes.isEmpty())
+    {
+      shownRoute = (shownRoute + 1) % routes.size();
+      this.path = routes.get(shownRoute);
+      document.setHighlighted(path);
+      pcs.firePropertyChange(PATH, null, this.path);
+      panel.repaint();
+    }
+
     if (ac.equals(EXIT))
     {
       dialog.dispose();
@@ -159,7 +237,29 @@ public class PA6App implements ActionListener, Runnable,
     }
     else if (evt.getPropertyName().equals("state")) 
     {
-      if (evt.getNewValue().equals(SwingWorker.StateValue.DONE)) 
+      if (evt.getNewValue().equals(SwingWorker.StateValue.DONE) 
+          && evt.getSource() == alternativesTask) 
+      {
+        try
+        {
+          // Highlight every alternative at once
+          routes = alternativesTask.get();
+          shownRoute = -1;
+          this.path = new LinkedHashMap<String, StreetSegment>();
+          for (Map<String, StreetSegment> route: routes) this.path.putAll(route);
+          document.setHighlighted(path);
+          pcs.firePropertyChange(PATH, null, this.path);
+          panel.repaint();
+          alternativesTask = null;
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+          JOptionPane.showMessageDialog(frame, "Interrupted", "Exception", 
+              JOptionPane.ERROR_MESSAGE);
+          e.printStackTrace();
+        }
+      }
+      else if (evt.getNewValue().equals(SwingWorker.StateValue.DONE)) 
       {
         try
         {
@@ -187,24 +287,21 @@ public class PA6App implements ActionListener, Runnable,
   {
     try
     {
-      allPaths = new HashMap<>();
-      InputStream isgeo = new FileInputStream(new File("rockingham-streets.geo"));
       AbstractMapProjection proj = new ConicalEqualAreaProjection(-96.0, 37.5, 29.5, 45.5);
-      GeographicShapesReader gsReader = new GeographicShapesReader(isgeo, proj);
-      CartographyDocument<GeographicShape> geographicShapes = gsReader.read();
-      System.out.println("Read the .geo file");
-
-      InputStream iss = new FileInputStream(new File("rockingham-streets.str"));
-      StreetsReader sReader = new StreetsReader(iss, geographicShapes);
-      Map<String, Street> streets = new HashMap<String, Street>();
-      Grid grid = new Grid();
-      document = sReader.read(streets, grid);
-      network = StreetNetwork.createStreetNetwork(streets);
+      // The .geo and .str files are only parsed when the snapshot is stale
+      MapSnapshot snapshot = MapSnapshot.loadOrCreate(new File("rockingham-streets.map"), 
+          new File("rockingham-streets.geo"), new File("rockingham-streets.str"), proj);
+      CartographyDocument<GeographicShape> geographicShapes = snapshot.getShapes();
+      Map<String, Street> streets = snapshot.getStreets();
+      Grid grid = snapshot.getGrid();
+      document = snapshot.getDocument();
+      network = snapshot.getNetwork();
       System.out.println(network.size());
-      System.out.println("Read the .str file");
+      System.out.println("Read the map");
+      reroute = new RerouteEngine(network);
 
       panel = new DynamicCartographyPanel<StreetSegment>(document, 
-          new StreetSegmentCartographer(), proj, grid, allPaths, this.path);
+          new StreetSegmentCartographer(), proj, grid, reroute, this.path);
       frame = new JFrame("Map");
       frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
       frame.setSize(600, 600);
@@ -238,6 +335,16 @@ public class PA6App implements ActionListener, Runnable,
       item.addActionListener(this);
       menu.add(item);
       
+      menu = new JMenu("Alternatives");
+      menuBar.add(menu);
+
+      item = new JMenuItem(ALTERNATIVES);
+      item.addActionListener(this);
+      menu.add(item);
+      item = new JMenuItem(NEXT_ALTERNATIVE);
+      item.addActionListener(this);
+      menu.add(item);
+      
       frame.setContentPane(panel);
       
       // Find the right serial port
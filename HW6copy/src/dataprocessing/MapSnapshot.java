@@ -0,0 +1,647 @@
+package dataprocessing;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import feature.Street;
+import feature.StreetSegment;
+import feature.StreetsReader;
+import geography.GeographicShape;
+import geography.GeographicShapesReader;
+import geography.MapProjection;
+import geography.PiecewiseLinearCurve;
+import geography.Polygon;
+import graph.StreetNetwork;
+import grid.Grid;
+import grid.GridTuple;
+import gui.CartographyDocument;
+
+/**
+ * Everything built from the .geo and .str files, kept in one binary file
+ * so later starts skip the parsing, projecting and grid filling. Each kind
+ * of value is stored as one array, and the file is memory mapped when
+ * read, so loading is mostly copying arrays out of the page cache.
+ * @author Jerome Donfack
+ *
+ */
+public class MapSnapshot
+{
+  private static final int MAGIC = 0x4D415031;
+  private static final int VERSION = 1;
+  private static final int CURVE = 0;
+  private static final int POLYGON = 1;
+  private static final int NONE = -1;
+
+  // Projected to tell snapshots made with another projection apart
+  private static final double[][] PROBES = {{-96.0, 37.5}, {-71.0, 43.0}};
+
+  private CartographyDocument<GeographicShape> shapes;
+  private CartographyDocument<StreetSegment> document;
+  private Map<String, Street> streets;
+  private Grid grid;
+  private StreetNetwork network;
+
+  /**
+   * Creates a new MapSnapshot.
+   * @param shapes - Projected shapes.
+   * @param document - Street segments.
+   * @param streets - Streets by canonical name.
+   * @param grid - Grid of the street segments.
+   * @param network - Network of the streets.
+   */
+  public MapSnapshot(final CartographyDocument<GeographicShape> shapes,
+      final CartographyDocument<StreetSegment> document, final Map<String, Street> streets,
+      final Grid grid, final StreetNetwork network)
+  {
+    this.shapes = shapes;
+    this.document = document;
+    this.streets = streets;
+    this.grid = grid;
+    this.network = network;
+  }
+
+  /**
+   * Gets the projected shapes.
+   * @return - Shapes by ID.
+   */
+  public CartographyDocument<GeographicShape> getShapes()
+  {
+    return this.shapes;
+  }
+
+  /**
+   * Gets the street segments.
+   * @return - Street segments by ID.
+   */
+  public CartographyDocument<StreetSegment> getDocument()
+  {
+    return this.document;
+  }
+
+  /**
+   * Gets the streets.
+   * @return - Streets by canonical name.
+   */
+  public Map<String, Street> getStreets()
+  {
+    return this.streets;
+  }
+
+  /**
+   * Gets the grid of the street segments.
+   * @return - The grid.
+   */
+  public Grid getGrid()
+  {
+    return this.grid;
+  }
+
+  /**
+   * Gets the network of the streets.
+   * @return - The street network.
+   */
+  public StreetNetwork getNetwork()
+  {
+    return this.network;
+  }
+
+  /**
+   * Builds everything from the text files.
+   * @param geoFile - File of the shapes.
+   * @param strFile - File of the street segments.
+   * @param proj - Projection of the shapes.
+   * @return - The snapshot.
+   * @throws IOException
+   */
+  public static MapSnapshot create(final File geoFile, final File strFile,
+      final MapProjection proj) throws IOException
+  {
+    if(!geoFile.isFile()) throw new FileNotFoundException(geoFile.getPath());
+    CartographyDocument<GeographicShape> shapes = 
+        new GeographicShapesReader(geoFile, proj).read();
+
+    Map<String, Street> streets = new HashMap<>();
+    Grid grid = new Grid();
+    CartographyDocument<StreetSegment> document = 
+        new StreetsReader(strFile, shapes).read(streets, grid);
+    return new MapSnapshot(shapes, document, streets, grid,
+        StreetNetwork.createStreetNetwork(streets));
+  }
+
+  /**
+   * Loads the snapshot from a file, or builds it from the text files and
+   * writes it to the file if read finds no usable snapshot there. Failing
+   * to read the text files or to write the snapshot is left to the caller.
+   * @param file - File the snapshot is kept in.
+   * @param geoFile - File of the shapes.
+   * @param strFile - File of the street segments.
+   * @param proj - Projection of the shapes.
+   * @return - The snapshot.
+   * @throws IOException
+   */
+  public static MapSnapshot loadOrCreate(final File file, final File geoFile,
+      final File strFile, final MapProjection proj) throws IOException
+  {
+    MapSnapshot snapshot = read(file, geoFile, strFile, proj);
+    if(snapshot != null) return snapshot;
+
+    snapshot = create(geoFile, strFile, proj);
+    snapshot.write(file, geoFile, strFile, proj);
+    return snapshot;
+  }
+
+  /**
+   * Reads a snapshot from a file.
+   * @param file - File to read.
+   * @param geoFile - File of the shapes the snapshot must be made from.
+   * @param strFile - File of the street segments the snapshot must be made
+   * from.
+   * @param proj - Projection the snapshot must be made with.
+   * @return - The snapshot, or null if the file is missing or damaged, or
+   * the snapshot was made from other files or with another projection.
+   * @throws IOException
+   */
+  public static MapSnapshot read(final File file, final File geoFile,
+      final File strFile, final MapProjection proj) throws IOException
+  {
+    if(!file.isFile()) return null;
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if(in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+      for(long value : stamp(geoFile, strFile)) if(in.getLong() != value) return null;
+      for(double value : probe(proj)) if(in.getDouble() != value) return null;
+
+      String[] strings = readStrings(in);
+
+      // Shapes, with the points of all of them in one array
+      int shapeCount = in.getInt();
+      double[] box = readDoubles(in, 4);
+      int[] shapeIDs = readInts(in, shapeCount);
+      int[] kinds = readInts(in, shapeCount);
+      int[] pointOffsets = readInts(in, shapeCount + 1);
+      double[] points = readDoubles(in, 2 * pointOffsets[shapeCount]);
+      Rectangle2D.Double bounds = new Rectangle2D.Double(box[0], box[1], box[2], box[3]);
+      GeographicShape[] shapeList = new GeographicShape[shapeCount];
+      HashMap<String, GeographicShape> shapeMap = new HashMap<>(shapeCount * 2);
+      for(int i=0; i<shapeCount; i++)
+      {
+        String id = strings[shapeIDs[i]];
+        Path2D.Double path = null;
+        for(int p=pointOffsets[i]; p<pointOffsets[i + 1]; p++)
+        {
+          if(path == null)
+          {
+            path = new Path2D.Double();
+            path.moveTo(points[2 * p], points[2 * p + 1]);
+          }
+          else
+          {
+            path.lineTo(points[2 * p], points[2 * p + 1]);
+          }
+        }
+        if(path == null)
+        {
+          shapeList[i] = kinds[i] == POLYGON ? new Polygon(id) : new PiecewiseLinearCurve(id);
+        }
+        else
+        {
+          shapeList[i] = kinds[i] == POLYGON ? new Polygon(id, path)
+              : new PiecewiseLinearCurve(id, path);
+        }
+        shapeMap.put(id, shapeList[i]);
+      }
+
+      // Segments, those of the network first in network order
+      int segmentCount = in.getInt();
+      int networkCount = in.getInt();
+      int documentCount = in.getInt();
+      int[] segmentIDs = readInts(in, segmentCount);
+      int[] codes = readInts(in, segmentCount);
+      int[] segmentShapes = readInts(in, segmentCount);
+      int[] lowAddresses = readInts(in, segmentCount);
+      int[] highAddresses = readInts(in, segmentCount);
+      int[] tails = readInts(in, segmentCount);
+      int[] heads = readInts(in, segmentCount);
+      int[] names = readInts(in, segmentCount);
+      double[] lengths = readDoubles(in, segmentCount);
+      int[] documentSegments = readInts(in, documentCount);
+      StreetSegment[] segments = new StreetSegment[segmentCount];
+      for(int i=0; i<segmentCount; i++)
+      {
+        GeographicShape shape = segmentShapes[i] == NONE ? null : shapeList[segmentShapes[i]];
+        segments[i] = new StreetSegment(strings[segmentIDs[i]], strings[codes[i]], shape,
+            lowAddresses[i], highAddresses[i], tails[i], heads[i], lengths[i],
+            strings[names[i]]);
+        if(shape != null)
+        {
+          segments[i].initHeadPoint();
+          segments[i].initTailPoint();
+        }
+      }
+      HashMap<String, StreetSegment> elementMap = new HashMap<>(documentCount * 2);
+      for(int segment : documentSegments)
+      {
+        elementMap.put(segments[segment].getID(), segments[segment]);
+      }
+
+      // Streets, each with its segments in order
+      int streetCount = in.getInt();
+      int[] prefixes = readInts(in, streetCount);
+      int[] streetNames = readInts(in, streetCount);
+      int[] categories = readInts(in, streetCount);
+      int[] suffixes = readInts(in, streetCount);
+      int[] streetCodes = readInts(in, streetCount);
+      int[] streetOffsets = readInts(in, streetCount + 1);
+      int[] streetSegments = readInts(in, streetOffsets[streetCount]);
+      Map<String, Street> streets = new HashMap<>(streetCount * 2);
+      for(int i=0; i<streetCount; i++)
+      {
+        Street street = new Street(strings[prefixes[i]], strings[streetNames[i]],
+            strings[categories[i]], strings[suffixes[i]], strings[streetCodes[i]]);
+        for(int s=streetOffsets[i]; s<streetOffsets[i + 1]; s++)
+        {
+          street.addSegment(segments[streetSegments[s]]);
+        }
+        streets.put(street.getID(), street);
+      }
+
+      // Cells of the grid that hold segments
+      int cellCount = in.getInt();
+      int[] cellXs = readInts(in, cellCount);
+      int[] cellYs = readInts(in, cellCount);
+      int[] cellOffsets = readInts(in, cellCount + 1);
+      int[] cellSegments = readInts(in, cellOffsets[cellCount]);
+      Grid grid = new Grid();
+      grid.setBounds(bounds);
+      grid.setElementMap(elementMap);
+      grid.createGrid();
+      for(int i=0; i<cellCount; i++)
+      {
+        GridTuple<Double, Double> cell = new GridTuple<>((double) cellXs[i], (double) cellYs[i]);
+        for(int s=cellOffsets[i]; s<cellOffsets[i + 1]; s++)
+        {
+          grid.addToCell(cell, segments[cellSegments[s]]);
+        }
+      }
+
+      // The network, which freezes again from its segments
+      int size = in.getInt();
+      int[] originalIDs = readInts(in, size);
+      StreetSegment[] networkSegments = new StreetSegment[networkCount];
+      System.arraycopy(segments, 0, networkSegments, 0, networkCount);
+      StreetNetwork network = StreetNetwork.createStreetNetwork(networkSegments, size,
+          originalIDs);
+
+      // The reader shares one bounds among the documents and the grid
+      return new MapSnapshot(new CartographyDocument<>(shapeMap, bounds),
+          new CartographyDocument<>(elementMap, bounds), streets, grid, network);
+    }
+    catch (RuntimeException e)
+    {
+      // A cut short or garbled file runs out of bytes or indexes past its
+      // arrays
+      return null;
+    }
+  }
+
+  /**
+   * Writes the snapshot to a file. It is written next to the file first and
+   * moved over it when complete, so a failed write never leaves a partial
+   * snapshot behind.
+   * @param file - File to write.
+   * @param geoFile - File of the shapes the snapshot was made from.
+   * @param strFile - File of the street segments the snapshot was made from.
+   * @param proj - Projection the snapshot was made with.
+   * @throws IOException
+   */
+  public void write(final File file, final File geoFile, final File strFile,
+      final MapProjection proj) throws IOException
+  {
+    Map<String, Integer> stringIndices = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+
+    // Shapes
+    List<GeographicShape> shapeList = new ArrayList<>();
+    for(GeographicShape shape : this.shapes) shapeList.add(shape);
+    Map<GeographicShape, Integer> shapeIndices = new IdentityHashMap<>();
+    int[] shapeIDs = new int[shapeList.size()];
+    int[] kinds = new int[shapeList.size()];
+    int[] pointOffsets = new int[shapeList.size() + 1];
+    double[] points = new double[64];
+    double[] coords = new double[6];
+    for(int i=0; i<shapeList.size(); i++)
+    {
+      GeographicShape shape = shapeList.get(i);
+      shapeIndices.put(shape, i);
+      shapeIDs[i] = index(shape.getId(), stringIndices, strings);
+      kinds[i] = shape instanceof Polygon ? POLYGON : CURVE;
+      int count = pointOffsets[i];
+      if(shape.getShape() != null)
+      {
+        for(PathIterator it = shape.getShape().getPathIterator(null); !it.isDone(); it.next())
+        {
+          if(it.currentSegment(coords) == PathIterator.SEG_CLOSE) continue;
+          if(2 * count + 2 > points.length) points = Arrays.copyOf(points, 2 * points.length);
+          points[2 * count] = coords[0];
+          points[2 * count + 1] = coords[1];
+          count++;
+        }
+      }
+      pointOffsets[i + 1] = count;
+    }
+
+    // Segments, those of the network first in network order
+    List<StreetSegment> segmentList = new ArrayList<>();
+    Map<StreetSegment, Integer> segmentIndices = new IdentityHashMap<>();
+    for(int i=0; i<this.network.getSegmentCount(); i++)
+    {
+      segmentIndices.put(this.network.getSegment(i), segmentList.size());
+      segmentList.add(this.network.getSegment(i));
+    }
+    int networkCount = segmentList.size();
+    List<Integer> documentSegments = new ArrayList<>();
+    for(StreetSegment segment : this.document)
+    {
+      if(!segmentIndices.containsKey(segment))
+      {
+        segmentIndices.put(segment, segmentList.size());
+        segmentList.add(segment);
+      }
+      documentSegments.add(segmentIndices.get(segment));
+    }
+    int segmentCount = segmentList.size();
+    int[] segmentIDs = new int[segmentCount];
+    int[] codes = new int[segmentCount];
+    int[] segmentShapes = new int[segmentCount];
+    int[] lowAddresses = new int[segmentCount];
+    int[] highAddresses = new int[segmentCount];
+    int[] tails = new int[segmentCount];
+    int[] heads = new int[segmentCount];
+    int[] names = new int[segmentCount];
+    double[] lengths = new double[segmentCount];
+    for(int i=0; i<segmentCount; i++)
+    {
+      StreetSegment segment = segmentList.get(i);
+      Integer shape = shapeIndices.get(segment.getGeographicShape());
+      segmentIDs[i] = index(segment.getID(), stringIndices, strings);
+      codes[i] = index(segment.getCode(), stringIndices, strings);
+      segmentShapes[i] = shape == null ? NONE : shape;
+      lowAddresses[i] = segment.getLowaddress();
+      highAddresses[i] = segment.getHighaddress();
+      tails[i] = segment.getOriginalTail();
+      heads[i] = segment.getOriginalHead();
+      names[i] = index(segment.getparentCanonicalName(), stringIndices, strings);
+      lengths[i] = segment.getLength();
+    }
+
+    // Streets
+    int streetCount = this.streets.size();
+    int[] prefixes = new int[streetCount];
+    int[] streetNames = new int[streetCount];
+    int[] categories = new int[streetCount];
+    int[] suffixes = new int[streetCount];
+    int[] streetCodes = new int[streetCount];
+    int[] streetOffsets = new int[streetCount + 1];
+    List<Integer> streetSegments = new ArrayList<>();
+    int s = 0;
+    for(Street street : this.streets.values())
+    {
+      prefixes[s] = index(street.getPrefix(), stringIndices, strings);
+      streetNames[s] = index(street.getName(), stringIndices, strings);
+      categories[s] = index(street.getCategory(), stringIndices, strings);
+      suffixes[s] = index(street.getSuffix(), stringIndices, strings);
+      streetCodes[s] = index(street.getCode(), stringIndices, strings);
+      for(Iterator<StreetSegment> it = street.getSgements(); it.hasNext(); )
+      {
+        streetSegments.add(segmentIndices.get(it.next()));
+      }
+      streetOffsets[++s] = streetSegments.size();
+    }
+
+    // Cells of the grid that hold segments
+    List<GridTuple<Double, Double>> cells = new ArrayList<>();
+    List<Integer> cellSegments = new ArrayList<>();
+    List<Integer> cellOffsets = new ArrayList<>();
+    cellOffsets.add(0);
+    for(Map.Entry<GridTuple<Double, Double>, HashSet<StreetSegment>> entry
+        : this.grid.getGrid().entrySet())
+    {
+      if(entry.getValue().isEmpty()) continue;
+
+      cells.add(entry.getKey());
+      for(StreetSegment segment : entry.getValue())
+      {
+        cellSegments.add(segmentIndices.get(segment));
+      }
+      cellOffsets.add(cellSegments.size());
+    }
+    int[] cellXs = new int[cells.size()];
+    int[] cellYs = new int[cells.size()];
+    for(int i=0; i<cells.size(); i++)
+    {
+      cellXs[i] = cells.get(i).getLeft().intValue();
+      cellYs[i] = cells.get(i).getRight().intValue();
+    }
+
+    int size = this.network.size();
+    int[] originalIDs = new int[size];
+    for(int i=0; i<size; i++) originalIDs[i] = this.network.getOriginalID(i);
+
+    Rectangle2D.Double bounds = this.shapes.getBounds();
+    File temp = File.createTempFile(file.getName(), ".tmp",
+        file.getAbsoluteFile().getParentFile());
+    boolean moved = false;
+    try
+    {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(temp))))
+      {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        for(long value : stamp(geoFile, strFile)) out.writeLong(value);
+        for(double value : probe(proj)) out.writeDouble(value);
+
+        writeStrings(out, strings);
+
+        out.writeInt(shapeList.size());
+        writeDoubles(out, new double[] {bounds.getX(), bounds.getY(),
+            bounds.getWidth(), bounds.getHeight()}, 4);
+        writeInts(out, shapeIDs);
+        writeInts(out, kinds);
+        writeInts(out, pointOffsets);
+        writeDoubles(out, points, 2 * pointOffsets[shapeList.size()]);
+
+        out.writeInt(segmentCount);
+        out.writeInt(networkCount);
+        out.writeInt(documentSegments.size());
+        writeInts(out, segmentIDs);
+        writeInts(out, codes);
+        writeInts(out, segmentShapes);
+        writeInts(out, lowAddresses);
+        writeInts(out, highAddresses);
+        writeInts(out, tails);
+        writeInts(out, heads);
+        writeInts(out, names);
+        writeDoubles(out, lengths, segmentCount);
+        writeInts(out, toArray(documentSegments));
+
+        out.writeInt(streetCount);
+        writeInts(out, prefixes);
+        writeInts(out, streetNames);
+        writeInts(out, categories);
+        writeInts(out, suffixes);
+        writeInts(out, streetCodes);
+        writeInts(out, streetOffsets);
+        writeInts(out, toArray(streetSegments));
+
+        out.writeInt(cells.size());
+        writeInts(out, cellXs);
+        writeInts(out, cellYs);
+        writeInts(out, toArray(cellOffsets));
+        writeInts(out, toArray(cellSegments));
+
+        out.writeInt(size);
+        writeInts(out, originalIDs);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    }
+    finally
+    {
+      if(!moved) temp.delete();
+    }
+  }
+
+  /**
+   * Gets the lengths and modification times of the text files.
+   */
+  private static long[] stamp(final File geoFile, final File strFile)
+  {
+    return new long[] {geoFile.length(), geoFile.lastModified(),
+        strFile.length(), strFile.lastModified()};
+  }
+
+  private static double[] probe(final MapProjection proj)
+  {
+    double[] values = new double[2 * PROBES.length];
+    for(int i=0; i<PROBES.length; i++)
+    {
+      double[] projected = proj.forward(PROBES[i].clone());
+      values[2 * i] = projected[0];
+      values[2 * i + 1] = projected[1];
+    }
+    return values;
+  }
+
+  private static int index(final String value, final Map<String, Integer> stringIndices,
+      final List<String> strings)
+  {
+    Integer index = stringIndices.get(value);
+    if(index == null)
+    {
+      index = strings.size();
+      stringIndices.put(value, index);
+      strings.add(value);
+    }
+    return index;
+  }
+
+  private static int[] toArray(final List<Integer> values)
+  {
+    int[] array = new int[values.size()];
+    for(int i=0; i<array.length; i++) array[i] = values.get(i);
+    return array;
+  }
+
+  /**
+   * Writes the strings as their lengths followed by all their bytes.
+   */
+  private static void writeStrings(final DataOutputStream out, final List<String> strings)
+      throws IOException
+  {
+    byte[][] bytes = new byte[strings.size()][];
+    out.writeInt(strings.size());
+    for(int i=0; i<bytes.length; i++)
+    {
+      bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes[i].length);
+    }
+    for(byte[] value : bytes) out.write(value);
+  }
+
+  private static String[] readStrings(final ByteBuffer in)
+  {
+    int count = in.getInt();
+    int[] lengths = readInts(in, count);
+    int total = 0;
+    for(int length : lengths) total += length;
+    byte[] bytes = new byte[total];
+    in.get(bytes);
+
+    String[] strings = new String[count];
+    int offset = 0;
+    for(int i=0; i<count; i++)
+    {
+      strings[i] = new String(bytes, offset, lengths[i], StandardCharsets.UTF_8);
+      offset += lengths[i];
+    }
+    return strings;
+  }
+
+  private static void writeInts(final DataOutputStream out, final int[] values)
+      throws IOException
+  {
+    for(int value : values) out.writeInt(value);
+  }
+
+  private static int[] readInts(final ByteBuffer in, final int count)
+  {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + count * Integer.BYTES);
+    return values;
+  }
+
+  /**
+   * Writes doubles from a multiple of eight bytes into the file, so they
+   * can be read from the mapped file without straddling words.
+   */
+  private static void writeDoubles(final DataOutputStream out, final double[] values,
+      final int count) throws IOException
+  {
+    while(out.size() % Double.BYTES != 0) out.writeByte(0);
+    for(int i=0; i<count; i++) out.writeDouble(values[i]);
+  }
+
+  private static double[] readDoubles(final ByteBuffer in, final int count)
+  {
+    in.position((in.position() + Double.BYTES - 1) / Double.BYTES * Double.BYTES);
+    double[] values = new double[count];
+    in.asDoubleBuffer().get(values);
+    in.position(in.position() + count * Double.BYTES);
+    return values;
+  }
+}
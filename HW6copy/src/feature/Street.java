@@ -124,6 +124,51 @@ public class Street extends AbstractFeature
     return this.shape;
   }
   
+  /**
+   * Gets prefix of street name.
+   * @return - Prefix of street name.
+   */
+  public String getPrefix()
+  {
+    return this.prefix;
+  }
+  
+  /**
+   * Gets name of street.
+   * @return - Name of street.
+   */
+  public String getName()
+  {
+    return this.name;
+  }
+  
+  /**
+   * Gets type of street.
+   * @return - Type of street.
+   */
+  public String getCategory()
+  {
+    return this.category;
+  }
+  
+  /**
+   * Gets suffix of street name.
+   * @return - Suffix of street name.
+   */
+  public String getSuffix()
+  {
+    return this.suffix;
+  }
+  
+  /**
+   * Gets area code of street.
+   * @return - Area code of street.
+   */
+  public String getCode()
+  {
+    return this.code;
+  }
+  
   /**
    * Get amount of segments stored in the list.
    * @return - Amount of segments in list.
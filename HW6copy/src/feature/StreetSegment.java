@@ -16,6 +16,8 @@ public class StreetSegment extends AbstractFeature
   private double length;
   private int tail;
   private int head;
+  private int originalTail;
+  private int originalHead;
   private int highAddress;
   private int lowAddress;
   private GeographicShape geoGraphicShape;
@@ -47,6 +49,8 @@ public class StreetSegment extends AbstractFeature
     this.highAddress = highAddress;
     this.tail = tail;
     this.head = head;
+    this.originalTail = tail;
+    this.originalHead = head;
     this.length = length;
     this.parentCanonicalName = parentCanonicalName;
   }
@@ -97,6 +101,36 @@ public class StreetSegment extends AbstractFeature
     return this.head;
   }
   
+  /**
+   * Gets the tail of the street segment as the street file numbers it.
+   * @return - Original ID of the tail.
+   */
+  public int getOriginalTail()
+  {
+    return this.originalTail;
+  }
+  
+  /**
+   * Gets the head of the street segment as the street file numbers it.
+   * @return - Original ID of the head.
+   */
+  public int getOriginalHead()
+  {
+    return this.originalHead;
+  }
+  
+  /**
+   * Moves the ends of the street segment to new intersection IDs, when its
+   * network renumbers the intersections. The original ends are kept.
+   * @param newTail - New ID of the tail.
+   * @param newHead - New ID of the head.
+   */
+  public void setEnds(final int newTail, final int newHead)
+  {
+    this.tail = newTail;
+    this.head = newHead;
+  }
+  
   /**
    * Gets high address of street segment.
    * @return - High address of street segment.
@@ -1,39 +1,86 @@
 package feature;
 
 import java.awt.geom.Rectangle2D;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import geography.GeographicShape;
 import grid.Grid;
 import gui.CartographyDocument;
 
 /**
- * Reads in street segment data to be printed.
+ * Reads in street segment data to be printed. The file is cut into chunks
+ * at line ends, and the chunks are parsed in parallel, each field found
+ * by scanning for tabs instead of with regular expressions. The segments
+ * are then added to the maps in chunk order, so the result is the same as
+ * reading the lines one after another. Fields are split like
+ * split("\\t+"), so an empty field merges with the next tab, and a line
+ * left with fewer than eleven fields is skipped instead of failing the
+ * whole read.
  * @author Jerome Donfack
  *
  */
 public class StreetsReader
 {
-  private BufferedReader in;
+  private static final int FIELD_COUNT = 11;
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private InputStream in;
+  private File file;
   private CartographyDocument<GeographicShape> geographicShapes;
-  
+  private ForkJoinPool pool;
+
   /**
    * Creates a new street reader.
    * @param is - Streets to read in.
    * @param shapes - Geogprahic shapes to use with reader.
    */
-  public StreetsReader(final InputStream is, 
+  public StreetsReader(final InputStream is,
+      final CartographyDocument<GeographicShape> shapes)
+  {
+    this.in = is;
+    this.geographicShapes = shapes;
+    this.pool = ForkJoinPool.commonPool();
+  }
+
+  /**
+   * Creates a new street reader that maps the file into memory and parses
+   * it on the common pool.
+   * @param file - File of the streets to read in.
+   * @param shapes - Geogprahic shapes to use with reader.
+   */
+  public StreetsReader(final File file,
       final CartographyDocument<GeographicShape> shapes)
   {
-    this.in = new BufferedReader(new InputStreamReader(is));
+    this(file, shapes, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a new street reader that maps the file into memory.
+   * @param file - File of the streets to read in.
+   * @param shapes - Geogprahic shapes to use with reader.
+   * @param pool - Pool the chunks are parsed on.
+   */
+  public StreetsReader(final File file,
+      final CartographyDocument<GeographicShape> shapes, final ForkJoinPool pool)
+  {
+    this.file = file;
     this.geographicShapes = shapes;
+    this.pool = pool;
   }
-  
+
   /**
    * Reads street segment data, and returns mappable street segments.
    * @param streets - Storage for all streets.
@@ -41,57 +88,37 @@ public class StreetsReader
    * @return - The mappable street segments.
    * @throws IOException
    */
-  public CartographyDocument<StreetSegment> read(final Map<String, Street> streets, 
+  public CartographyDocument<StreetSegment> read(final Map<String, Street> streets,
       final Grid grid) throws IOException
   {
-    String line;
-    String splitParam = "\\t+";
-    String removeParam = "\\D";
+    ByteBuffer buffer = this.file != null ? map(this.file) : ByteBuffer.wrap(readAll(this.in));
+    int[] cuts = chunkBounds(buffer,
+        Math.max(1, Math.min(this.pool.getParallelism() * 4, buffer.limit() / CHUNK_SIZE)));
+    List<Chunk> chunks = this.pool.submit(() -> IntStream.range(0, cuts.length - 1)
+        .parallel()
+        .mapToObj(i -> new Chunk(buffer, cuts[i], cuts[i + 1], this.geographicShapes))
+        .collect(Collectors.toList())).join();
+
     HashMap<String,StreetSegment> elementMap = new HashMap<>();
-    
-    Rectangle2D.Double bounds = this.geographicShapes.getBounds();
-    
-    while((line = in.readLine()) != null)
+    for(Chunk chunk : chunks)
     {
-      String[] words = line.split(splitParam);
-      int tail = Integer.parseInt(words[0].trim());
-      int head = Integer.parseInt(words[1].trim());
-      double length = Double.parseDouble(words[2].trim());
-      String code = words[3].trim();
-      String id = words[4].trim();
-      String prefix = words[5].trim();
-      String name = words[6].trim();
-      String type = words[7].trim();
-      String suffix = words[8].trim();
-      int tailAddress = words[9].trim().isEmpty() ? -1 
-          : Integer.parseInt(words[9].trim().replaceAll(removeParam, ""));
-      int headAddress = words[10].trim().isEmpty() ? -1 
-          : Integer.parseInt(words[10].trim().replaceAll(removeParam, ""));
-      int lowAddress = Math.min(tailAddress, headAddress);
-      int highAddress = Math.max(tailAddress, headAddress);
-      
-      GeographicShape visualSegment = geographicShapes.getElement(id);
-      
-      
-      String canonicalName = Street.createCanonicalName(prefix, name, type, suffix);
-      
-      StreetSegment seg = new StreetSegment(id, code, visualSegment, 
-          lowAddress, highAddress, tail, head, length, canonicalName);
-      elementMap.put(id, seg);
-      
-      if(!canonicalName.isEmpty())
+      for(int i=0; i<chunk.segments.size(); i++)
       {
-        streets.computeIfAbsent(Street.createCanonicalName(prefix, name, type, suffix), 
-            k -> new Street(prefix, name, type, 
-            suffix, code)).addSegment(seg);
+        StreetSegment seg = chunk.segments.get(i);
+        elementMap.put(seg.getID(), seg);
+
+        String canonicalName = seg.getparentCanonicalName();
+        if(!canonicalName.isEmpty())
+        {
+          String[] parts = chunk.names.get(i);
+          streets.computeIfAbsent(canonicalName,
+              k -> new Street(parts[0], parts[1], parts[2],
+              parts[3], seg.getCode())).addSegment(seg);
+        }
       }
     }
-    for(StreetSegment seg : elementMap.values())
-    {
-      seg.initHeadPoint();
-      seg.initTailPoint();
-    }
-    
+
+    Rectangle2D.Double bounds = this.geographicShapes.getBounds();
     grid.setBounds(bounds);
     grid.setElementMap(elementMap);
     grid.createGrid();
@@ -100,4 +127,186 @@ public class StreetsReader
     
     return new CartographyDocument<StreetSegment>(elementMap, bounds);
   }
+
+  /**
+   * Cuts the file into chunks of about the same size that end at line
+   * ends.
+   * @return - Start of every chunk, followed by the end of the file.
+   */
+  private static int[] chunkBounds(final ByteBuffer buffer, final int count)
+  {
+    int limit = buffer.limit();
+    int[] bounds = new int[count + 1];
+    for(int i=1; i<count; i++)
+    {
+      int position = Math.max(bounds[i - 1], (int) ((long) limit * i / count));
+      while(position < limit && buffer.get(position) != '\n'
+          && buffer.get(position) != '\r') position++;
+      bounds[i] = Math.min(limit, position + 1);
+    }
+    bounds[count] = limit;
+    return bounds;
+  }
+
+  private static ByteBuffer map(final File file) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static byte[] readAll(final InputStream is) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+    byte[] chunk = new byte[1 << 16];
+    int read;
+    while((read = is.read(chunk)) != -1) bytes.write(chunk, 0, read);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * The segments of one chunk of lines, with the name parts of their
+   * streets.
+   */
+  private static class Chunk
+  {
+    private ByteBuffer buffer;
+    private int[] starts;
+    private int[] ends;
+    private byte[] scratch;
+    private List<StreetSegment> segments;
+    private List<String[]> names;
+
+    /**
+     * Parses the lines of a chunk.
+     */
+    private Chunk(final ByteBuffer buffer, final int start, final int end,
+        final CartographyDocument<GeographicShape> shapes)
+    {
+      this.buffer = buffer;
+      this.starts = new int[FIELD_COUNT];
+      this.ends = new int[FIELD_COUNT];
+      this.scratch = new byte[256];
+      this.segments = new ArrayList<>();
+      this.names = new ArrayList<>();
+
+      int position = start;
+      while(position < end)
+      {
+        int lineStart = position;
+        while(position < end && buffer.get(position) != '\n'
+            && buffer.get(position) != '\r') position++;
+        int lineEnd = position;
+        if(position < end) position++;
+
+        // Lines with missing fields cannot be read, and the empty line a
+        // CR LF pair seems to end is one of them
+        if(split(lineStart, lineEnd) < FIELD_COUNT) continue;
+
+        int tail = parseInt(0);
+        int head = parseInt(1);
+        double length = Double.parseDouble(field(2));
+        String code = field(3);
+        String id = field(4);
+        String prefix = field(5);
+        String name = field(6);
+        String type = field(7);
+        String suffix = field(8);
+        int tailAddress = parseAddress(9);
+        int headAddress = parseAddress(10);
+        int lowAddress = Math.min(tailAddress, headAddress);
+        int highAddress = Math.max(tailAddress, headAddress);
+
+        GeographicShape visualSegment = shapes.getElement(id);
+        String canonicalName = Street.createCanonicalName(prefix, name, type, suffix);
+        StreetSegment seg = new StreetSegment(id, code, visualSegment,
+            lowAddress, highAddress, tail, head, length, canonicalName);
+        seg.initHeadPoint();
+        seg.initTailPoint();
+        this.segments.add(seg);
+        this.names.add(new String[] {prefix, name, type, suffix});
+      }
+    }
+
+    /**
+     * Finds the fields of a line the way split("\\t+") does, trimmed.
+     * @return - Number of fields found.
+     */
+    private int split(final int start, final int end)
+    {
+      int count = 0;
+      int position = start;
+      if(position < end && this.buffer.get(position) == '\t')
+      {
+        this.starts[count] = start;
+        this.ends[count++] = start;
+      }
+      while(count < FIELD_COUNT)
+      {
+        while(position < end && this.buffer.get(position) == '\t') position++;
+        if(position == end) break;
+
+        int fieldStart = position;
+        while(position < end && this.buffer.get(position) != '\t') position++;
+        int fieldEnd = position;
+        while(fieldStart < fieldEnd && (this.buffer.get(fieldStart) & 0xFF) <= ' ') fieldStart++;
+        while(fieldEnd > fieldStart && (this.buffer.get(fieldEnd - 1) & 0xFF) <= ' ') fieldEnd--;
+        this.starts[count] = fieldStart;
+        this.ends[count++] = fieldEnd;
+      }
+      return count;
+    }
+
+    private String field(final int field)
+    {
+      int length = this.ends[field] - this.starts[field];
+      if(length > this.scratch.length) this.scratch = new byte[length * 2];
+      for(int i=0; i<length; i++) this.scratch[i] = this.buffer.get(this.starts[field] + i);
+      return new String(this.scratch, 0, length);
+    }
+
+    /**
+     * Parses a field of up to nine digits and a sign in place, and leaves
+     * anything else to Integer.parseInt.
+     */
+    private int parseInt(final int field)
+    {
+      int position = this.starts[field];
+      int end = this.ends[field];
+      boolean negative = position < end && this.buffer.get(position) == '-';
+      if(position < end && (negative || this.buffer.get(position) == '+')) position++;
+      if(end == position || end - position > 9) return Integer.parseInt(field(field));
+
+      int value = 0;
+      for(; position < end; position++)
+      {
+        int digit = this.buffer.get(position) - '0';
+        if(digit < 0 || digit > 9) return Integer.parseInt(field(field));
+        value = value * 10 + digit;
+      }
+      return negative ? -value : value;
+    }
+
+    /**
+     * Parses the digits of an address, skipping everything else in it.
+     * @return - The address, or -1 if the field is empty.
+     */
+    private int parseAddress(final int field)
+    {
+      if(this.starts[field] == this.ends[field]) return -1;
+
+      int value = 0;
+      int count = 0;
+      for(int position = this.starts[field]; position < this.ends[field]; position++)
+      {
+        int digit = this.buffer.get(position) - '0';
+        if(digit < 0 || digit > 9) continue;
+        value = value * 10 + digit;
+        count++;
+      }
+      if(count == 0 || count > 9) return Integer.parseInt(field(field).replaceAll("\\D", ""));
+      return value;
+    }
+  }
 }
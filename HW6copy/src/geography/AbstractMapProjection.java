@@ -54,6 +54,27 @@ public abstract class AbstractMapProjection implements MapProjection
   public abstract double[] forward(final double lambda, final double phi);
 
 
+  /**
+   * The forward transformation of many points in place (i.e., from
+   * Longitude/Latitude in __degrees__ to kilometers above the equator
+   * and to the west of the reference meridian).
+   *
+   * @param xs    The longitudes, replaced by KMs west of reference
+   * @param ys    The latitudes, replaced by KMs north of equator
+   * @param count The number of points
+   */
+  @Override
+  public void forward(final double[] xs, final double[] ys, final int count)
+  {
+    for(int i=0; i<count; i++)
+    {
+      double[] km = forward(xs[i] * RADIANS_PER_DEGREE, ys[i] * RADIANS_PER_DEGREE);
+      xs[i] = km[0];
+      ys[i] = km[1];
+    }
+  }
+
+
   /**
    * The inverse transformation from kilometers (above the 
    * equator and to the west of the reference meridian)
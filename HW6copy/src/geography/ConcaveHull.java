@@ -0,0 +1,294 @@
+package geography;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Builds a concave hull around points. The convex hull is dug into, one
+ * edge at a time: an edge long compared to how far its nearest inner point
+ * is from its ends is replaced by two edges through that point, unless
+ * they would cross the hull. A grid of the points keeps each dig local.
+ * @author Jerome Donfack
+ *
+ */
+public class ConcaveHull
+{
+  private static final int NONE = -1;
+
+  private double[] xs;
+  private double[] ys;
+  private int count;
+  private double concavity;
+  private int[] next;
+  private int[] previous;
+  private boolean[] onHull;
+  private double minX, minY, cellSize;
+  private int columns, rows;
+  private int[] cellOffsets;
+  private int[] cellPoints;
+
+  private ConcaveHull(final double[] xs, final double[] ys, final int count,
+      final double concavity)
+  {
+    this.xs = xs;
+    this.ys = ys;
+    this.count = count;
+    this.concavity = concavity;
+    this.next = new int[count];
+    this.previous = new int[count];
+    this.onHull = new boolean[count];
+    Arrays.fill(this.next, NONE);
+    Arrays.fill(this.previous, NONE);
+  }
+
+  /**
+   * Creates the concave hull of some points.
+   * @param id - The id of the polygon.
+   * @param xs - X coordinate of every point.
+   * @param ys - Y coordinate of every point.
+   * @param count - Amount of points to use from the arrays.
+   * @param concavity - How long an edge must be, relative to the distance
+   * of its nearest inner point, to be dug into. Around 1 to 2 gives a
+   * tight hull, and large values give the convex hull.
+   * @return - The hull, or null if there are no points.
+   */
+  public static Polygon create(final String id, final double[] xs, final double[] ys,
+      final int count, final double concavity)
+  {
+    if(count == 0) return null;
+
+    ConcaveHull hull = new ConcaveHull(xs, ys, count, concavity);
+    int start = hull.buildConvexHull();
+    hull.buildGrid();
+    hull.dig(start);
+
+    Path2D.Double shape = new Path2D.Double();
+    shape.moveTo(xs[start], ys[start]);
+    for(int point = hull.next[start]; point != start && point != NONE; point = hull.next[point])
+    {
+      shape.lineTo(xs[point], ys[point]);
+    }
+    shape.closePath();
+    return new Polygon(id, shape);
+  }
+
+  /**
+   * Links the convex hull, counterclockwise, with Andrew's monotone chain.
+   * @return - A point on the hull.
+   */
+  private int buildConvexHull()
+  {
+    Integer[] sorted = new Integer[this.count];
+    for(int i=0; i<this.count; i++) sorted[i] = i;
+    Arrays.sort(sorted, (a, b) -> this.xs[a] != this.xs[b]
+        ? Double.compare(this.xs[a], this.xs[b]) : Double.compare(this.ys[a], this.ys[b]));
+
+    int[] chain = new int[2 * this.count];
+    int size = 0;
+    for(int i=0; i<this.count; i++)
+    {
+      while(size >= 2 && cross(chain[size - 2], chain[size - 1], sorted[i]) <= 0) size--;
+      chain[size++] = sorted[i];
+    }
+    for(int i = this.count - 2, lower = size + 1; i >= 0; i--)
+    {
+      while(size >= lower && cross(chain[size - 2], chain[size - 1], sorted[i]) <= 0) size--;
+      chain[size++] = sorted[i];
+    }
+    if(size > 1) size--;
+
+    for(int i=0; i<size; i++)
+    {
+      int point = chain[i];
+      int following = chain[(i + 1) % size];
+      this.onHull[point] = true;
+      if(following != point)
+      {
+        this.next[point] = following;
+        this.previous[following] = point;
+      }
+    }
+    return chain[0];
+  }
+
+  /**
+   * Buckets the points into square cells about two points wide.
+   */
+  private void buildGrid()
+  {
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    this.minX = Double.POSITIVE_INFINITY;
+    this.minY = Double.POSITIVE_INFINITY;
+    for(int i=0; i<this.count; i++)
+    {
+      this.minX = Math.min(this.minX, this.xs[i]);
+      this.minY = Math.min(this.minY, this.ys[i]);
+      maxX = Math.max(maxX, this.xs[i]);
+      maxY = Math.max(maxY, this.ys[i]);
+    }
+    double area = Math.max((maxX - this.minX) * (maxY - this.minY), 1e-12);
+    this.cellSize = Math.max(Math.sqrt(2 * area / this.count),
+        Math.max(maxX - this.minX, maxY - this.minY) / 4096);
+    if(this.cellSize <= 0) this.cellSize = 1;
+    this.columns = (int) ((maxX - this.minX) / this.cellSize) + 1;
+    this.rows = (int) ((maxY - this.minY) / this.cellSize) + 1;
+
+    this.cellOffsets = new int[this.columns * this.rows + 1];
+    for(int i=0; i<this.count; i++) this.cellOffsets[cellOf(i) + 1]++;
+    for(int cell=0; cell<this.columns * this.rows; cell++)
+    {
+      this.cellOffsets[cell + 1] += this.cellOffsets[cell];
+    }
+    int[] fill = Arrays.copyOf(this.cellOffsets, this.columns * this.rows);
+    this.cellPoints = new int[this.count];
+    for(int i=0; i<this.count; i++) this.cellPoints[fill[cellOf(i)]++] = i;
+  }
+
+  private int cellOf(final int point)
+  {
+    int column = (int) ((this.xs[point] - this.minX) / this.cellSize);
+    int row = (int) ((this.ys[point] - this.minY) / this.cellSize);
+    return row * this.columns + column;
+  }
+
+  /**
+   * Digs into hull edges until none is long enough compared to the
+   * distance of its nearest inner point.
+   */
+  private void dig(final int start)
+  {
+    if(this.next[start] == NONE) return;
+
+    Deque<int[]> edges = new ArrayDeque<>();
+    int point = start;
+    do
+    {
+      edges.add(new int[] {point, this.next[point]});
+      point = this.next[point];
+    }
+    while(point != start);
+
+    while(!edges.isEmpty())
+    {
+      int[] edge = edges.poll();
+      int a = edge[0];
+      int b = edge[1];
+      if(this.next[a] != b) continue;
+
+      double length = Math.hypot(this.xs[b] - this.xs[a], this.ys[b] - this.ys[a]);
+      int inner = findNearestInner(a, b, length / this.concavity);
+      if(inner == NONE) continue;
+
+      double decision = Math.min(
+          Math.hypot(this.xs[inner] - this.xs[a], this.ys[inner] - this.ys[a]),
+          Math.hypot(this.xs[inner] - this.xs[b], this.ys[inner] - this.ys[b]));
+      if(length / this.concavity <= decision) continue;
+      if(crossesHull(a, inner, a, b) || crossesHull(inner, b, a, b)) continue;
+
+      this.next[a] = inner;
+      this.previous[inner] = a;
+      this.next[inner] = b;
+      this.previous[b] = inner;
+      this.onHull[inner] = true;
+      edges.add(new int[] {a, inner});
+      edges.add(new int[] {inner, b});
+    }
+  }
+
+  /**
+   * Finds the inner point nearest to an edge that projects onto it and is
+   * not nearer to the edges before and after it.
+   */
+  private int findNearestInner(final int a, final int b, final double reach)
+  {
+    int fromColumn = column(Math.min(this.xs[a], this.xs[b]) - reach);
+    int toColumn = column(Math.max(this.xs[a], this.xs[b]) + reach);
+    int fromRow = row(Math.min(this.ys[a], this.ys[b]) - reach);
+    int toRow = row(Math.max(this.ys[a], this.ys[b]) + reach);
+
+    int nearest = NONE;
+    double nearestDistance = Double.POSITIVE_INFINITY;
+    for(int row=fromRow; row<=toRow; row++)
+    {
+      for(int column=fromColumn; column<=toColumn; column++)
+      {
+        int cell = row * this.columns + column;
+        for(int i = this.cellOffsets[cell]; i < this.cellOffsets[cell + 1]; i++)
+        {
+          int point = this.cellPoints[i];
+          if(this.onHull[point]) continue;
+
+          double distance = distanceToEdge(point, a, b);
+          if(distance >= nearestDistance || distance > reach) continue;
+          if(distance > distanceToEdge(point, this.previous[a], a)
+              || distance > distanceToEdge(point, b, this.next[b])) continue;
+
+          nearest = point;
+          nearestDistance = distance;
+        }
+      }
+    }
+    return nearest;
+  }
+
+  private int column(final double x)
+  {
+    return Math.max(0, Math.min(this.columns - 1, (int) ((x - this.minX) / this.cellSize)));
+  }
+
+  private int row(final double y)
+  {
+    return Math.max(0, Math.min(this.rows - 1, (int) ((y - this.minY) / this.cellSize)));
+  }
+
+  /**
+   * Gets the distance from a point to an edge, infinite when the point
+   * does not project onto the edge.
+   */
+  private double distanceToEdge(final int point, final int a, final int b)
+  {
+    double dx = this.xs[b] - this.xs[a];
+    double dy = this.ys[b] - this.ys[a];
+    double squared = dx * dx + dy * dy;
+    if(squared == 0) return Double.POSITIVE_INFINITY;
+
+    double t = ((this.xs[point] - this.xs[a]) * dx + (this.ys[point] - this.ys[a]) * dy) / squared;
+    if(t <= 0 || t >= 1) return Double.POSITIVE_INFINITY;
+    return Math.abs(dx * (this.ys[point] - this.ys[a]) - dy * (this.xs[point] - this.xs[a]))
+        / Math.sqrt(squared);
+  }
+
+  /**
+   * Checks if a new edge from p to q crosses any hull edge other than the
+   * edge from a to b that it replaces.
+   */
+  private boolean crossesHull(final int p, final int q, final int a, final int b)
+  {
+    int point = b;
+    while(point != a)
+    {
+      int following = this.next[point];
+      if(point != p && point != q && following != p && following != q
+          && intersects(p, q, point, following)) return true;
+      point = following;
+    }
+    return false;
+  }
+
+  private boolean intersects(final int a, final int b, final int c, final int d)
+  {
+    double d1 = cross(c, d, a);
+    double d2 = cross(c, d, b);
+    double d3 = cross(a, b, c);
+    double d4 = cross(a, b, d);
+    return ((d1 > 0) != (d2 > 0)) && ((d3 > 0) != (d4 > 0));
+  }
+
+  private double cross(final int o, final int a, final int b)
+  {
+    return (this.xs[a] - this.xs[o]) * (this.ys[b] - this.ys[o])
+        - (this.ys[a] - this.ys[o]) * (this.xs[b] - this.xs[o]);
+  }
+}
@@ -46,11 +46,33 @@ public class ConicalEqualAreaProjection extends AbstractMapProjection
   {
     double thetha = this.n * (lambda - this.refM);
     double p = Math.sqrt(this.c - 2 * this.n * Math.sin(phi)) / this.n;
-    double p1 = this.R * p * Math.sin(thetha);
-    double p2 = this.R *(this.p0 - p * Math.cos(thetha));
+    double p1 = R * p * Math.sin(thetha);
+    double p2 = R *(this.p0 - p * Math.cos(thetha));
     return new double[] {p1, p2};
   }
 
+  /**
+   * The forward conical equal area projection of many points in place,
+   * from Longitude/Latitude in __degrees__.
+   *
+   * @param xs    The longitudes, replaced by KMs west of reference
+   * @param ys    The latitudes, replaced by KMs north of equator
+   * @param count The number of points
+   */
+  @Override
+  public void forward(final double[] xs, final double[] ys, final int count)
+  {
+    for(int i=0; i<count; i++)
+    {
+      double lambda = xs[i] * RADIANS_PER_DEGREE;
+      double phi = ys[i] * RADIANS_PER_DEGREE;
+      double thetha = this.n * (lambda - this.refM);
+      double p = Math.sqrt(this.c - 2 * this.n * Math.sin(phi)) / this.n;
+      xs[i] = R * p * Math.sin(thetha);
+      ys[i] = R *(this.p0 - p * Math.cos(thetha));
+    }
+  }
+
   /**
    * The inverse conical equal area projection from kilometers (above the 
    * equator and to the west of the reference meridian)
@@ -63,8 +85,8 @@ public class ConicalEqualAreaProjection extends AbstractMapProjection
   @Override
   public double[] inverse(final double ew, final double ns)
   {
-    double p1Div = ew / this.R;
-    double p2Div = this.p0 - ns / this.R;
+    double p1Div = ew / R;
+    double p2Div = this.p0 - ns / R;
     double a = Math.sqrt(Math.pow(p1Div, 2) + Math.pow(p2Div, 2));
     double b = Math.atan(p1Div / p2Div);
     double phi = Math.asin((this.c - Math.pow(a, 2) * Math.pow(this.n, 2)));
@@ -1,24 +1,46 @@
 package geography;
 
+import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import gui.CartographyDocument;
 
 /**
- * Reads shapes from file to print on screen.
+ * Reads shapes from file to print on screen. The file is scanned byte by
+ * byte: coordinates are parsed where they lie, and the points of a shape
+ * are collected and projected in reused arrays, so no line, word or point
+ * becomes an object of its own.
  * @author Jerome Donfack
  *
  */
 public class GeographicShapesReader
 {
-  private BufferedReader in;
+  private static final byte[] COMMENT = "comment".getBytes();
+  private static final byte[] CURVE = "piecewiselinearcurve".getBytes();
+  private static final byte[] POLYGON = "polygon".getBytes();
+  private static final byte[] END = "END".getBytes();
+  private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+      1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+      1e21, 1e22};
+
+  private InputStream in;
+  private File file;
   private MapProjection proj;
-  
+  private ByteBuffer buffer;
+  private int lineEnd;
+  private int[] words;
+  private double[] xs;
+  private double[] ys;
+
   /**
    * Creates a new shape reader.
    * @param is - Shapes to read.
@@ -26,68 +48,249 @@ public class GeographicShapesReader
    */
   public GeographicShapesReader(final InputStream is, final MapProjection proj)
   {
-    this.in = new BufferedReader(new InputStreamReader(is));
+    this.in = is;
     this.proj = proj;
+    this.words = new int[8];
+    this.xs = new double[256];
+    this.ys = new double[256];
   }
-  
+
+  /**
+   * Creates a new shape reader that maps the file into memory instead of
+   * streaming it.
+   * @param file - File of the shapes to read.
+   * @param proj - Type of map projection.
+   */
+  public GeographicShapesReader(final File file, final MapProjection proj)
+  {
+    this((InputStream) null, proj);
+    this.file = file;
+  }
+
   /**
    * Reads in the shape data.
    * @return The cartography document used.
    */
   public CartographyDocument<GeographicShape> read()
   {
-    String line;
-    String splitParam = "\\s+";
     HashMap<String, GeographicShape> elementMap = new HashMap<>();
     double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
     double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
     try
     {
-      while((line = in.readLine()) != null)
+      this.buffer = this.file != null ? map(this.file) : ByteBuffer.wrap(readAll(this.in));
+      int position = 0;
+      while(position < this.buffer.limit())
       {
-        String[] words = line.split(splitParam);
-        String type = words[1];
-        if(type.toLowerCase().equals("comment"))
+        int start = position;
+        position = nextLine(start);
+        // A header is read as if split on whitespace, so a leading blank
+        // makes an empty first word
+        int count = split(start, this.lineEnd);
+        int shift = count > 0 && this.words[0] > start ? 1 : 0;
+        if(count < 2 - shift) continue;
+
+        if(matches(1 - shift, COMMENT))
         {
-          in.readLine();
+          if(position < this.buffer.limit()) position = nextLine(position);
+          continue;
         }
-        else
+        if(count < 4 - shift) continue;
+
+        boolean polygon = matches(1 - shift, POLYGON);
+        boolean known = polygon || matches(1 - shift, CURVE);
+        String id = word(3 - shift);
+
+        int points = 0;
+        while(position < this.buffer.limit())
         {
-          PiecewiseLinearCurve inputShape = null;
-          String id = words[3];
-          
-          if(type.toLowerCase().equals("piecewiselinearcurve"))
-          {
-            inputShape = new PiecewiseLinearCurve(id);
-          }
-          else if (type.toLowerCase().equals("polygon"))
-          {
-            inputShape = new Polygon(id);
-          }
-          line = in.readLine();
-          while(!line.equals("END"))
+          start = position;
+          position = nextLine(start);
+          if(isEnd(start, this.lineEnd)) break;
+          if(!known || split(start, this.lineEnd) < 2) continue;
+
+          if(points == this.xs.length)
           {
-            String[] splitStringCoords = line.trim().split(splitParam);
-            line = in.readLine();
-            double coord1 = Double.parseDouble(splitStringCoords[0]);
-            double coord2 = Double.parseDouble(splitStringCoords[1]);
-            double[] projectedCoords = proj.forward(new double[] {coord1, coord2});
-            inputShape.add(projectedCoords);
-            minX = Math.min(minX, projectedCoords[0]);
-            maxX = Math.max(maxX, projectedCoords[0]);
-            minY = Math.min(minY, projectedCoords[1]);
-            maxY = Math.max(maxY, projectedCoords[1]);
+            this.xs = Arrays.copyOf(this.xs, points * 2);
+            this.ys = Arrays.copyOf(this.ys, points * 2);
           }
-          elementMap.put(id, inputShape);
+          this.xs[points] = parseDouble(this.words[0], this.words[1]);
+          this.ys[points++] = parseDouble(this.words[2], this.words[3]);
+        }
+        if(!known) continue;
+
+        this.proj.forward(this.xs, this.ys, points);
+        Path2D.Double path = null;
+        if(points > 0)
+        {
+          path = new Path2D.Double(Path2D.WIND_NON_ZERO, points);
+          path.moveTo(this.xs[0], this.ys[0]);
         }
-      } 
+        for(int i=0; i<points; i++)
+        {
+          if(i > 0) path.lineTo(this.xs[i], this.ys[i]);
+          minX = Math.min(minX, this.xs[i]);
+          maxX = Math.max(maxX, this.xs[i]);
+          minY = Math.min(minY, this.ys[i]);
+          maxY = Math.max(maxY, this.ys[i]);
+        }
+
+        PiecewiseLinearCurve inputShape;
+        if(path == null)
+        {
+          inputShape = polygon ? new Polygon(id) : new PiecewiseLinearCurve(id);
+        }
+        else
+        {
+          inputShape = polygon ? new Polygon(id, path) : new PiecewiseLinearCurve(id, path);
+        }
+        elementMap.put(id, inputShape);
+      }
     }
     catch (IOException e)
     {
       System.out.println("File does not exsist.");
     }
-    Rectangle2D.Double bounds = new Rectangle2D.Double(minX, minY, 
+    this.buffer = null;
+    Rectangle2D.Double bounds = new Rectangle2D.Double(minX, minY,
         Math.abs(maxX - minX), Math.abs(maxY - minY));
     return new CartographyDocument<GeographicShape>(elementMap, bounds);
   }
+
+  private static ByteBuffer map(final File file) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+    {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static byte[] readAll(final InputStream is) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+    byte[] chunk = new byte[1 << 16];
+    int read;
+    while((read = is.read(chunk)) != -1) bytes.write(chunk, 0, read);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Finds the end of the line starting at a position, ended like
+   * BufferedReader.readLine ends lines, and keeps it in lineEnd.
+   * @return - Start of the next line.
+   */
+  private int nextLine(final int start)
+  {
+    int limit = this.buffer.limit();
+    int end = start;
+    while(end < limit && this.buffer.get(end) != '\n' && this.buffer.get(end) != '\r') end++;
+    this.lineEnd = end;
+    if(end == limit) return limit;
+    if(this.buffer.get(end) == '\r' && end + 1 < limit && this.buffer.get(end + 1) == '\n')
+    {
+      return end + 2;
+    }
+    return end + 1;
+  }
+
+  /**
+   * Finds the first words of a line, as start and end pairs in words.
+   * @return - Number of words found.
+   */
+  private int split(final int start, final int end)
+  {
+    int count = 0;
+    int position = start;
+    while(count < this.words.length / 2)
+    {
+      while(position < end && isWhitespace(this.buffer.get(position))) position++;
+      if(position == end) break;
+      this.words[2 * count] = position;
+      while(position < end && !isWhitespace(this.buffer.get(position))) position++;
+      this.words[2 * count + 1] = position;
+      count++;
+    }
+    return count;
+  }
+
+  private static boolean isWhitespace(final byte value)
+  {
+    return value == ' ' || value == '\t' || value == '\n' || value == 0x0B
+        || value == '\f' || value == '\r';
+  }
+
+  /**
+   * Checks a word against a lower case name, ignoring case.
+   */
+  private boolean matches(final int word, final byte[] name)
+  {
+    int start = this.words[2 * word];
+    if(this.words[2 * word + 1] - start != name.length) return false;
+    for(int i=0; i<name.length; i++)
+    {
+      int value = this.buffer.get(start + i);
+      if(value >= 'A' && value <= 'Z') value += 'a' - 'A';
+      if(value != name[i]) return false;
+    }
+    return true;
+  }
+
+  private boolean isEnd(final int start, final int end)
+  {
+    if(end - start != END.length) return false;
+    for(int i=0; i<END.length; i++) if(this.buffer.get(start + i) != END[i]) return false;
+    return true;
+  }
+
+  private String word(final int word)
+  {
+    byte[] bytes = new byte[this.words[2 * word + 1] - this.words[2 * word]];
+    for(int i=0; i<bytes.length; i++) bytes[i] = this.buffer.get(this.words[2 * word] + i);
+    return new String(bytes);
+  }
+
+  /**
+   * Parses a plain decimal number in place. The digits are gathered in a
+   * long and scaled by one power of ten, which rounds exactly like
+   * Double.parseDouble while both are exact doubles. Anything else, such
+   * as too many digits or an exponent, is left to Double.parseDouble.
+   */
+  private double parseDouble(final int start, final int end)
+  {
+    int position = start;
+    boolean negative = false;
+    if(position < end && (this.buffer.get(position) == '-' || this.buffer.get(position) == '+'))
+    {
+      negative = this.buffer.get(position++) == '-';
+    }
+
+    long digits = 0;
+    int scale = 0;
+    int count = 0;
+    boolean point = false;
+    for(; position < end; position++)
+    {
+      int value = this.buffer.get(position);
+      if(value == '.' && !point)
+      {
+        point = true;
+        continue;
+      }
+      if(value < '0' || value > '9' || digits > (1L << 53) / 10) break;
+
+      digits = digits * 10 + (value - '0');
+      count++;
+      if(point) scale++;
+    }
+    if(position != end || count == 0 || digits > (1L << 53)
+        || scale >= POWERS_OF_TEN.length)
+    {
+      byte[] bytes = new byte[end - start];
+      for(int i=0; i<bytes.length; i++) bytes[i] = this.buffer.get(start + i);
+      return Double.parseDouble(new String(bytes));
+    }
+
+    double value = digits / POWERS_OF_TEN[scale];
+    return negative ? -value : value;
+  }
 }
@@ -32,6 +32,18 @@ public interface MapProjection
   public abstract double[] forward(double lambda, double phi);
   
 
+  /**
+   * The forward transformation of many points in place (i.e., from
+   * Longitude/Latitude in __degrees__ to kilometers above the equator
+   * and to the west of the reference meridian), without an array per point.
+   *
+   * @param xs    The longitudes, replaced by KMs west of reference
+   * @param ys    The latitudes, replaced by KMs north of equator
+   * @param count The number of points
+   */
+  public abstract void forward(double[] xs, double[] ys, int count);
+  
+
   /**
    * The inverse transformation from kilometers (above the 
    * equator and to the west of the reference meridian)
@@ -20,11 +20,31 @@ public class SinusoidalProjection extends AbstractMapProjection
   @Override
   public double[] forward(final double lambda, final double phi)
   {
-    double p1 = lambda * this.R * Math.cos(phi);
-    double p2 = phi * this.R;
+    double p1 = lambda * R * Math.cos(phi);
+    double p2 = phi * R;
     return new double[] {p1, p2};
   }
 
+  /**
+   * The forward sinusoidal projection of many points in place, from
+   * Longitude/Latitude in __degrees__.
+   *
+   * @param xs    The longitudes, replaced by KMs west of reference
+   * @param ys    The latitudes, replaced by KMs north of equator
+   * @param count The number of points
+   */
+  @Override
+  public void forward(final double[] xs, final double[] ys, final int count)
+  {
+    for(int i=0; i<count; i++)
+    {
+      double lambda = xs[i] * RADIANS_PER_DEGREE;
+      double phi = ys[i] * RADIANS_PER_DEGREE;
+      xs[i] = lambda * R * Math.cos(phi);
+      ys[i] = phi * R;
+    }
+  }
+
   /**
    * The inverse sinusoidal projection from kilometers (above the 
    * equator and to the west of the reference meridian)
@@ -37,8 +57,8 @@ public class SinusoidalProjection extends AbstractMapProjection
   @Override
   public double[] inverse(final double ew, final double ns)
   {
-    double phi = ns / this.R;
-    double lambda = ew / (this.R * Math.cos(phi));
+    double phi = ns / R;
+    double lambda = ew / (R * Math.cos(phi));
     return new double[] {lambda, phi};
   }
 
@@ -0,0 +1,37 @@
+package graph;
+
+/**
+ * Uses an A* search guided by landmark lower bounds (ALT) to find the 
+ * shortest path.
+ * @author Jerome Donfack
+ *
+ */
+public class ALTAlgorithm extends AStarAlgorithm
+{
+  private LandmarkTable landmarks;
+
+  /**
+   * Create new ALTAlgorithm.
+   * @param labels - Labels to use.
+   * @param landmarks - Precomputed landmark distances.
+   */
+  public ALTAlgorithm(final PermanentLabelIndexedHeap labels, 
+      final LandmarkTable landmarks)
+  {
+    super(labels);
+    this.landmarks = landmarks;
+  }
+
+  /**
+   * Creates the lower bound used to guide the search.
+   * @param net - Network of nodes.
+   * @param destination - Node to travel to.
+   * @return - Estimator of the distance to the destination.
+   */
+  @Override
+  protected DistanceEstimator createEstimator(final StreetNetwork net, 
+      final int destination)
+  {
+    return new LandmarkEstimator(this.landmarks, destination);
+  }
+}
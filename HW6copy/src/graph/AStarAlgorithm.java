@@ -0,0 +1,94 @@
+package graph;
+
+import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Uses an A* search from the origin, guided by a lower bound on the 
+ * distance to the destination, to find the shortest path.
+ * @author Jerome Donfack
+ *
+ */
+public class AStarAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private PermanentLabelIndexedHeap labels;
+
+  /**
+   * Create new AStarAlgorithm.
+   * @param labels - Labels to use.
+   */
+  public AStarAlgorithm(final PermanentLabelIndexedHeap labels)
+  {
+    this.labels = labels;
+  }
+
+  /**
+   * Creates the lower bound used to guide the search.
+   * @param net - Network of nodes.
+   * @param destination - Node to travel to.
+   * @return - Estimator of the distance to the destination.
+   */
+  protected DistanceEstimator createEstimator(final StreetNetwork net, 
+      final int destination)
+  {
+    return new EuclideanEstimator(net, destination);
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination, 
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(!net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency arcs = net.getInboundArcs();
+    labels.reset();
+    DistanceEstimator estimator = createEstimator(net, destination);
+    labels.setEstimator(estimator);
+    Label workingNode = labels.getLabel(origin);
+    workingNode.setValue(0);
+    while(workingNode != null && workingNode.getID() != destination)
+    {
+      int node = workingNode.getID();
+      if(workingNode.getValue() + estimator.estimate(node) > getDistanceBound())
+      {
+        workingNode = null;
+        break;
+      }
+      labels.makePermanent(node);
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        labels.adjustHeadValue(node, arcs.getTarget(arc), arcs.getLength(arc), 
+            net.getSegment(arcs.getSegment(arc)));
+      }
+      workingNode = labels.getSmallestLabel();
+    }
+    if(workingNode != null && workingNode.getValue() > getDistanceBound())
+    {
+      workingNode = null;
+    }
+    
+    LinkedList<StreetSegment> segments = new LinkedList<>();
+    Label currentNode = labels.getLabel(destination);
+    while (workingNode != null && currentNode.getPredecessor() != null)
+    {
+      StreetSegment segment = currentNode.getPredecessor();
+      segments.addFirst(segment);
+      currentNode = labels.getLabel(segment.getHead());
+    }
+    
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    for(StreetSegment segment : segments) path.put(segment.getID(), segment);
+    return path;
+  }
+}
@@ -9,6 +9,7 @@ import feature.StreetSegment;
  */
 public abstract class AbstractLabelManager implements LabelManager
 {
+  protected SearchWorkspace workspace;
   protected Label[] labels;
   
   /**
@@ -17,15 +18,41 @@ public abstract class AbstractLabelManager implements LabelManager
    */
   public AbstractLabelManager(final int networkSize)
   {
-    this.labels = new Label[networkSize];
-    for (int i=0; i<networkSize; i++) this.labels[i] = new Label(i);
+    this(new SearchWorkspace(networkSize));
+  }
+  
+  /**
+   * Creates a new AbstractLabelManager that stores its labels in an 
+   * existing workspace.
+   * @param workspace - Workspace holding the label data.
+   */
+  public AbstractLabelManager(final SearchWorkspace workspace)
+  {
+    this.workspace = workspace;
+    this.labels = new Label[workspace.size()];
   }
   
   /**
    * Adjust the head label.
    * @param segment - Segement to use for adjusting.
    */
-  public abstract void adjustHeadValue(final StreetSegment segment);
+  @Override
+  public void adjustHeadValue(final StreetSegment segment)
+  {
+    adjustHeadValue(segment.getTail(), segment.getHead(), 
+        segment.getLength(), segment);
+  }
+  
+  /**
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
+   */
+  @Override
+  public abstract void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment);
   
   /**
    * Get the label.
@@ -35,12 +62,29 @@ public abstract class AbstractLabelManager implements LabelManager
   @Override
   public Label getLabel(final int intersectionID)
   {
-    return this.labels[intersectionID];
+    Label label = this.labels[intersectionID];
+    if(label == null)
+    {
+      label = new Label(this.workspace, intersectionID);
+      this.labels[intersectionID] = label;
+    }
+    return label;
   }
   
   @Override
   public Label[] getAllLabels()
   {
+    for (int i=0; i<this.labels.length; i++) getLabel(i);
     return this.labels;
   }
+  
+  /**
+   * Starts a new search. The workspace is invalidated by its epoch, so 
+   * nothing is cleared or reallocated.
+   */
+  @Override
+  public void reset()
+  {
+    this.workspace.reset();
+  }
 }
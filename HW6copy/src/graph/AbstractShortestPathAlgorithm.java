@@ -16,6 +16,8 @@ import feature.StreetSegmentObserver;
 public abstract class AbstractShortestPathAlgorithm implements ShortestPathAlgorithm
 {
   private Collection<StreetSegmentObserver> observers;
+  private boolean earlyTermination;
+  private double distanceBound;
   
   /**
    * Creates new AbstractShortestPathAlgorithm.
@@ -23,6 +25,8 @@ public abstract class AbstractShortestPathAlgorithm implements ShortestPathAlgor
   public AbstractShortestPathAlgorithm()
   {
     this.observers = new LinkedList<>();
+    this.earlyTermination = false;
+    this.distanceBound = Double.POSITIVE_INFINITY;
   }
   
   /**
@@ -30,12 +34,52 @@ public abstract class AbstractShortestPathAlgorithm implements ShortestPathAlgor
    * @param origin - Node to start from.
    * @param destination - Node to travel to.
    * @param net - Network of nodes.
-   * @param allPaths - The shortest path from all nodes to dest.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
    * @return - Path from origin node to desination node.
    */
   public abstract Map<String, StreetSegment> findPath(final int origin, 
       final int destination, final StreetNetwork net, 
-      final Map<String, Map<String, StreetSegment>> allPaths);
+      final ShortestPathTree allPaths);
+  
+  /**
+   * Stops the search as soon as the origin is settled instead of finding 
+   * the path from every node. allPaths then only holds the settled nodes.
+   * @param earlyTermination - If the search should stop at the origin.
+   */
+  public void setEarlyTermination(final boolean earlyTermination)
+  {
+    this.earlyTermination = earlyTermination;
+  }
+  
+  /**
+   * Checks if the search stops as soon as the origin is settled.
+   * @return - If the search should stop at the origin.
+   */
+  public boolean isEarlyTermination()
+  {
+    return this.earlyTermination;
+  }
+  
+  /**
+   * Prunes every label farther than a distance, so no path longer than 
+   * it is found.
+   * @param distanceBound - Largest distance to search, or infinity for no
+   * bound.
+   */
+  public void setDistanceBound(final double distanceBound)
+  {
+    this.distanceBound = distanceBound;
+  }
+  
+  /**
+   * Gets the largest distance to search.
+   * @return - Largest distance to search, or infinity for no bound.
+   */
+  public double getDistanceBound()
+  {
+    return this.distanceBound;
+  }
   
   /**
    * Adds a street seg observer.
@@ -0,0 +1,392 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import feature.StreetSegment;
+
+/**
+ * Finds alternatives to the shortest route with Yen's algorithm for the
+ * k shortest loopless paths. A route is only offered when it does not
+ * share too much of its length with a route offered before it.
+ *
+ * One shortest path tree to the destination is built per query and reused
+ * by every spur search: its distances guide the searches as exact
+ * estimates, and a search stops as soon as it settles an intersection
+ * whose tree path avoids everything the spur has to avoid, so most spurs
+ * only look at a handful of intersections. The spur searches leave every
+ * intersection over its inbound segments.
+ * @author Jerome Donfack
+ *
+ */
+public class AlternativeRoutes
+{
+  private static final int NONE = -1;
+
+  private StreetNetwork net;
+  private CompressedAdjacency arcs;
+  private CompressedAdjacency inbound;
+  private double maximumOverlap;
+  private int searchLimit;
+  private DestinationTree tree;
+  private SearchWorkspace workspace;
+  private IndexedHeap heap;
+  private int[] predecessors;
+  private int[] blockedNodes;
+  private int[] blockedSegments;
+  private int[] cleanStamps;
+  private boolean[] cleanValues;
+  private int[] chain;
+  private int stamp;
+  private int destination;
+
+  /**
+   * Creates a new AlternativeRoutes that offers routes sharing at most
+   * 80 percent of their length with a shorter offered route.
+   * @param net - Frozen network of nodes.
+   */
+  public AlternativeRoutes(final StreetNetwork net)
+  {
+    int size = net.size();
+    this.net = net;
+    this.arcs = net.getOutboundArcs();
+    this.inbound = net.getInboundArcs();
+    this.maximumOverlap = 0.8;
+    this.searchLimit = 100;
+    this.tree = new DestinationTree(net);
+    this.workspace = new SearchWorkspace(size);
+    this.heap = new IndexedHeap(4, size);
+    this.predecessors = new int[size];
+    this.blockedNodes = new int[size];
+    this.blockedSegments = new int[net.getSegmentCount()];
+    this.cleanStamps = new int[size];
+    this.cleanValues = new boolean[size];
+    this.chain = new int[size];
+    this.stamp = 0;
+  }
+
+  /**
+   * Sets how much of a route may be shared with a shorter offered route.
+   * @param maximumOverlap - Largest shared fraction of the length, where
+   * 1 offers the plain k shortest routes.
+   */
+  public void setMaximumOverlap(final double maximumOverlap)
+  {
+    this.maximumOverlap = maximumOverlap;
+  }
+
+  /**
+   * Gets how much of a route may be shared with a shorter offered route.
+   * @return - Largest shared fraction of the length.
+   */
+  public double getMaximumOverlap()
+  {
+    return this.maximumOverlap;
+  }
+
+  /**
+   * Sets how many routes may be generated, offered or not, before the
+   * search gives up on finding more alternatives.
+   * @param searchLimit - Most routes to generate.
+   */
+  public void setSearchLimit(final int searchLimit)
+  {
+    this.searchLimit = searchLimit;
+  }
+
+  /**
+   * Gets how many routes may be generated before the search gives up.
+   * @return - Most routes to generate.
+   */
+  public int getSearchLimit()
+  {
+    return this.searchLimit;
+  }
+
+  /**
+   * Finds up to k routes, shortest first. The first route is always a
+   * shortest path.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param k - Amount of routes wanted.
+   * @return - Every route as segments from origin to destination, empty if
+   * the destination cannot be reached.
+   */
+  public List<Map<String, StreetSegment>> findPaths(final int origin,
+      final int destination, final int k)
+  {
+    List<Map<String, StreetSegment>> routes = new ArrayList<>();
+    if(k <= 0) return routes;
+    if(origin == destination)
+    {
+      routes.add(new LinkedHashMap<>());
+      return routes;
+    }
+    if(!this.net.mayReach(origin, destination)) return routes;
+
+    this.destination = destination;
+    this.heap.clear();
+    this.tree.build(destination, this.heap);
+    if(Double.isInfinite(this.tree.getDistance(origin))) return routes;
+
+    List<Route> found = new ArrayList<>();
+    List<BitSet> offered = new ArrayList<>();
+    PriorityQueue<Route> candidates = new PriorityQueue<>();
+    Set<List<Integer>> seen = new HashSet<>();
+    Route shortest = new Route(origin, new int[0], followTree(origin), 0, 0);
+    candidates.add(shortest);
+    seen.add(shortest.getKey());
+
+    while(routes.size() < k && !candidates.isEmpty() && found.size() < this.searchLimit)
+    {
+      Route route = candidates.poll();
+      found.add(route);
+      if(isDistinct(route, offered))
+      {
+        BitSet segments = new BitSet(this.arcs.size());
+        for(int segment : route.segments) segments.set(segment);
+        offered.add(segments);
+        routes.add(toPath(route));
+      }
+      if(routes.size() < k) spur(route, found, candidates, seen);
+    }
+    return routes;
+  }
+
+  /**
+   * Tries every deviation of a route from its own deviation onward, since
+   * the earlier ones were already tried for the route it deviates from.
+   */
+  private void spur(final Route route, final List<Route> found,
+      final PriorityQueue<Route> candidates, final Set<List<Integer>> seen)
+  {
+    int[] shared = new int[found.size()];
+    for(int q=0; q<found.size(); q++)
+    {
+      int[] other = found.get(q).segments;
+      int length = Math.min(other.length, route.segments.length);
+      while(shared[q] < length && other[shared[q]] == route.segments[shared[q]]) shared[q]++;
+    }
+
+    double rootLength = 0;
+    for(int i=0; i<route.deviation; i++) rootLength += this.arcs.getLength(route.segments[i]);
+    for(int i=route.deviation; i<route.segments.length; i++)
+    {
+      // The root cannot be visited again, and the spur cannot leave the
+      // way any route with the same root did
+      this.stamp++;
+      for(int j=0; j<=i; j++) this.blockedNodes[route.nodes[j]] = this.stamp;
+      for(int q=0; q<found.size(); q++)
+      {
+        int[] other = found.get(q).segments;
+        if(shared[q] >= i && other.length > i) this.blockedSegments[other[i]] = this.stamp;
+      }
+
+      int[] spurPath = search(route.nodes[i]);
+      if(spurPath != null)
+      {
+        Route candidate = new Route(route.nodes[0], Arrays.copyOf(route.segments, i),
+            spurPath, rootLength, i);
+        if(seen.add(candidate.getKey())) candidates.add(candidate);
+      }
+      rootLength += this.arcs.getLength(route.segments[i]);
+    }
+  }
+
+  /**
+   * Searches from the spur node to the destination, using the tree
+   * distances as estimates. Since they are exact for the whole network, a
+   * settled node whose tree path is still open finishes the search.
+   * @return - The segments of the spur, or null if there is none.
+   */
+  private int[] search(final int spurNode)
+  {
+    this.workspace.reset();
+    this.heap.clear();
+    this.workspace.setValue(spurNode, 0);
+    this.predecessors[spurNode] = NONE;
+    this.heap.insertOrDecrease(spurNode, this.tree.getDistance(spurNode));
+    while(!this.heap.isEmpty())
+    {
+      int node = this.heap.removeMin();
+      this.workspace.makePermanent(node);
+      if(node == spurNode ? isTreeOpen(spurNode) : isClean(node))
+      {
+        List<Integer> segments = new ArrayList<>();
+        for(int current = node; this.predecessors[current] != NONE; )
+        {
+          segments.add(0, this.predecessors[current]);
+          current = this.net.getSegment(this.predecessors[current]).getHead();
+        }
+        int[] tail = followTree(node);
+        int[] path = new int[segments.size() + tail.length];
+        for(int i=0; i<segments.size(); i++) path[i] = segments.get(i);
+        System.arraycopy(tail, 0, path, segments.size(), tail.length);
+        return path;
+      }
+
+      double value = this.workspace.getValue(node);
+      for(int arc = this.inbound.getFirstArc(node); arc < this.inbound.getEndArc(node); arc++)
+      {
+        int segment = this.inbound.getSegment(arc);
+        int tail = this.inbound.getTarget(arc);
+        if(this.blockedSegments[segment] == this.stamp || this.blockedNodes[tail] == this.stamp
+            || this.workspace.isPermanent(tail)
+            || Double.isInfinite(this.tree.getDistance(tail))) continue;
+
+        double possibleValue = value + this.inbound.getLength(arc);
+        if(this.workspace.adjustValue(tail, possibleValue, null))
+        {
+          this.predecessors[tail] = segment;
+          this.heap.insertOrDecrease(tail, possibleValue + this.tree.getDistance(tail));
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks the tree path of the spur node, whose first segment may be
+   * blocked.
+   */
+  private boolean isTreeOpen(final int spurNode)
+  {
+    int segment = this.tree.getSuccessor(spurNode);
+    return this.blockedSegments[segment] != this.stamp
+        && isClean(getEnd(segment));
+  }
+
+  /**
+   * Checks whether the tree path of a node reaches the destination without
+   * a blocked node. Every node checked on the way remembers the answer for
+   * the rest of the spur search.
+   */
+  private boolean isClean(final int node)
+  {
+    int count = 0;
+    int current = node;
+    boolean clean;
+    while(true)
+    {
+      if(current == this.destination)
+      {
+        clean = true;
+        break;
+      }
+      if(this.blockedNodes[current] == this.stamp)
+      {
+        clean = false;
+        break;
+      }
+      if(this.cleanStamps[current] == this.stamp)
+      {
+        clean = this.cleanValues[current];
+        break;
+      }
+      this.chain[count++] = current;
+      current = getEnd(this.tree.getSuccessor(current));
+    }
+    for(int i=0; i<count; i++)
+    {
+      this.cleanStamps[this.chain[i]] = this.stamp;
+      this.cleanValues[this.chain[i]] = clean;
+    }
+    return clean;
+  }
+
+  private int[] followTree(final int node)
+  {
+    int count = 0;
+    for(int current = node; current != this.destination;
+        current = getEnd(this.tree.getSuccessor(current)))
+    {
+      this.chain[count++] = this.tree.getSuccessor(current);
+    }
+    return Arrays.copyOf(this.chain, count);
+  }
+
+  /**
+   * Gets the intersection a segment is driven to, which is its tail.
+   */
+  private int getEnd(final int segment)
+  {
+    return this.net.getSegment(segment).getTail();
+  }
+
+  /**
+   * Checks that a route shares at most the allowed fraction of its length
+   * with every route offered so far.
+   */
+  private boolean isDistinct(final Route route, final List<BitSet> offered)
+  {
+    for(BitSet segments : offered)
+    {
+      double overlap = 0;
+      for(int segment : route.segments)
+      {
+        if(segments.get(segment)) overlap += this.arcs.getLength(segment);
+      }
+      if(overlap > this.maximumOverlap * route.length) return false;
+    }
+    return true;
+  }
+
+  private Map<String, StreetSegment> toPath(final Route route)
+  {
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    for(int segment : route.segments)
+    {
+      StreetSegment streetSegment = this.net.getSegment(segment);
+      path.put(streetSegment.getID(), streetSegment);
+    }
+    return path;
+  }
+
+  /**
+   * A loopless route, with the position where it left the route it was
+   * found from.
+   */
+  private class Route implements Comparable<Route>
+  {
+    private int[] segments;
+    private int[] nodes;
+    private double length;
+    private int deviation;
+
+    private Route(final int origin, final int[] root, final int[] spur,
+        final double rootLength, final int deviation)
+    {
+      this.segments = Arrays.copyOf(root, root.length + spur.length);
+      System.arraycopy(spur, 0, this.segments, root.length, spur.length);
+      this.nodes = new int[this.segments.length + 1];
+      this.nodes[0] = origin;
+      this.length = rootLength;
+      for(int i=0; i<this.segments.length; i++)
+      {
+        this.nodes[i + 1] = getEnd(this.segments[i]);
+        if(i >= root.length) this.length += arcs.getLength(this.segments[i]);
+      }
+      this.deviation = deviation;
+    }
+
+    private List<Integer> getKey()
+    {
+      List<Integer> key = new ArrayList<>(this.segments.length);
+      for(int segment : this.segments) key.add(segment);
+      return key;
+    }
+
+    @Override
+    public int compareTo(final Route other)
+    {
+      return Double.compare(this.length, other.length);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package graph;
+
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+import feature.StreetSegment;
+
+/**
+ * A SwingWorker that finds alternative routes in a worker thread.
+ *
+ * @author Jerome Donfack
+ *
+ */
+public class AlternativeRoutesWorker
+    extends SwingWorker<List<Map<String, StreetSegment>>, String>
+{
+  private int destination, origin, k;
+  private AlternativeRoutes alternatives;
+
+  /**
+   * Explicit Value Constructor.
+   *
+   * @param alternatives - The route generator to use.
+   * @param origin - The origin Intersection.
+   * @param destination - The destination Intersection.
+   * @param k - Amount of routes wanted.
+   */
+  public AlternativeRoutesWorker(final AlternativeRoutes alternatives,
+      final int origin, final int destination, final int k)
+  {
+    this.alternatives = alternatives;
+    this.origin = origin;
+    this.destination = destination;
+    this.k = k;
+  }
+
+  /**
+   * The code to execute in the worker thread.
+   */
+  @Override
+  public List<Map<String, StreetSegment>> doInBackground()
+  {
+    return alternatives.findPaths(origin, destination, k);
+  }
+}
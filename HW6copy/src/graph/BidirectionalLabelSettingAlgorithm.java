@@ -0,0 +1,113 @@
+package graph;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Uses two label setting searches, one forward from the origin and one
+ * backward from the destination, that stop once they meet. As described in
+ * {@link ShortestPathAlgorithm}, the origin is searched over inbound
+ * segments and the destination over outbound ones.
+ * @author Jerome Donfack
+ *
+ */
+public class BidirectionalLabelSettingAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private PermanentLabelManager forwardLabels;
+  private PermanentLabelManager backwardLabels;
+
+  /**
+   * Create new BidirectionalLabelSettingAlgorithm.
+   * @param forwardLabels - Labels to use for the search from the origin.
+   * @param backwardLabels - Labels to use for the search from the destination.
+   */
+  public BidirectionalLabelSettingAlgorithm(final PermanentLabelManager forwardLabels,
+      final PermanentLabelManager backwardLabels)
+  {
+    this.forwardLabels = forwardLabels;
+    this.backwardLabels = backwardLabels;
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(!net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency outboundArcs = net.getOutboundArcs();
+    CompressedAdjacency inboundArcs = net.getInboundArcs();
+    forwardLabels.reset();
+    backwardLabels.reset();
+
+    Label forwardNode = forwardLabels.getLabel(origin);
+    Label backwardNode = backwardLabels.getLabel(destination);
+    forwardNode.setValue(0);
+    backwardNode.setValue(0);
+
+    // Only meetings shorter than this are accepted, which prunes both 
+    // searches at the distance bound
+    double shortest = origin == destination ? 0 : Math.nextUp(getDistanceBound());
+    int meeting = origin == destination ? origin : -1;
+    while(forwardNode != null && backwardNode != null
+        && forwardNode.getValue() + backwardNode.getValue() < shortest)
+    {
+      boolean forward = forwardNode.getValue() <= backwardNode.getValue();
+      PermanentLabelManager labels = forward ? forwardLabels : backwardLabels;
+      PermanentLabelManager otherLabels = forward ? backwardLabels : forwardLabels;
+      CompressedAdjacency arcs = forward ? inboundArcs : outboundArcs;
+
+      int node = forward ? forwardNode.getID() : backwardNode.getID();
+      labels.makePermanent(node);
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int target = arcs.getTarget(arc);
+        labels.adjustHeadValue(node, target, arcs.getLength(arc),
+            net.getSegment(arcs.getSegment(arc)));
+
+        double through = labels.getLabel(target).getValue()
+            + otherLabels.getLabel(target).getValue();
+        if(through < shortest)
+        {
+          shortest = through;
+          meeting = target;
+        }
+      }
+
+      if(forward) forwardNode = forwardLabels.getSmallestLabel();
+      else backwardNode = backwardLabels.getSmallestLabel();
+    }
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    if(meeting == -1) return path;
+
+    LinkedList<StreetSegment> toMeeting = new LinkedList<>();
+    Label currentNode = forwardLabels.getLabel(meeting);
+    while (currentNode.getPredecessor() != null)
+    {
+      StreetSegment segment = currentNode.getPredecessor();
+      toMeeting.addFirst(segment);
+      currentNode = forwardLabels.getLabel(segment.getHead());
+    }
+    for(StreetSegment segment : toMeeting) path.put(segment.getID(), segment);
+
+    currentNode = backwardLabels.getLabel(meeting);
+    while (currentNode.getPredecessor() != null)
+    {
+      StreetSegment segment = currentNode.getPredecessor();
+      path.put(segment.getID(), segment);
+      currentNode = backwardLabels.getLabel(segment.getTail());
+    }
+    return path;
+  }
+}
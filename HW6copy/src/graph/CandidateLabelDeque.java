@@ -0,0 +1,174 @@
+package graph;
+
+import feature.StreetSegment;
+
+/**
+ * Organizes all candidate labels in a circular deque of intersection IDs.
+ * A bitset keeps every intersection in the deque at most once, and the
+ * policy decides which end an improved label goes to and which label is
+ * scanned next.
+ * @author Jerome Donfack
+ *
+ */
+public class CandidateLabelDeque extends AbstractLabelManager
+    implements CandidateLabelManager
+{
+  public static final String FIFO = "F";
+  public static final String SMALL_LABEL_FIRST = "S";
+  public static final String LARGE_LABEL_LAST = "L";
+  public static final String SMALL_LABEL_FIRST_LARGE_LABEL_LAST = "SL";
+  public static final String PAPE = "P";
+
+  private int[] queue;
+  private int first;
+  private int count;
+  private long[] inQueue;
+  private double sum;
+  private boolean smallLabelFirst;
+  private boolean largeLabelLast;
+  private boolean pape;
+
+  /**
+   * Creates a new CandidateLabelDeque.
+   * @param policy - Policy to use.
+   * @param networkSize - Size of the street network.
+   */
+  public CandidateLabelDeque(final String policy, final int networkSize)
+  {
+    super(networkSize);
+    this.queue = new int[Math.max(1, networkSize)];
+    this.inQueue = new long[(networkSize + 63) >>> 6];
+    this.smallLabelFirst = policy.equals(SMALL_LABEL_FIRST)
+        || policy.equals(SMALL_LABEL_FIRST_LARGE_LABEL_LAST);
+    this.largeLabelLast = policy.equals(LARGE_LABEL_LAST)
+        || policy.equals(SMALL_LABEL_FIRST_LARGE_LABEL_LAST);
+    this.pape = policy.equals(PAPE);
+  }
+
+  /**
+   * Adjust the head label using primitive arc data. An improved label that
+   * is not queued goes to the back, or to the front when Small-Label-First
+   * finds it smaller than the front label or Pape's rule finds it was
+   * queued before.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
+   */
+  @Override
+  public void adjustHeadValue(final int tail, final int head,
+      final double length, final StreetSegment segment)
+  {
+    if (this.workspace.isPermanent(head)) return;
+
+    double oldValue = this.workspace.getValue(head);
+    double possibleValue = this.workspace.getValue(tail) + length;
+    if(!this.workspace.adjustValue(head, possibleValue, segment)) return;
+
+    if(isQueued(head))
+    {
+      this.sum += possibleValue - oldValue;
+      return;
+    }
+
+    boolean front;
+    if(this.pape) front = !Double.isInfinite(oldValue);
+    else front = this.smallLabelFirst && this.count > 0
+        && possibleValue < this.workspace.getValue(this.queue[this.first]);
+    if(front) addFirst(head);
+    else addLast(head);
+    this.sum += possibleValue;
+  }
+
+  /**
+   * Gets the candidate label to use. With Large-Label-Last, front labels
+   * larger than the average queued label are moved to the back first.
+   * @return - The candidate label, or null if there are none.
+   */
+  @Override
+  public Label getCandidateLabel()
+  {
+    if(this.count == 0) return null;
+
+    if(this.largeLabelLast)
+    {
+      double average = this.sum / this.count;
+      for(int moved=0; moved<this.count
+          && this.workspace.getValue(this.queue[this.first]) > average; moved++)
+      {
+        addLast(removeFirst());
+      }
+    }
+
+    int id = removeFirst();
+    this.sum -= this.workspace.getValue(id);
+    return this.getLabel(id);
+  }
+
+  /**
+   * Initializes the starting candiate to serach from.
+   * @param labelID - ID to add to canidates.
+   */
+  @Override
+  public void initializeCandiates(final int labelID)
+  {
+    if(this.count == 0)
+    {
+      addLast(labelID);
+      this.sum = this.workspace.getValue(labelID);
+    }
+  }
+
+  /**
+   * Checks if there are any remaining canidates.
+   * @return - Bool for whether there are any remaining canidates.
+   */
+  @Override
+  public boolean isCandiatesEmpty()
+  {
+    return this.count == 0;
+  }
+
+  /**
+   * Starts a new search, dropping any remaining candidates.
+   */
+  @Override
+  public void reset()
+  {
+    super.reset();
+    while(this.count > 0) removeFirst();
+    this.first = 0;
+    this.sum = 0;
+  }
+
+  private boolean isQueued(final int id)
+  {
+    return (this.inQueue[id >>> 6] & (1L << id)) != 0;
+  }
+
+  private void addFirst(final int id)
+  {
+    this.first = this.first == 0 ? this.queue.length - 1 : this.first - 1;
+    this.queue[this.first] = id;
+    this.count++;
+    this.inQueue[id >>> 6] |= 1L << id;
+  }
+
+  private void addLast(final int id)
+  {
+    int last = this.first + this.count;
+    if(last >= this.queue.length) last -= this.queue.length;
+    this.queue[last] = id;
+    this.count++;
+    this.inQueue[id >>> 6] |= 1L << id;
+  }
+
+  private int removeFirst()
+  {
+    int id = this.queue[this.first];
+    this.first = this.first == this.queue.length - 1 ? 0 : this.first + 1;
+    this.count--;
+    this.inQueue[id >>> 6] &= ~(1L << id);
+    return id;
+  }
+}
@@ -30,21 +30,22 @@ public class CandidateLabelList extends AbstractLabelManager
   }
   
   /**
-   * Adjust the head label.
-   * @param segment - Segement to use for adjusting.
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
    */
   @Override
-  public void adjustHeadValue(final StreetSegment segment)
+  public void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment)
   {
-    int headNode = segment.getHead();
-    int tailNode = segment.getTail();
-
-    Label headLabel = this.getLabel(headNode);
-    Label tailLabel = this.getLabel(tailNode);
+    Label headLabel = this.getLabel(head);
+    Label tailLabel = this.getLabel(tail);
 
     if (headLabel.isPermanent()) return;
 
-    double possibleValue = tailLabel.getValue() + segment.getLength();
+    double possibleValue = tailLabel.getValue() + length;
 
     if(headLabel != null) 
     {
@@ -92,6 +93,16 @@ public class CandidateLabelList extends AbstractLabelManager
     }
   }
   
+  /**
+   * Starts a new search, dropping any remaining candidates.
+   */
+  @Override
+  public void reset()
+  {
+    super.reset();
+    this.candidates.clear();
+  }
+  
   /**
    * Checks if there are any remaining canidates.
    * @return - Bool for whether there are any remaining canidates.
@@ -0,0 +1,92 @@
+package graph;
+
+/**
+ * Frozen compressed-sparse-row adjacency of a street network. The arcs
+ * leaving (or entering) intersection i are stored in positions
+ * offsets[i] (inclusive) to offsets[i + 1] (exclusive) of the arc arrays.
+ * @author Jerome Donfack
+ *
+ */
+public class CompressedAdjacency
+{
+  private int[] offsets;
+  private int[] targets;
+  private double[] lengths;
+  private int[] segments;
+
+  /**
+   * Creates a new CompressedAdjacency.
+   * @param offsets - First arc of every intersection, plus one past the
+   * last arc.
+   * @param targets - Intersection at the other end of every arc.
+   * @param lengths - Length of every arc.
+   * @param segments - Index of the street segment behind every arc.
+   */
+  CompressedAdjacency(final int[] offsets, final int[] targets,
+      final double[] lengths, final int[] segments)
+  {
+    this.offsets = offsets;
+    this.targets = targets;
+    this.lengths = lengths;
+    this.segments = segments;
+  }
+
+  /**
+   * Gets the first arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Index of the first arc.
+   */
+  public int getFirstArc(final int intersectionID)
+  {
+    return this.offsets[intersectionID];
+  }
+
+  /**
+   * Gets one past the last arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Index one past the last arc.
+   */
+  public int getEndArc(final int intersectionID)
+  {
+    return this.offsets[intersectionID + 1];
+  }
+
+  /**
+   * Gets the intersection at the other end of an arc.
+   * @param arc - Index of the arc.
+   * @return - ID of the other intersection.
+   */
+  public int getTarget(final int arc)
+  {
+    return this.targets[arc];
+  }
+
+  /**
+   * Gets the length of an arc.
+   * @param arc - Index of the arc.
+   * @return - Length of the arc.
+   */
+  public double getLength(final int arc)
+  {
+    return this.lengths[arc];
+  }
+
+  /**
+   * Gets the street segment index behind an arc.
+   * @param arc - Index of the arc.
+   * @return - Index of the street segment.
+   */
+  public int getSegment(final int arc)
+  {
+    return this.segments[arc];
+  }
+
+  /**
+   * Gets the number of arcs.
+   * @return - Number of arcs.
+   */
+  public int size()
+  {
+    return this.targets.length;
+  }
+}
@@ -0,0 +1,214 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A contraction hierarchy over a street network. Every intersection has a
+ * rank, and every arc, original or shortcut, is stored once: in the upward
+ * graph of its tail when it leads to a higher rank, otherwise in the
+ * downward graph of its head. Shortcuts remember the two arcs they replace.
+ * @author Jerome Donfack
+ *
+ */
+public class ContractionHierarchy
+{
+  private static final int NONE = -1;
+
+  private int[] ranks;
+  private int[] upwardOffsets;
+  private int[] upwardArcs;
+  private int[] downwardOffsets;
+  private int[] downwardArcs;
+  private int[] arcTails;
+  private int[] arcHeads;
+  private double[] arcLengths;
+  private int[] arcFirsts;
+  private int[] arcSeconds;
+  private int[] arcSegments;
+
+  /**
+   * Creates a new ContractionHierarchy.
+   * @param ranks - Contraction order of every intersection.
+   * @param upwardOffsets - First upward arc of every intersection.
+   * @param upwardArcs - Upward arcs, grouped by tail.
+   * @param downwardOffsets - First downward arc of every intersection.
+   * @param downwardArcs - Downward arcs, grouped by head.
+   * @param arcTails - Tail of every arc.
+   * @param arcHeads - Head of every arc.
+   * @param arcLengths - Length of every arc.
+   * @param arcFirsts - First replaced arc of every shortcut.
+   * @param arcSeconds - Second replaced arc of every shortcut.
+   * @param arcSegments - Street segment index of every original arc.
+   */
+  ContractionHierarchy(final int[] ranks, final int[] upwardOffsets,
+      final int[] upwardArcs, final int[] downwardOffsets, final int[] downwardArcs,
+      final int[] arcTails, final int[] arcHeads, final double[] arcLengths,
+      final int[] arcFirsts, final int[] arcSeconds, final int[] arcSegments)
+  {
+    this.ranks = ranks;
+    this.upwardOffsets = upwardOffsets;
+    this.upwardArcs = upwardArcs;
+    this.downwardOffsets = downwardOffsets;
+    this.downwardArcs = downwardArcs;
+    this.arcTails = arcTails;
+    this.arcHeads = arcHeads;
+    this.arcLengths = arcLengths;
+    this.arcFirsts = arcFirsts;
+    this.arcSeconds = arcSeconds;
+    this.arcSegments = arcSegments;
+  }
+
+  /**
+   * Contracts a street network.
+   * @param net - Network of nodes.
+   * @return - The contraction hierarchy.
+   */
+  public static ContractionHierarchy create(final StreetNetwork net)
+  {
+    return new ContractionHierarchyBuilder(net).build();
+  }
+
+  /**
+   * Gets the amount of intersections.
+   * @return - Amount of intersections.
+   */
+  public int size()
+  {
+    return this.ranks.length;
+  }
+
+  /**
+   * Gets the amount of arcs, including shortcuts.
+   * @return - Amount of arcs.
+   */
+  public int getArcCount()
+  {
+    return this.arcTails.length;
+  }
+
+  /**
+   * Gets the rank of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position of the intersection in the contraction order.
+   */
+  public int getRank(final int intersectionID)
+  {
+    return this.ranks[intersectionID];
+  }
+
+  /**
+   * Gets the first upward arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position of the first upward arc.
+   */
+  public int getFirstUpwardArc(final int intersectionID)
+  {
+    return this.upwardOffsets[intersectionID];
+  }
+
+  /**
+   * Gets one past the last upward arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position one past the last upward arc.
+   */
+  public int getEndUpwardArc(final int intersectionID)
+  {
+    return this.upwardOffsets[intersectionID + 1];
+  }
+
+  /**
+   * Gets the arc at a position of the upward graph.
+   * @param position - Position in the upward graph.
+   * @return - Index of the arc.
+   */
+  public int getUpwardArc(final int position)
+  {
+    return this.upwardArcs[position];
+  }
+
+  /**
+   * Gets the first downward arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position of the first downward arc.
+   */
+  public int getFirstDownwardArc(final int intersectionID)
+  {
+    return this.downwardOffsets[intersectionID];
+  }
+
+  /**
+   * Gets one past the last downward arc of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position one past the last downward arc.
+   */
+  public int getEndDownwardArc(final int intersectionID)
+  {
+    return this.downwardOffsets[intersectionID + 1];
+  }
+
+  /**
+   * Gets the arc at a position of the downward graph.
+   * @param position - Position in the downward graph.
+   * @return - Index of the arc.
+   */
+  public int getDownwardArc(final int position)
+  {
+    return this.downwardArcs[position];
+  }
+
+  /**
+   * Gets the tail of an arc.
+   * @param arc - Index of the arc.
+   * @return - ID of the tail intersection.
+   */
+  public int getTail(final int arc)
+  {
+    return this.arcTails[arc];
+  }
+
+  /**
+   * Gets the head of an arc.
+   * @param arc - Index of the arc.
+   * @return - ID of the head intersection.
+   */
+  public int getHead(final int arc)
+  {
+    return this.arcHeads[arc];
+  }
+
+  /**
+   * Gets the length of an arc.
+   * @param arc - Index of the arc.
+   * @return - Length of the arc.
+   */
+  public double getLength(final int arc)
+  {
+    return this.arcLengths[arc];
+  }
+
+  /**
+   * Adds the street segment indexes an arc stands for, in order from the
+   * tail of the arc to its head.
+   * @param arc - Index of the arc.
+   * @param segments - List to add the segment indexes to.
+   */
+  public void unpack(final int arc, final List<Integer> segments)
+  {
+    int[] stack = new int[16];
+    int top = 0;
+    stack[top++] = arc;
+    while(top > 0)
+    {
+      int current = stack[--top];
+      if(this.arcSegments[current] != NONE)
+      {
+        segments.add(this.arcSegments[current]);
+        continue;
+      }
+      if(top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+      stack[top++] = this.arcSeconds[current];
+      stack[top++] = this.arcFirsts[current];
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Finds the shortest path in a contraction hierarchy with two searches that
+ * only climb in rank, then unpacks the shortcuts on the route. Arcs lead
+ * from tail to head while routes of {@link ShortestPathAlgorithm} drive
+ * segments from head to tail, so the search over upward arcs starts at
+ * the destination, the one over downward arcs at the origin, and the
+ * route is read back to front.
+ * @author Jerome Donfack
+ *
+ */
+public class ContractionHierarchyAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private static final int NONE = -1;
+
+  private ContractionHierarchy hierarchy;
+  private double[] forwardValues;
+  private double[] backwardValues;
+  private int[] forwardPredecessors;
+  private int[] backwardPredecessors;
+  private IndexedHeap forwardHeap;
+  private IndexedHeap backwardHeap;
+  private int[] touched;
+  private int touchedCount;
+
+  /**
+   * Create new ContractionHierarchyAlgorithm.
+   * @param hierarchy - Contracted network to search.
+   */
+  public ContractionHierarchyAlgorithm(final ContractionHierarchy hierarchy)
+  {
+    int size = hierarchy.size();
+    this.hierarchy = hierarchy;
+    this.forwardValues = new double[size];
+    this.backwardValues = new double[size];
+    Arrays.fill(this.forwardValues, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.backwardValues, Double.POSITIVE_INFINITY);
+    this.forwardPredecessors = new int[size];
+    this.backwardPredecessors = new int[size];
+    this.forwardHeap = new IndexedHeap(4, size);
+    this.backwardHeap = new IndexedHeap(4, size);
+    this.touched = new int[size];
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(!net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    // The destination is reached first, so an origin equal to it is not 
+    // touched twice
+    reach(destination);
+    this.forwardValues[destination] = 0;
+    this.forwardPredecessors[destination] = NONE;
+    this.forwardHeap.insertOrDecrease(destination, 0);
+    reach(origin);
+    this.backwardValues[origin] = 0;
+    this.backwardPredecessors[origin] = NONE;
+    this.backwardHeap.insertOrDecrease(origin, 0);
+
+    // Only meetings shorter than this are accepted, which prunes both 
+    // searches at the distance bound
+    double shortest = Math.nextUp(getDistanceBound());
+    int meeting = NONE;
+    while(true)
+    {
+      if(this.forwardHeap.getMinKey() >= shortest) this.forwardHeap.clear();
+      if(this.backwardHeap.getMinKey() >= shortest) this.backwardHeap.clear();
+      if(this.forwardHeap.isEmpty() && this.backwardHeap.isEmpty()) break;
+
+      boolean forward = this.forwardHeap.getMinKey() <= this.backwardHeap.getMinKey();
+      int node = forward ? this.forwardHeap.removeMin() : this.backwardHeap.removeMin();
+      double through = this.forwardValues[node] + this.backwardValues[node];
+      if(through < shortest)
+      {
+        shortest = through;
+        meeting = node;
+      }
+
+      if(isStalled(node, forward)) continue;
+      
+      if(forward)
+      {
+        for(int i = hierarchy.getFirstUpwardArc(node); 
+            i < hierarchy.getEndUpwardArc(node); i++)
+        {
+          int arc = hierarchy.getUpwardArc(i);
+          relax(arc, hierarchy.getHead(arc), this.forwardValues[node], 
+              this.forwardValues, this.forwardPredecessors, this.forwardHeap);
+        }
+      }
+      else
+      {
+        for(int i = hierarchy.getFirstDownwardArc(node); 
+            i < hierarchy.getEndDownwardArc(node); i++)
+        {
+          int arc = hierarchy.getDownwardArc(i);
+          relax(arc, hierarchy.getTail(arc), this.backwardValues[node], 
+              this.backwardValues, this.backwardPredecessors, this.backwardHeap);
+        }
+      }
+    }
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    if(meeting != NONE)
+    {
+      List<Integer> upArcs = new ArrayList<>();
+      for(int node = meeting; this.forwardPredecessors[node] != NONE; )
+      {
+        int arc = this.forwardPredecessors[node];
+        upArcs.add(0, arc);
+        node = hierarchy.getTail(arc);
+      }
+      List<Integer> segments = new ArrayList<>();
+      for(int arc : upArcs) hierarchy.unpack(arc, segments);
+      for(int node = meeting; this.backwardPredecessors[node] != NONE; )
+      {
+        int arc = this.backwardPredecessors[node];
+        hierarchy.unpack(arc, segments);
+        node = hierarchy.getHead(arc);
+      }
+      Collections.reverse(segments);
+      for(int segment : segments)
+      {
+        StreetSegment streetSegment = net.getSegment(segment);
+        path.put(streetSegment.getID(), streetSegment);
+      }
+    }
+    reset();
+    return path;
+  }
+
+  /**
+   * A node is stalled when an arc from a higher ranked node that the same
+   * search already reached gives it a smaller value. Its value is then not
+   * a shortest distance, so relaxing its arcs is wasted work.
+   */
+  private boolean isStalled(final int node, final boolean forward)
+  {
+    double[] values = forward ? this.forwardValues : this.backwardValues;
+    if(forward)
+    {
+      for(int i = hierarchy.getFirstDownwardArc(node); 
+          i < hierarchy.getEndDownwardArc(node); i++)
+      {
+        int arc = hierarchy.getDownwardArc(i);
+        if(values[hierarchy.getTail(arc)] + hierarchy.getLength(arc) < values[node]) 
+        {
+          return true;
+        }
+      }
+    }
+    else
+    {
+      for(int i = hierarchy.getFirstUpwardArc(node); 
+          i < hierarchy.getEndUpwardArc(node); i++)
+      {
+        int arc = hierarchy.getUpwardArc(i);
+        if(values[hierarchy.getHead(arc)] + hierarchy.getLength(arc) < values[node]) 
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void relax(final int arc, final int target, final double value,
+      final double[] values, final int[] predecessors, final IndexedHeap heap)
+  {
+    double possibleValue = value + hierarchy.getLength(arc);
+    reach(target);
+    if(possibleValue < values[target])
+    {
+      values[target] = possibleValue;
+      predecessors[target] = arc;
+      heap.insertOrDecrease(target, possibleValue);
+    }
+  }
+
+  private void reach(final int node)
+  {
+    if(Double.isInfinite(this.forwardValues[node]) 
+        && Double.isInfinite(this.backwardValues[node]))
+    {
+      this.touched[this.touchedCount++] = node;
+    }
+  }
+
+  private void reset()
+  {
+    for(int i=0; i<this.touchedCount; i++)
+    {
+      this.forwardValues[this.touched[i]] = Double.POSITIVE_INFINITY;
+      this.backwardValues[this.touched[i]] = Double.POSITIVE_INFINITY;
+    }
+    this.touchedCount = 0;
+    this.forwardHeap.clear();
+    this.backwardHeap.clear();
+  }
+}
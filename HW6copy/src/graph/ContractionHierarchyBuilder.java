@@ -0,0 +1,349 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Contracts the intersections of a street network one at a time, adding
+ * shortcut arcs wherever a witness search cannot find a path around the
+ * contracted intersection.
+ * @author Jerome Donfack
+ *
+ */
+class ContractionHierarchyBuilder
+{
+  private static final int SIMULATED_SETTLE_LIMIT = 30;
+  private static final int SETTLE_LIMIT = 200;
+  private static final int NONE = -1;
+
+  private int size;
+  private int arcCount;
+  private int[] arcTails;
+  private int[] arcHeads;
+  private double[] arcLengths;
+  private int[] arcFirsts;
+  private int[] arcSeconds;
+  private int[] arcSegments;
+
+  private int[][] outArcs;
+  private int[] outCounts;
+  private int[][] inArcs;
+  private int[] inCounts;
+
+  private boolean[] contracted;
+  private int[] contractedNeighbors;
+  private int[] ranks;
+
+  private double[] witnessDistances;
+  private int[] touched;
+  private int touchedCount;
+  private IndexedHeap witnessHeap;
+
+  /**
+   * Creates a new ContractionHierarchyBuilder. Parallel segments are
+   * reduced to the shortest one and loops are dropped.
+   * @param net - Network to contract.
+   */
+  ContractionHierarchyBuilder(final StreetNetwork net)
+  {
+    this.size = net.size();
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    int capacity = Math.max(16, arcs.size() * 2);
+    this.arcTails = new int[capacity];
+    this.arcHeads = new int[capacity];
+    this.arcLengths = new double[capacity];
+    this.arcFirsts = new int[capacity];
+    this.arcSeconds = new int[capacity];
+    this.arcSegments = new int[capacity];
+    this.outArcs = new int[this.size][];
+    this.outCounts = new int[this.size];
+    this.inArcs = new int[this.size][];
+    this.inCounts = new int[this.size];
+    for(int node=0; node<this.size; node++)
+    {
+      this.outArcs[node] = new int[4];
+      this.inArcs[node] = new int[4];
+    }
+
+    for(int node=0; node<this.size; node++)
+    {
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int head = arcs.getTarget(arc);
+        if(head == node) continue;
+
+        int existing = findArc(node, head);
+        if(existing == NONE)
+        {
+          addArc(node, head, arcs.getLength(arc), NONE, NONE, arcs.getSegment(arc));
+        }
+        else if(arcs.getLength(arc) < this.arcLengths[existing])
+        {
+          this.arcLengths[existing] = arcs.getLength(arc);
+          this.arcSegments[existing] = arcs.getSegment(arc);
+        }
+      }
+    }
+
+    this.contracted = new boolean[this.size];
+    this.contractedNeighbors = new int[this.size];
+    this.ranks = new int[this.size];
+    this.witnessDistances = new double[this.size];
+    Arrays.fill(this.witnessDistances, Double.POSITIVE_INFINITY);
+    this.touched = new int[this.size];
+    this.witnessHeap = new IndexedHeap(4, this.size);
+  }
+
+  /**
+   * Contracts every intersection in order of edge difference and builds the
+   * upward search graphs.
+   * @return - The contraction hierarchy.
+   */
+  ContractionHierarchy build()
+  {
+    IndexedHeap order = new IndexedHeap(4, this.size);
+    for(int node=0; node<this.size; node++)
+    {
+      order.insertOrDecrease(node, priority(node));
+    }
+
+    int rank = 0;
+    while(!order.isEmpty())
+    {
+      int node = order.removeMin();
+      double current = priority(node);
+      if(!order.isEmpty() && current > order.getMinKey())
+      {
+        order.insertOrDecrease(node, current);
+        continue;
+      }
+
+      contract(node, false);
+      this.contracted[node] = true;
+      this.ranks[node] = rank++;
+
+      for(int i=0; i<this.outCounts[node]; i++)
+      {
+        updateNeighbor(order, this.arcHeads[this.outArcs[node][i]]);
+      }
+      for(int i=0; i<this.inCounts[node]; i++)
+      {
+        updateNeighbor(order, this.arcTails[this.inArcs[node][i]]);
+      }
+    }
+    return createHierarchy();
+  }
+
+  private void updateNeighbor(final IndexedHeap order, final int neighbor)
+  {
+    if(this.contracted[neighbor]) return;
+
+    this.contractedNeighbors[neighbor]++;
+    order.remove(neighbor);
+    order.insertOrDecrease(neighbor, priority(neighbor));
+  }
+
+  private double priority(final int node)
+  {
+    int removed = 0;
+    for(int i=0; i<this.outCounts[node]; i++)
+    {
+      if(!this.contracted[this.arcHeads[this.outArcs[node][i]]]) removed++;
+    }
+    for(int i=0; i<this.inCounts[node]; i++)
+    {
+      if(!this.contracted[this.arcTails[this.inArcs[node][i]]]) removed++;
+    }
+    return contract(node, true) - removed + this.contractedNeighbors[node];
+  }
+
+  private int contract(final int node, final boolean simulate)
+  {
+    int shortcuts = 0;
+    for(int i=0; i<this.inCounts[node]; i++)
+    {
+      int inArc = this.inArcs[node][i];
+      int tail = this.arcTails[inArc];
+      if(this.contracted[tail]) continue;
+
+      double limit = -1;
+      for(int j=0; j<this.outCounts[node]; j++)
+      {
+        int outArc = this.outArcs[node][j];
+        int head = this.arcHeads[outArc];
+        if(this.contracted[head] || head == tail) continue;
+        limit = Math.max(limit, this.arcLengths[inArc] + this.arcLengths[outArc]);
+      }
+      if(limit < 0) continue;
+
+      witnessSearch(tail, node, limit,
+          simulate ? SIMULATED_SETTLE_LIMIT : SETTLE_LIMIT);
+      for(int j=0; j<this.outCounts[node]; j++)
+      {
+        int outArc = this.outArcs[node][j];
+        int head = this.arcHeads[outArc];
+        if(this.contracted[head] || head == tail) continue;
+
+        double via = this.arcLengths[inArc] + this.arcLengths[outArc];
+        if(this.witnessDistances[head] > via)
+        {
+          shortcuts++;
+          if(!simulate)
+          {
+            addShortcut(tail, head, via, inArc, outArc);
+            if(Double.isInfinite(this.witnessDistances[head]))
+            {
+              this.touched[this.touchedCount++] = head;
+            }
+            this.witnessDistances[head] = via;
+          }
+        }
+      }
+      clearWitnessSearch();
+    }
+    return shortcuts;
+  }
+
+  private void witnessSearch(final int source, final int excluded,
+      final double limit, final int settleLimit)
+  {
+    this.witnessDistances[source] = 0;
+    this.touched[this.touchedCount++] = source;
+    this.witnessHeap.insertOrDecrease(source, 0);
+    int settled = 0;
+    while(!this.witnessHeap.isEmpty() && settled < settleLimit
+        && this.witnessHeap.getMinKey() <= limit)
+    {
+      int node = this.witnessHeap.removeMin();
+      settled++;
+      for(int i=0; i<this.outCounts[node]; i++)
+      {
+        int arc = this.outArcs[node][i];
+        int head = this.arcHeads[arc];
+        if(head == excluded || this.contracted[head]) continue;
+
+        double value = this.witnessDistances[node] + this.arcLengths[arc];
+        if(value < this.witnessDistances[head])
+        {
+          if(Double.isInfinite(this.witnessDistances[head]))
+          {
+            this.touched[this.touchedCount++] = head;
+          }
+          this.witnessDistances[head] = value;
+          this.witnessHeap.insertOrDecrease(head, value);
+        }
+      }
+    }
+  }
+
+  private void clearWitnessSearch()
+  {
+    for(int i=0; i<this.touchedCount; i++)
+    {
+      this.witnessDistances[this.touched[i]] = Double.POSITIVE_INFINITY;
+    }
+    this.touchedCount = 0;
+    this.witnessHeap.clear();
+  }
+
+  /**
+   * Arcs between two intersections that are not contracted yet are never
+   * part of a shortcut, so a longer one can be overwritten in place.
+   */
+  private void addShortcut(final int tail, final int head, final double length,
+      final int first, final int second)
+  {
+    int existing = findArc(tail, head);
+    if(existing == NONE)
+    {
+      addArc(tail, head, length, first, second, NONE);
+    }
+    else if(length < this.arcLengths[existing])
+    {
+      this.arcLengths[existing] = length;
+      this.arcFirsts[existing] = first;
+      this.arcSeconds[existing] = second;
+      this.arcSegments[existing] = NONE;
+    }
+  }
+
+  private int findArc(final int tail, final int head)
+  {
+    for(int i=0; i<this.outCounts[tail]; i++)
+    {
+      if(this.arcHeads[this.outArcs[tail][i]] == head) return this.outArcs[tail][i];
+    }
+    return NONE;
+  }
+
+  private void addArc(final int tail, final int head, final double length,
+      final int first, final int second, final int segment)
+  {
+    if(this.arcCount == this.arcTails.length)
+    {
+      int capacity = this.arcCount * 2;
+      this.arcTails = Arrays.copyOf(this.arcTails, capacity);
+      this.arcHeads = Arrays.copyOf(this.arcHeads, capacity);
+      this.arcLengths = Arrays.copyOf(this.arcLengths, capacity);
+      this.arcFirsts = Arrays.copyOf(this.arcFirsts, capacity);
+      this.arcSeconds = Arrays.copyOf(this.arcSeconds, capacity);
+      this.arcSegments = Arrays.copyOf(this.arcSegments, capacity);
+    }
+    int arc = this.arcCount++;
+    this.arcTails[arc] = tail;
+    this.arcHeads[arc] = head;
+    this.arcLengths[arc] = length;
+    this.arcFirsts[arc] = first;
+    this.arcSeconds[arc] = second;
+    this.arcSegments[arc] = segment;
+
+    if(this.outCounts[tail] == this.outArcs[tail].length)
+    {
+      this.outArcs[tail] = Arrays.copyOf(this.outArcs[tail], this.outCounts[tail] * 2);
+    }
+    this.outArcs[tail][this.outCounts[tail]++] = arc;
+    if(this.inCounts[head] == this.inArcs[head].length)
+    {
+      this.inArcs[head] = Arrays.copyOf(this.inArcs[head], this.inCounts[head] * 2);
+    }
+    this.inArcs[head][this.inCounts[head]++] = arc;
+  }
+
+  private ContractionHierarchy createHierarchy()
+  {
+    int[] upwardOffsets = new int[this.size + 1];
+    int[] downwardOffsets = new int[this.size + 1];
+    for(int arc=0; arc<this.arcCount; arc++)
+    {
+      int tail = this.arcTails[arc];
+      int head = this.arcHeads[arc];
+      if(this.ranks[tail] < this.ranks[head]) upwardOffsets[tail + 1]++;
+      else downwardOffsets[head + 1]++;
+    }
+    for(int node=0; node<this.size; node++)
+    {
+      upwardOffsets[node + 1] += upwardOffsets[node];
+      downwardOffsets[node + 1] += downwardOffsets[node];
+    }
+
+    int[] upwardArcs = new int[upwardOffsets[this.size]];
+    int[] downwardArcs = new int[downwardOffsets[this.size]];
+    int[] upwardNext = upwardOffsets.clone();
+    int[] downwardNext = downwardOffsets.clone();
+    for(int arc=0; arc<this.arcCount; arc++)
+    {
+      int tail = this.arcTails[arc];
+      int head = this.arcHeads[arc];
+      if(this.ranks[tail] < this.ranks[head]) upwardArcs[upwardNext[tail]++] = arc;
+      else downwardArcs[downwardNext[head]++] = arc;
+    }
+
+    return new ContractionHierarchy(this.ranks,
+        upwardOffsets, upwardArcs, downwardOffsets, downwardArcs,
+        Arrays.copyOf(this.arcTails, this.arcCount),
+        Arrays.copyOf(this.arcHeads, this.arcCount),
+        Arrays.copyOf(this.arcLengths, this.arcCount),
+        Arrays.copyOf(this.arcFirsts, this.arcCount),
+        Arrays.copyOf(this.arcSeconds, this.arcCount),
+        Arrays.copyOf(this.arcSegments, this.arcCount));
+  }
+}
@@ -0,0 +1,612 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import feature.StreetSegment;
+
+/**
+ * A customizable contraction hierarchy over a street network. Building it
+ * only looks at the layout of the streets: the intersections are ordered
+ * by nested dissection and contracted without weights, which adds every
+ * edge any weights could need. Every edge joins a lower ranked tail to a
+ * higher ranked head and can be driven both ways, so it has an upward and
+ * a downward weight. Routes of {@link ShortestPathAlgorithm} drive a
+ * segment from its head to its tail, so a segment weighs on the upward
+ * weight of its edge when its head has the lower rank. Those weights come
+ * from customizing the hierarchy with the segment weights, which runs
+ * level by level in parallel and can be repeated for only the segments
+ * that changed.
+ *
+ * Customizing builds a new metric next to the old one and swaps it in
+ * when done, so queries running meanwhile keep using a consistent metric.
+ * @author Jerome Donfack
+ *
+ */
+public class CustomizableContractionHierarchy
+{
+  private static final int NONE = -1;
+
+  private StreetNetwork net;
+  private int[] ranks;
+  private int[] order;
+  private int[] upwardOffsets;
+  private int[] edgeHeads;
+  private int[] edgeTails;
+  private int[] downwardOffsets;
+  private int[] downwardEdges;
+  private int[] levelOffsets;
+  private int[] levelNodes;
+  private int[] segmentEdges;
+  private int[] edgeSegmentOffsets;
+  private int[] edgeSegments;
+  private double[] weights;
+  private volatile Metric metric;
+
+  /**
+   * Creates a new CustomizableContractionHierarchy and customizes it with
+   * the segment lengths.
+   * @param net - Frozen network of nodes.
+   * @param order - The intersection IDs, from the first to contract to the
+   * last.
+   * @param offsets - First neighbor of every intersection.
+   * @param neighbors - Neighbors of every intersection, in both directions.
+   */
+  CustomizableContractionHierarchy(final StreetNetwork net, final int[] order,
+      final int[] offsets, final int[] neighbors)
+  {
+    int size = net.size();
+    this.net = net;
+    this.order = order;
+    this.ranks = new int[size];
+    for(int rank=0; rank<size; rank++) this.ranks[order[rank]] = rank;
+
+    contract(offsets, neighbors);
+    computeLevels();
+    mapSegments(net);
+
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    this.weights = new double[net.getSegmentCount()];
+    for(int segment=0; segment<this.weights.length; segment++)
+    {
+      this.weights[segment] = arcs.getLength(segment);
+    }
+    this.metric = customize(null, null);
+  }
+
+  /**
+   * Orders and contracts a street network.
+   * @param net - Frozen network of nodes.
+   * @return - The hierarchy, customized with the segment lengths.
+   */
+  public static CustomizableContractionHierarchy create(final StreetNetwork net)
+  {
+    int[][] graph = NestedDissectionOrder.undirected(net);
+    int[] order = new NestedDissectionOrder(net, graph[0], graph[1]).compute();
+    return new CustomizableContractionHierarchy(net, order, graph[0], graph[1]);
+  }
+
+  /**
+   * Gets the amount of intersections.
+   * @return - Amount of intersections.
+   */
+  public int size()
+  {
+    return this.ranks.length;
+  }
+
+  /**
+   * Gets the amount of edges, including the ones added by contraction.
+   * @return - Amount of edges.
+   */
+  public int getEdgeCount()
+  {
+    return this.edgeHeads.length;
+  }
+
+  /**
+   * Gets the amount of levels customization runs through one after the
+   * other.
+   * @return - Amount of levels.
+   */
+  public int getLevelCount()
+  {
+    return this.levelOffsets.length - 1;
+  }
+
+  /**
+   * Gets the rank of an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Position of the intersection in the contraction order.
+   */
+  public int getRank(final int intersectionID)
+  {
+    return this.ranks[intersectionID];
+  }
+
+  /**
+   * Gets the intersection with a rank.
+   * @param rank - Position in the contraction order.
+   * @return - ID of the intersection.
+   */
+  public int getIntersection(final int rank)
+  {
+    return this.order[rank];
+  }
+
+  /**
+   * Gets the first upward edge of a rank.
+   * @param rank - Rank of the tail.
+   * @return - Index of the first edge.
+   */
+  public int getFirstUpwardEdge(final int rank)
+  {
+    return this.upwardOffsets[rank];
+  }
+
+  /**
+   * Gets one past the last upward edge of a rank.
+   * @param rank - Rank of the tail.
+   * @return - Index one past the last edge.
+   */
+  public int getEndUpwardEdge(final int rank)
+  {
+    return this.upwardOffsets[rank + 1];
+  }
+
+  /**
+   * Gets the lower ranked end of an edge.
+   * @param edge - Index of the edge.
+   * @return - Rank of the tail.
+   */
+  public int getTail(final int edge)
+  {
+    return this.edgeTails[edge];
+  }
+
+  /**
+   * Gets the higher ranked end of an edge.
+   * @param edge - Index of the edge.
+   * @return - Rank of the head.
+   */
+  public int getHead(final int edge)
+  {
+    return this.edgeHeads[edge];
+  }
+
+  /**
+   * Gets the weight of a segment used by the current metric.
+   * @param segment - Index of the segment in the frozen network.
+   * @return - Weight of the segment.
+   */
+  public synchronized double getWeight(final int segment)
+  {
+    return this.weights[segment];
+  }
+
+  /**
+   * Gets the current metric. Keep the returned metric for a whole query,
+   * a later customization replaces it rather than changing it.
+   * @return - The current metric.
+   */
+  public Metric getMetric()
+  {
+    return this.metric;
+  }
+
+  /**
+   * Changes the weight of one segment and customizes the hierarchy.
+   * @param segment - Segment to change.
+   * @param weight - New weight, or infinity to close the segment.
+   */
+  public void updateWeight(final StreetSegment segment, final double weight)
+  {
+    updateWeights(new int[] {getSegmentIndex(segment)}, new double[] {weight});
+  }
+
+  /**
+   * Changes the weights of some segments and customizes the hierarchy.
+   * Only the edges whose weights can change are recomputed.
+   * @param segments - Segments to change.
+   * @param newWeights - New weight of every segment, in the same order.
+   */
+  public void updateWeights(final List<StreetSegment> segments, final double[] newWeights)
+  {
+    int[] indexes = new int[segments.size()];
+    for(int i=0; i<indexes.length; i++) indexes[i] = getSegmentIndex(segments.get(i));
+    updateWeights(indexes, newWeights);
+  }
+
+  /**
+   * Changes the weights of some segments and customizes the hierarchy.
+   * Only the edges whose weights can change are recomputed.
+   * @param segments - Indexes of the segments in the frozen network.
+   * @param newWeights - New weight of every segment, in the same order.
+   */
+  public synchronized void updateWeights(final int[] segments, final double[] newWeights)
+  {
+    for(int i=0; i<segments.length; i++) this.weights[segments[i]] = newWeights[i];
+    this.metric = customize(this.metric, segments);
+  }
+
+  private int getSegmentIndex(final StreetSegment segment)
+  {
+    return this.net.getSegmentIndex(segment.getID());
+  }
+
+  /**
+   * Contracts the ranks in order without weights: the higher neighbors of
+   * a rank all become neighbors of the lowest one among them. What is
+   * left are the upward edges of every rank, sorted by head.
+   */
+  private void contract(final int[] offsets, final int[] neighbors)
+  {
+    int size = this.ranks.length;
+    int[][] higher = new int[size][];
+    int[] counts = new int[size];
+    for(int rank=0; rank<size; rank++)
+    {
+      int node = this.order[rank];
+      higher[rank] = new int[Math.max(4, offsets[node + 1] - offsets[node])];
+      for(int i = offsets[node]; i < offsets[node + 1]; i++)
+      {
+        int neighbor = this.ranks[neighbors[i]];
+        if(neighbor > rank) higher[rank][counts[rank]++] = neighbor;
+      }
+    }
+
+    int edgeCount = 0;
+    for(int rank=0; rank<size; rank++)
+    {
+      int[] list = higher[rank];
+      Arrays.sort(list, 0, counts[rank]);
+      int count = 0;
+      for(int i=0; i<counts[rank]; i++)
+      {
+        if(count == 0 || list[i] != list[count - 1]) list[count++] = list[i];
+      }
+      counts[rank] = count;
+      edgeCount += count;
+      if(count == 0) continue;
+
+      int lowest = list[0];
+      for(int i=1; i<count; i++)
+      {
+        if(counts[lowest] == higher[lowest].length)
+        {
+          higher[lowest] = Arrays.copyOf(higher[lowest], higher[lowest].length * 2);
+        }
+        higher[lowest][counts[lowest]++] = list[i];
+      }
+    }
+
+    this.upwardOffsets = new int[size + 1];
+    this.edgeHeads = new int[edgeCount];
+    this.edgeTails = new int[edgeCount];
+    int[] downwardCounts = new int[size + 1];
+    int edge = 0;
+    for(int rank=0; rank<size; rank++)
+    {
+      this.upwardOffsets[rank] = edge;
+      for(int i=0; i<counts[rank]; i++)
+      {
+        this.edgeTails[edge] = rank;
+        this.edgeHeads[edge++] = higher[rank][i];
+        downwardCounts[higher[rank][i] + 1]++;
+      }
+      higher[rank] = null;
+    }
+    this.upwardOffsets[size] = edge;
+
+    // Filling in edge order keeps every downward list sorted by tail, so
+    // the lower triangles of an edge come from merging two lists
+    for(int rank=0; rank<size; rank++) downwardCounts[rank + 1] += downwardCounts[rank];
+    this.downwardOffsets = Arrays.copyOf(downwardCounts, size + 1);
+    this.downwardEdges = new int[edgeCount];
+    for(edge=0; edge<edgeCount; edge++)
+    {
+      this.downwardEdges[downwardCounts[this.edgeHeads[edge]]++] = edge;
+    }
+  }
+
+  /**
+   * Gives every rank a level one above its highest lower neighbor. The
+   * edges leaving ranks of the same level share no lower triangles with
+   * each other, so a level is customized in parallel.
+   */
+  private void computeLevels()
+  {
+    int size = this.ranks.length;
+    int[] levels = new int[size];
+    int levelCount = size == 0 ? 0 : 1;
+    for(int rank=0; rank<size; rank++)
+    {
+      for(int edge = this.upwardOffsets[rank]; edge < this.upwardOffsets[rank + 1]; edge++)
+      {
+        int head = this.edgeHeads[edge];
+        levels[head] = Math.max(levels[head], levels[rank] + 1);
+        levelCount = Math.max(levelCount, levels[head] + 1);
+      }
+    }
+
+    this.levelOffsets = new int[levelCount + 1];
+    for(int rank=0; rank<size; rank++) this.levelOffsets[levels[rank] + 1]++;
+    for(int level=0; level<levelCount; level++)
+    {
+      this.levelOffsets[level + 1] += this.levelOffsets[level];
+    }
+    int[] fill = Arrays.copyOf(this.levelOffsets, levelCount);
+    this.levelNodes = new int[size];
+    for(int rank=0; rank<size; rank++) this.levelNodes[fill[levels[rank]]++] = rank;
+  }
+
+  /**
+   * Finds the edge of every segment, with the lowest bit set when the
+   * segment runs down it, and the segments of every edge.
+   */
+  private void mapSegments(final StreetNetwork net)
+  {
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    this.segmentEdges = new int[net.getSegmentCount()];
+    this.edgeSegmentOffsets = new int[getEdgeCount() + 1];
+    for(int node=0; node<net.size(); node++)
+    {
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int start = this.ranks[arcs.getTarget(arc)];
+        int end = this.ranks[node];
+        if(start == end)
+        {
+          this.segmentEdges[arc] = NONE;
+          continue;
+        }
+        int edge = findEdge(Math.min(start, end), Math.max(start, end));
+        this.segmentEdges[arc] = edge << 1 | (start < end ? 0 : 1);
+        this.edgeSegmentOffsets[edge + 1]++;
+      }
+    }
+
+    for(int edge=0; edge<getEdgeCount(); edge++)
+    {
+      this.edgeSegmentOffsets[edge + 1] += this.edgeSegmentOffsets[edge];
+    }
+    int[] fill = Arrays.copyOf(this.edgeSegmentOffsets, getEdgeCount());
+    this.edgeSegments = new int[this.edgeSegmentOffsets[getEdgeCount()]];
+    for(int segment=0; segment<this.segmentEdges.length; segment++)
+    {
+      if(this.segmentEdges[segment] == NONE) continue;
+      this.edgeSegments[fill[this.segmentEdges[segment] >> 1]++] = segment;
+    }
+  }
+
+  private int findEdge(final int tail, final int head)
+  {
+    int edge = Arrays.binarySearch(this.edgeHeads, this.upwardOffsets[tail],
+        this.upwardOffsets[tail + 1], head);
+    return edge < 0 ? NONE : edge;
+  }
+
+  /**
+   * Builds a new metric from the segment weights. Levels run from the
+   * bottom up, and within a level the dirty edges are recomputed in
+   * parallel. An edge that changed makes dirty every edge it forms a lower
+   * triangle for, all of which sit on higher levels.
+   * @param old - Metric to start from, or null to compute every edge.
+   * @param segments - Segments whose weights changed, ignored without an
+   * old metric.
+   * @return - The new metric.
+   */
+  private Metric customize(final Metric old, final int[] segments)
+  {
+    int edgeCount = getEdgeCount();
+    Metric next = old == null ? new Metric(edgeCount) : new Metric(old);
+    boolean[] dirty = new boolean[edgeCount];
+    if(old == null) Arrays.fill(dirty, true);
+    else
+    {
+      for(int segment : segments)
+      {
+        if(this.segmentEdges[segment] != NONE) dirty[this.segmentEdges[segment] >> 1] = true;
+      }
+    }
+
+    boolean[] changed = new boolean[edgeCount];
+    for(int level=0; level<getLevelCount(); level++)
+    {
+      int start = this.levelOffsets[level];
+      int end = this.levelOffsets[level + 1];
+      IntStream.range(start, end).parallel().forEach(i ->
+      {
+        int rank = this.levelNodes[i];
+        for(int edge = this.upwardOffsets[rank]; edge < this.upwardOffsets[rank + 1]; edge++)
+        {
+          if(dirty[edge]) changed[edge] = recompute(next, edge);
+        }
+      });
+      if(old == null) continue;
+
+      for(int i=start; i<end; i++)
+      {
+        int rank = this.levelNodes[i];
+        for(int edge = this.upwardOffsets[rank]; edge < this.upwardOffsets[rank + 1]; edge++)
+        {
+          if(!changed[edge]) continue;
+
+          for(int other = this.upwardOffsets[rank]; other < this.upwardOffsets[rank + 1]; other++)
+          {
+            if(other == edge) continue;
+
+            int low = Math.min(this.edgeHeads[edge], this.edgeHeads[other]);
+            int high = Math.max(this.edgeHeads[edge], this.edgeHeads[other]);
+            dirty[findEdge(low, high)] = true;
+          }
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Recomputes both weights of an edge from its own segments and its lower
+   * triangles, whose edges all sit on lower levels.
+   * @return - Whether a weight changed.
+   */
+  private boolean recompute(final Metric next, final int edge)
+  {
+    double up = Double.POSITIVE_INFINITY;
+    double down = Double.POSITIVE_INFINITY;
+    int upFirst = NONE, upSecond = NONE, upSegment = NONE;
+    int downFirst = NONE, downSecond = NONE, downSegment = NONE;
+    for(int i = this.edgeSegmentOffsets[edge]; i < this.edgeSegmentOffsets[edge + 1]; i++)
+    {
+      int segment = this.edgeSegments[i];
+      double weight = this.weights[segment];
+      if((this.segmentEdges[segment] & 1) == 0 && weight < up)
+      {
+        up = weight;
+        upSegment = segment;
+      }
+      else if((this.segmentEdges[segment] & 1) == 1 && weight < down)
+      {
+        down = weight;
+        downSegment = segment;
+      }
+    }
+
+    // Every lower triangle is a rank below both ends with an edge to each
+    int tail = this.edgeTails[edge];
+    int head = this.edgeHeads[edge];
+    int i = this.downwardOffsets[tail];
+    int j = this.downwardOffsets[head];
+    while(i < this.downwardOffsets[tail + 1] && j < this.downwardOffsets[head + 1])
+    {
+      int toTail = this.downwardEdges[i];
+      int toHead = this.downwardEdges[j];
+      if(this.edgeTails[toTail] < this.edgeTails[toHead]) i++;
+      else if(this.edgeTails[toTail] > this.edgeTails[toHead]) j++;
+      else
+      {
+        double upThrough = next.downWeights[toTail] + next.upWeights[toHead];
+        if(upThrough < up)
+        {
+          up = upThrough;
+          upFirst = toTail;
+          upSecond = toHead;
+        }
+        double downThrough = next.downWeights[toHead] + next.upWeights[toTail];
+        if(downThrough < down)
+        {
+          down = downThrough;
+          downFirst = toHead;
+          downSecond = toTail;
+        }
+        i++;
+        j++;
+      }
+    }
+
+    boolean changed = up != next.upWeights[edge] || down != next.downWeights[edge];
+    next.upWeights[edge] = up;
+    next.upFirsts[edge] = upFirst;
+    next.upSeconds[edge] = upSecond;
+    next.upSegments[edge] = upSegment;
+    next.downWeights[edge] = down;
+    next.downFirsts[edge] = downFirst;
+    next.downSeconds[edge] = downSecond;
+    next.downSegments[edge] = downSegment;
+    return changed;
+  }
+
+  /**
+   * The weights of every edge in both directions, with what each weight
+   * stands for: a street segment, or the two edges of a lower triangle.
+   */
+  public static class Metric
+  {
+    private double[] upWeights;
+    private double[] downWeights;
+    private int[] upFirsts;
+    private int[] upSeconds;
+    private int[] upSegments;
+    private int[] downFirsts;
+    private int[] downSeconds;
+    private int[] downSegments;
+
+    private Metric(final int edgeCount)
+    {
+      this.upWeights = new double[edgeCount];
+      this.downWeights = new double[edgeCount];
+      Arrays.fill(this.upWeights, Double.POSITIVE_INFINITY);
+      Arrays.fill(this.downWeights, Double.POSITIVE_INFINITY);
+      this.upFirsts = new int[edgeCount];
+      this.upSeconds = new int[edgeCount];
+      this.upSegments = new int[edgeCount];
+      this.downFirsts = new int[edgeCount];
+      this.downSeconds = new int[edgeCount];
+      this.downSegments = new int[edgeCount];
+    }
+
+    private Metric(final Metric other)
+    {
+      this.upWeights = other.upWeights.clone();
+      this.downWeights = other.downWeights.clone();
+      this.upFirsts = other.upFirsts.clone();
+      this.upSeconds = other.upSeconds.clone();
+      this.upSegments = other.upSegments.clone();
+      this.downFirsts = other.downFirsts.clone();
+      this.downSeconds = other.downSeconds.clone();
+      this.downSegments = other.downSegments.clone();
+    }
+
+    /**
+     * Gets the weight of driving an edge from its tail to its head.
+     * @param edge - Index of the edge.
+     * @return - Weight of the edge, infinity if it cannot be driven.
+     */
+    public double getUpWeight(final int edge)
+    {
+      return this.upWeights[edge];
+    }
+
+    /**
+     * Gets the weight of driving an edge from its head to its tail.
+     * @param edge - Index of the edge.
+     * @return - Weight of the edge, infinity if it cannot be driven.
+     */
+    public double getDownWeight(final int edge)
+    {
+      return this.downWeights[edge];
+    }
+
+    /**
+     * Adds the street segment indexes an edge stands for, in driving order.
+     * @param edge - Index of the edge.
+     * @param up - Whether the edge is driven from its tail to its head.
+     * @param segments - List to add the segment indexes to.
+     */
+    public void unpack(final int edge, final boolean up, final List<Integer> segments)
+    {
+      int[] stack = new int[16];
+      int top = 0;
+      stack[top++] = edge << 1 | (up ? 0 : 1);
+      while(top > 0)
+      {
+        int current = stack[--top] >> 1;
+        boolean upward = (stack[top] & 1) == 0;
+        int first = upward ? this.upFirsts[current] : this.downFirsts[current];
+        if(first == NONE)
+        {
+          segments.add(upward ? this.upSegments[current] : this.downSegments[current]);
+          continue;
+        }
+        // The first edge of a triangle is always driven down to the
+        // lower rank and the second one back up
+        int second = upward ? this.upSeconds[current] : this.downSeconds[current];
+        if(top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[top++] = second << 1;
+        stack[top++] = first << 1 | 1;
+      }
+    }
+  }
+}
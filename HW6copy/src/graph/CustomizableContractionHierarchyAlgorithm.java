@@ -0,0 +1,195 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Finds the shortest path in a customizable contraction hierarchy with two
+ * searches that only climb in rank, one from the origin driving edges up
+ * and one from the destination driving edges down, then unpacks the edges
+ * on the route. Each query reads a single metric, so the weights can be
+ * customized while routes are being found.
+ * @author Jerome Donfack
+ *
+ */
+public class CustomizableContractionHierarchyAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private static final int NONE = -1;
+
+  private CustomizableContractionHierarchy hierarchy;
+  private double[] forwardValues;
+  private double[] backwardValues;
+  private int[] forwardPredecessors;
+  private int[] backwardPredecessors;
+  private IndexedHeap forwardHeap;
+  private IndexedHeap backwardHeap;
+  private int[] touched;
+  private int touchedCount;
+
+  /**
+   * Create new CustomizableContractionHierarchyAlgorithm.
+   * @param hierarchy - Customized network to search.
+   */
+  public CustomizableContractionHierarchyAlgorithm(
+      final CustomizableContractionHierarchy hierarchy)
+  {
+    int size = hierarchy.size();
+    this.hierarchy = hierarchy;
+    this.forwardValues = new double[size];
+    this.backwardValues = new double[size];
+    Arrays.fill(this.forwardValues, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.backwardValues, Double.POSITIVE_INFINITY);
+    this.forwardPredecessors = new int[size];
+    this.backwardPredecessors = new int[size];
+    this.forwardHeap = new IndexedHeap(4, size);
+    this.backwardHeap = new IndexedHeap(4, size);
+    this.touched = new int[size];
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(!net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CustomizableContractionHierarchy.Metric metric = this.hierarchy.getMetric();
+    int source = this.hierarchy.getRank(origin);
+    int target = this.hierarchy.getRank(destination);
+    reach(source);
+    this.forwardValues[source] = 0;
+    this.forwardPredecessors[source] = NONE;
+    this.forwardHeap.insertOrDecrease(source, 0);
+    reach(target);
+    this.backwardValues[target] = 0;
+    this.backwardPredecessors[target] = NONE;
+    this.backwardHeap.insertOrDecrease(target, 0);
+
+    // Only meetings shorter than this are accepted, which prunes both
+    // searches at the distance bound
+    double shortest = Math.nextUp(getDistanceBound());
+    int meeting = NONE;
+    while(true)
+    {
+      if(this.forwardHeap.getMinKey() >= shortest) this.forwardHeap.clear();
+      if(this.backwardHeap.getMinKey() >= shortest) this.backwardHeap.clear();
+      if(this.forwardHeap.isEmpty() && this.backwardHeap.isEmpty()) break;
+
+      boolean forward = this.forwardHeap.getMinKey() <= this.backwardHeap.getMinKey();
+      int rank = forward ? this.forwardHeap.removeMin() : this.backwardHeap.removeMin();
+      double through = this.forwardValues[rank] + this.backwardValues[rank];
+      if(through < shortest)
+      {
+        shortest = through;
+        meeting = rank;
+      }
+
+      if(isStalled(metric, rank, forward)) continue;
+
+      double[] values = forward ? this.forwardValues : this.backwardValues;
+      for(int edge = hierarchy.getFirstUpwardEdge(rank);
+          edge < hierarchy.getEndUpwardEdge(rank); edge++)
+      {
+        double weight = forward ? metric.getUpWeight(edge) : metric.getDownWeight(edge);
+        if(Double.isInfinite(weight)) continue;
+
+        int head = hierarchy.getHead(edge);
+        double possibleValue = values[rank] + weight;
+        reach(head);
+        if(possibleValue < values[head])
+        {
+          values[head] = possibleValue;
+          if(forward)
+          {
+            this.forwardPredecessors[head] = edge;
+            this.forwardHeap.insertOrDecrease(head, possibleValue);
+          }
+          else
+          {
+            this.backwardPredecessors[head] = edge;
+            this.backwardHeap.insertOrDecrease(head, possibleValue);
+          }
+        }
+      }
+    }
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    if(meeting != NONE)
+    {
+      List<Integer> upEdges = new ArrayList<>();
+      for(int rank = meeting; this.forwardPredecessors[rank] != NONE; )
+      {
+        int edge = this.forwardPredecessors[rank];
+        upEdges.add(0, edge);
+        rank = hierarchy.getTail(edge);
+      }
+      List<Integer> segments = new ArrayList<>();
+      for(int edge : upEdges) metric.unpack(edge, true, segments);
+      for(int rank = meeting; this.backwardPredecessors[rank] != NONE; )
+      {
+        int edge = this.backwardPredecessors[rank];
+        metric.unpack(edge, false, segments);
+        rank = hierarchy.getTail(edge);
+      }
+      for(int segment : segments)
+      {
+        StreetSegment streetSegment = net.getSegment(segment);
+        path.put(streetSegment.getID(), streetSegment);
+      }
+    }
+    reset();
+    return path;
+  }
+
+  /**
+   * A rank is stalled when an edge from a higher rank that the same search
+   * already reached gives it a smaller value. Its value is then not a
+   * shortest distance, so relaxing its edges is wasted work.
+   */
+  private boolean isStalled(final CustomizableContractionHierarchy.Metric metric,
+      final int rank, final boolean forward)
+  {
+    double[] values = forward ? this.forwardValues : this.backwardValues;
+    for(int edge = hierarchy.getFirstUpwardEdge(rank);
+        edge < hierarchy.getEndUpwardEdge(rank); edge++)
+    {
+      double weight = forward ? metric.getDownWeight(edge) : metric.getUpWeight(edge);
+      if(values[hierarchy.getHead(edge)] + weight < values[rank]) return true;
+    }
+    return false;
+  }
+
+  private void reach(final int rank)
+  {
+    if(Double.isInfinite(this.forwardValues[rank])
+        && Double.isInfinite(this.backwardValues[rank]))
+    {
+      this.touched[this.touchedCount++] = rank;
+    }
+  }
+
+  private void reset()
+  {
+    for(int i=0; i<this.touchedCount; i++)
+    {
+      this.forwardValues[this.touched[i]] = Double.POSITIVE_INFINITY;
+      this.backwardValues[this.touched[i]] = Double.POSITIVE_INFINITY;
+    }
+    this.touchedCount = 0;
+    this.forwardHeap.clear();
+    this.backwardHeap.clear();
+  }
+}
@@ -0,0 +1,324 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+import feature.StreetSegment;
+
+/**
+ * Uses parallel delta-stepping to find the shortest paths from every node
+ * to the destination. Labels are kept in buckets delta wide; the light
+ * segments (no longer than delta) of a bucket are relaxed in parallel
+ * until the bucket stays empty, then its heavy segments are relaxed once.
+ * Values are lowered with compare-and-set, and the predecessors are picked
+ * afterwards from the final values so the tree does not depend on timing.
+ * @author Jerome Donfack
+ *
+ */
+public class DeltaSteppingAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private static final int NONE = -1;
+  private static final int CHUNK_SIZE = 256;
+  private static final long UNREACHED = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+
+  private double delta;
+  private ForkJoinPool pool;
+  private AtomicLongArray values;
+  private int[] seen;
+  private int stamp;
+
+  /**
+   * Create new DeltaSteppingAlgorithm with the average segment length as
+   * delta, running on the common pool.
+   */
+  public DeltaSteppingAlgorithm()
+  {
+    this(0, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create new DeltaSteppingAlgorithm.
+   * @param delta - Width of a bucket, or 0 to use the average segment length.
+   * @param pool - Pool the relaxations run on.
+   */
+  public DeltaSteppingAlgorithm(final double delta, final ForkJoinPool pool)
+  {
+    this.delta = delta;
+    this.pool = pool;
+    this.values = new AtomicLongArray(0);
+    this.seen = new int[0];
+  }
+
+  /**
+   * Finds path from origin node to desitnation node.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(allPaths == null && !net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    double width = this.delta > 0 ? this.delta : averageLength(arcs);
+    reset(net.size());
+
+    List<IntList> buckets = new ArrayList<>();
+    this.values.set(destination, Double.doubleToLongBits(0));
+    add(buckets, 0, destination);
+
+    double radius = Double.POSITIVE_INFINITY;
+    for(int i=0; i<buckets.size(); i++)
+    {
+      if(buckets.get(i) == null) continue;
+      if(i * width > getDistanceBound())
+      {
+        radius = getDistanceBound();
+        break;
+      }
+
+      IntList settled = new IntList();
+      IntList bucket = buckets.get(i);
+      buckets.set(i, null);
+      while(bucket != null)
+      {
+        IntList frontier = select(bucket, i, width, settled);
+        IntList[] updates = relax(arcs, frontier, width, true);
+        bucket = null;
+        for(IntList update : updates)
+        {
+          for(int j=0; j<update.size; j++)
+          {
+            int node = update.items[j];
+            int b = bucketOf(node, width);
+            if(b == i)
+            {
+              if(bucket == null) bucket = new IntList();
+              bucket.add(node);
+            }
+            else add(buckets, b, node);
+          }
+        }
+      }
+
+      for(IntList update : relax(arcs, settled, width, false))
+      {
+        for(int j=0; j<update.size; j++)
+        {
+          add(buckets, bucketOf(update.items[j], width), update.items[j]);
+        }
+      }
+
+      if(isEarlyTermination() && getValue(origin) < (i + 1) * width)
+      {
+        radius = Math.nextDown((i + 1) * width);
+        break;
+      }
+    }
+
+    double[] distances = new double[net.size()];
+    for(int node=0; node<distances.length; node++)
+    {
+      double value = getValue(node);
+      distances[node] = value <= radius ? value : Double.POSITIVE_INFINITY;
+    }
+    int[] predecessors = findPredecessors(net, distances, destination);
+    if(allPaths != null) allPaths.update(net, distances, predecessors);
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    for(int node = origin; predecessors[node] != NONE; )
+    {
+      StreetSegment segment = net.getSegment(predecessors[node]);
+      path.put(segment.getID(), segment);
+      node = segment.getTail();
+    }
+    return path;
+  }
+
+  private void reset(final int networkSize)
+  {
+    if(this.values.length() != networkSize)
+    {
+      this.values = new AtomicLongArray(networkSize);
+      this.seen = new int[networkSize];
+      this.stamp = 0;
+    }
+    for(int node=0; node<networkSize; node++) this.values.set(node, UNREACHED);
+  }
+
+  private double getValue(final int node)
+  {
+    return Double.longBitsToDouble(this.values.get(node));
+  }
+
+  private int bucketOf(final int node, final double width)
+  {
+    return (int) (getValue(node) / width);
+  }
+
+  private static void add(final List<IntList> buckets, final int bucket, final int node)
+  {
+    while(buckets.size() <= bucket) buckets.add(null);
+    if(buckets.get(bucket) == null) buckets.set(bucket, new IntList());
+    buckets.get(bucket).add(node);
+  }
+
+  /**
+   * Drops the entries that are stale or repeated, and remembers the rest
+   * as settled by the bucket.
+   */
+  private IntList select(final IntList bucket, final int i, final double width,
+      final IntList settled)
+  {
+    this.stamp++;
+    IntList frontier = new IntList();
+    for(int j=0; j<bucket.size; j++)
+    {
+      int node = bucket.items[j];
+      if(this.seen[node] == this.stamp || bucketOf(node, width) != i) continue;
+
+      this.seen[node] = this.stamp;
+      frontier.add(node);
+      settled.add(node);
+    }
+    return frontier;
+  }
+
+  /**
+   * Relaxes the light or heavy segments of some nodes in parallel chunks.
+   * @return - The lowered nodes of every chunk, in chunk order.
+   */
+  private IntList[] relax(final CompressedAdjacency arcs, final IntList nodes,
+      final double width, final boolean light)
+  {
+    int chunks = (nodes.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    if(chunks <= 1)
+    {
+      return new IntList[] {relax(arcs, nodes, 0, nodes.size, width, light)};
+    }
+    return this.pool.submit(() -> IntStream.range(0, chunks).parallel()
+        .mapToObj(c -> relax(arcs, nodes, c * CHUNK_SIZE,
+            Math.min(nodes.size, (c + 1) * CHUNK_SIZE), width, light))
+        .toArray(IntList[]::new)).join();
+  }
+
+  private IntList relax(final CompressedAdjacency arcs, final IntList nodes,
+      final int start, final int end, final double width, final boolean light)
+  {
+    IntList lowered = new IntList();
+    for(int j=start; j<end; j++)
+    {
+      int node = nodes.items[j];
+      double value = getValue(node);
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        double length = arcs.getLength(arc);
+        if((length <= width) != light) continue;
+
+        int head = arcs.getTarget(arc);
+        if(lower(head, value + length)) lowered.add(head);
+      }
+    }
+    return lowered;
+  }
+
+  private boolean lower(final int node, final double value)
+  {
+    long bits = Double.doubleToLongBits(value);
+    while(true)
+    {
+      long current = this.values.get(node);
+      if(Double.longBitsToDouble(current) <= value) return false;
+      if(this.values.compareAndSet(node, current, bits)) return true;
+    }
+  }
+
+  /**
+   * Picks the first segment into every node that gives its final value
+   * from a smaller one. Nodes only reached by zero length segments from
+   * nodes with the same value are linked up afterwards, breadth first, so
+   * the predecessors never form a cycle.
+   */
+  private static int[] findPredecessors(final StreetNetwork net,
+      final double[] distances, final int destination)
+  {
+    CompressedAdjacency inbound = net.getInboundArcs();
+    int[] predecessors = new int[distances.length];
+    IntStream.range(0, distances.length).parallel().forEach(node ->
+    {
+      predecessors[node] = NONE;
+      if(node == destination || Double.isInfinite(distances[node])) return;
+
+      for(int arc = inbound.getFirstArc(node); arc < inbound.getEndArc(node); arc++)
+      {
+        double tailValue = distances[inbound.getTarget(arc)];
+        if(tailValue < distances[node]
+            && tailValue + inbound.getLength(arc) == distances[node])
+        {
+          predecessors[node] = inbound.getSegment(arc);
+          return;
+        }
+      }
+    });
+
+    IntList linked = new IntList();
+    boolean missing = false;
+    for(int node=0; node<distances.length; node++)
+    {
+      if(node == destination || predecessors[node] != NONE) linked.add(node);
+      else if(!Double.isInfinite(distances[node])) missing = true;
+    }
+    if(!missing) return predecessors;
+
+    CompressedAdjacency outbound = net.getOutboundArcs();
+    boolean[] done = new boolean[distances.length];
+    for(int j=0; j<linked.size; j++) done[linked.items[j]] = true;
+    for(int j=0; j<linked.size; j++)
+    {
+      int node = linked.items[j];
+      for(int arc = outbound.getFirstArc(node); arc < outbound.getEndArc(node); arc++)
+      {
+        int head = outbound.getTarget(arc);
+        if(!done[head] && distances[node] + outbound.getLength(arc) == distances[head])
+        {
+          done[head] = true;
+          predecessors[head] = outbound.getSegment(arc);
+          linked.add(head);
+        }
+      }
+    }
+    return predecessors;
+  }
+
+  private static double averageLength(final CompressedAdjacency arcs)
+  {
+    double total = 0;
+    for(int arc=0; arc<arcs.size(); arc++) total += arcs.getLength(arc);
+    return arcs.size() == 0 || total == 0 ? 1 : total / arcs.size();
+  }
+
+  /**
+   * A growable list of ints.
+   */
+  private static class IntList
+  {
+    private int[] items = new int[16];
+    private int size;
+
+    private void add(final int item)
+    {
+      if(this.size == this.items.length) this.items = Arrays.copyOf(this.items, this.size * 2);
+      this.items[this.size++] = item;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * The shortest paths from every intersection to one destination, kept as
+ * the distance of every intersection and the first segment of its path.
+ * A path is read off by following the first segments, so it costs only
+ * its own length.
+ * @author Jerome Donfack
+ *
+ */
+class DestinationTree
+{
+  private static final int NONE = -1;
+
+  private StreetNetwork net;
+  private int destination;
+  private double[] distances;
+  private int[] successors;
+
+  /**
+   * Creates a new DestinationTree with nothing reached.
+   * @param net - Frozen network of nodes.
+   */
+  DestinationTree(final StreetNetwork net)
+  {
+    this.net = net;
+    this.destination = NONE;
+    this.distances = new double[net.size()];
+    this.successors = new int[net.size()];
+  }
+
+  /**
+   * Searches from a destination over the outbound segments like
+   * LabelSettingAlgorithm, replacing the tree. Routes drive segments from
+   * head to tail, so the first segment of the path from a head is the
+   * segment it was reached over.
+   * @param target - Node to travel to.
+   * @param heap - Empty heap sized to the network.
+   */
+  void build(final int target, final IndexedHeap heap)
+  {
+    CompressedAdjacency outbound = this.net.getOutboundArcs();
+    this.destination = target;
+    Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.successors, NONE);
+    this.distances[target] = 0;
+    heap.insertOrDecrease(target, 0);
+    while(!heap.isEmpty())
+    {
+      int node = heap.removeMin();
+      for(int arc = outbound.getFirstArc(node); arc < outbound.getEndArc(node); arc++)
+      {
+        int head = outbound.getTarget(arc);
+        double possibleValue = this.distances[node] + outbound.getLength(arc);
+        if(possibleValue < this.distances[head])
+        {
+          this.distances[head] = possibleValue;
+          this.successors[head] = outbound.getSegment(arc);
+          heap.insertOrDecrease(head, possibleValue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the destination of the tree.
+   * @return - ID of the destination, or -1 before the first build.
+   */
+  int getDestination()
+  {
+    return this.destination;
+  }
+
+  /**
+   * Gets the distance from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Distance, or infinity if there is no path.
+   */
+  double getDistance(final int intersectionID)
+  {
+    return this.distances[intersectionID];
+  }
+
+  /**
+   * Gets the first segment of the path from an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Index of the segment, or -1 at the destination or when there
+   * is no path.
+   */
+  int getSuccessor(final int intersectionID)
+  {
+    return this.successors[intersectionID];
+  }
+
+  /**
+   * Adds the path from an intersection to the destination to a map.
+   * @param intersectionID - ID of the intersection.
+   * @param path - Map to add the segments to, in driving order.
+   */
+  void addPath(final int intersectionID, final Map<String, StreetSegment> path)
+  {
+    for(int node = intersectionID; this.successors[node] != NONE; )
+    {
+      StreetSegment segment = this.net.getSegment(this.successors[node]);
+      path.put(segment.getID(), segment);
+      node = segment.getTail();
+    }
+  }
+
+  /**
+   * Builds the path from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Path from the intersection, in driving order.
+   */
+  Map<String, StreetSegment> getPath(final int intersectionID)
+  {
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    addPath(intersectionID, path);
+    return path;
+  }
+}
@@ -0,0 +1,17 @@
+package graph;
+
+/**
+ * Interface for lower bounds on the distance from an intersection to the
+ * target of a search.
+ * @author Jerome Donfack
+ *
+ */
+public interface DistanceEstimator
+{
+  /**
+   * Estimates the remaining distance without overestimating it.
+   * @param intersectionID - ID of the intersection to estimate from.
+   * @return - Lower bound on the distance to the target.
+   */
+  public abstract double estimate(final int intersectionID);
+}
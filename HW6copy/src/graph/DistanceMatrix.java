@@ -0,0 +1,198 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Shortest distances from a list of origins to a list of destinations.
+ * Each origin is searched once until every destination is settled, and
+ * the origins are searched in parallel by a routing service.
+ * @author Jerome Donfack
+ *
+ */
+public class DistanceMatrix
+{
+  private int[] origins;
+  private int[] destinations;
+  private boolean[] isDestination;
+  private int targets;
+  private double[][] distances;
+  private List<List<Map<String, StreetSegment>>> paths;
+
+  /**
+   * Creates a new DistanceMatrix with no rows filled in yet.
+   * @param net - Network of nodes.
+   * @param origins - IDs of the intersections the rows start from.
+   * @param destinations - IDs of the intersections the columns travel to.
+   * @param keepPaths - If the path of every pair should be kept.
+   */
+  DistanceMatrix(final StreetNetwork net, final int[] origins,
+      final int[] destinations, final boolean keepPaths)
+  {
+    this.origins = origins.clone();
+    this.destinations = destinations.clone();
+    this.isDestination = new boolean[net.size()];
+    for(int destination : destinations)
+    {
+      if(!this.isDestination[destination]) this.targets++;
+      this.isDestination[destination] = true;
+    }
+    this.distances = new double[origins.length][destinations.length];
+    if(keepPaths)
+    {
+      this.paths = new ArrayList<>(origins.length);
+      for(int row=0; row<origins.length; row++)
+      {
+        this.paths.add(new ArrayList<>(Collections.nCopies(destinations.length, null)));
+      }
+    }
+  }
+
+  /**
+   * Computes the distances between intersections.
+   * @param net - Network of nodes.
+   * @param origins - IDs of the intersections to start from.
+   * @param destinations - IDs of the intersections to travel to.
+   * @param keepPaths - If the path of every pair should be kept.
+   * @return - The distance matrix.
+   */
+  public static DistanceMatrix create(final StreetNetwork net, final int[] origins,
+      final int[] destinations, final boolean keepPaths)
+  {
+    return new RoutingService(net).createDistanceMatrix(origins, destinations, keepPaths);
+  }
+
+  /**
+   * Computes the distances between street segments, traveling from the
+   * head of every segment like a route request does.
+   * @param net - Network of nodes.
+   * @param origins - Segments to start from.
+   * @param destinations - Segments to travel to.
+   * @param keepPaths - If the path of every pair should be kept.
+   * @return - The distance matrix.
+   */
+  public static DistanceMatrix create(final StreetNetwork net,
+      final List<StreetSegment> origins, final List<StreetSegment> destinations,
+      final boolean keepPaths)
+  {
+    int[] originIDs = new int[origins.size()];
+    for(int i=0; i<originIDs.length; i++) originIDs[i] = origins.get(i).getHead();
+    int[] destinationIDs = new int[destinations.size()];
+    for(int i=0; i<destinationIDs.length; i++)
+    {
+      destinationIDs[i] = destinations.get(i).getHead();
+    }
+    return create(net, originIDs, destinationIDs, keepPaths);
+  }
+
+  /**
+   * Gets the intersections the rows start from.
+   * @return - IDs of the origins.
+   */
+  public int[] getOrigins()
+  {
+    return this.origins;
+  }
+
+  /**
+   * Gets the intersections the columns travel to.
+   * @return - IDs of the destinations.
+   */
+  public int[] getDestinations()
+  {
+    return this.destinations;
+  }
+
+  /**
+   * Gets the distance of every origin and destination.
+   * @return - Distances by origin row and destination column.
+   */
+  public double[][] getDistances()
+  {
+    return this.distances;
+  }
+
+  /**
+   * Gets the distance from an origin to a destination.
+   * @param row - Index of the origin.
+   * @param column - Index of the destination.
+   * @return - Distance, or infinity if there is no path.
+   */
+  public double getDistance(final int row, final int column)
+  {
+    return this.distances[row][column];
+  }
+
+  /**
+   * Gets the path from an origin to a destination.
+   * @param row - Index of the origin.
+   * @param column - Index of the destination.
+   * @return - Path from the origin, or null if paths were not kept.
+   */
+  public Map<String, StreetSegment> getPath(final int row, final int column)
+  {
+    return this.paths == null ? null : this.paths.get(row).get(column);
+  }
+
+  /**
+   * Searches from the origin of a row over the inbound segments until
+   * every destination is settled.
+   * @param net - Network of nodes.
+   * @param row - Index of the origin.
+   * @param labels - Labels to search with, owned by the calling thread.
+   */
+  void fillRow(final StreetNetwork net, final int row, 
+      final PermanentLabelManager labels)
+  {
+    CompressedAdjacency arcs = net.getInboundArcs();
+    labels.reset();
+    int remaining = this.targets;
+    Label workingNode = labels.getLabel(this.origins[row]);
+    workingNode.setValue(0);
+    while(workingNode != null)
+    {
+      int node = workingNode.getID();
+      labels.makePermanent(node);
+      if(this.isDestination[node] && --remaining == 0) break;
+
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        labels.adjustHeadValue(node, arcs.getTarget(arc), arcs.getLength(arc),
+            net.getSegment(arcs.getSegment(arc)));
+      }
+      workingNode = labels.getSmallestLabel();
+    }
+
+    for(int column=0; column<this.destinations.length; column++)
+    {
+      this.distances[row][column] = labels.getLabel(this.destinations[column]).getValue();
+      if(this.paths != null)
+      {
+        this.paths.get(row).set(column, createPath(labels, this.destinations[column]));
+      }
+    }
+  }
+
+  private static Map<String, StreetSegment> createPath(final LabelManager labels,
+      final int destination)
+  {
+    LinkedList<StreetSegment> segments = new LinkedList<>();
+    Label currentNode = labels.getLabel(destination);
+    while (currentNode.getPredecessor() != null)
+    {
+      StreetSegment segment = currentNode.getPredecessor();
+      segments.addFirst(segment);
+      currentNode = labels.getLabel(segment.getHead());
+    }
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    for(StreetSegment segment : segments) path.put(segment.getID(), segment);
+    return path;
+  }
+}
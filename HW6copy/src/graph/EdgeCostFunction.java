@@ -0,0 +1,25 @@
+package graph;
+
+/**
+ * Interface for the cost of traveling along a street segment, which may
+ * depend on when the segment is entered.
+ * @author Jerome Donfack
+ *
+ */
+public interface EdgeCostFunction
+{
+  /**
+   * Gets the cost of traveling along a segment.
+   * @param segment - Index of the segment in the frozen network.
+   * @param departureTime - Time the segment is entered.
+   * @return - Cost of the segment.
+   */
+  public abstract double getCost(final int segment, final double departureTime);
+  
+  /**
+   * Gets the smallest cost per unit of length over every segment and time,
+   * used to turn distance estimates into cost estimates.
+   * @return - Smallest cost per unit of length, or 0 if there is none.
+   */
+  public abstract double getMinimumRate();
+}
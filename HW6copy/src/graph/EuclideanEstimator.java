@@ -0,0 +1,40 @@
+package graph;
+
+/**
+ * Estimates remaining distance as the straight line distance to the target
+ * in projected coordinates.
+ * @author Jerome Donfack
+ *
+ */
+public class EuclideanEstimator implements DistanceEstimator
+{
+  private StreetNetwork net;
+  private double targetX;
+  private double targetY;
+  private double scale;
+
+  /**
+   * Creates a new EuclideanEstimator.
+   * @param net - Network of nodes.
+   * @param target - Intersection the search is heading to.
+   */
+  public EuclideanEstimator(final StreetNetwork net, final int target)
+  {
+    this.net = net;
+    this.targetX = net.getX(target);
+    this.targetY = net.getY(target);
+    this.scale = net.getLengthScale();
+  }
+
+  /**
+   * Estimates the remaining distance without overestimating it.
+   * @param intersectionID - ID of the intersection to estimate from.
+   * @return - Lower bound on the distance to the target.
+   */
+  @Override
+  public double estimate(final int intersectionID)
+  {
+    return this.scale * Math.hypot(this.net.getX(intersectionID) - this.targetX,
+        this.net.getY(intersectionID) - this.targetY);
+  }
+}
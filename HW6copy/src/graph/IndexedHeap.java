@@ -0,0 +1,204 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min heap of int ids with double keys. A position map from id to
+ * heap slot makes contains, decrease-key and removal O(log n) instead of
+ * searching the heap.
+ * @author Jerome Donfack
+ *
+ */
+public class IndexedHeap
+{
+  private static final int ABSENT = -1;
+
+  private int d;
+  private int size;
+  private int[] ids;
+  private double[] keys;
+  private int[] positions;
+
+  /**
+   * Creates a new IndexedHeap.
+   * @param d - Max children of the heap.
+   * @param capacity - Number of distinct ids (ids run from 0 to capacity - 1).
+   */
+  public IndexedHeap(final int d, final int capacity)
+  {
+    this.d = d;
+    this.size = 0;
+    this.ids = new int[capacity];
+    this.keys = new double[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(this.positions, ABSENT);
+  }
+
+  /**
+   * Checks if the heap is empty.
+   * @return - If the heap has no ids.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Gets the amount of ids in the heap.
+   * @return - Amount of ids in the heap.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Checks if an id is in the heap.
+   * @param id - ID to check.
+   * @return - If the id is in the heap.
+   */
+  public boolean contains(final int id)
+  {
+    return this.positions[id] != ABSENT;
+  }
+
+  /**
+   * Gets the key of an id in the heap.
+   * @param id - ID in the heap.
+   * @return - Key of the id, or infinity if it is not in the heap.
+   */
+  public double getKey(final int id)
+  {
+    int position = this.positions[id];
+    return position == ABSENT ? Double.POSITIVE_INFINITY : this.keys[position];
+  }
+
+  /**
+   * Inserts an id, or lowers its key if it is already in the heap.
+   * Larger keys for an id already in the heap are ignored.
+   * @param id - ID to insert.
+   * @param key - Key of the id.
+   */
+  public void insertOrDecrease(final int id, final double key)
+  {
+    int position = this.positions[id];
+    if(position == ABSENT)
+    {
+      position = this.size++;
+    }
+    else if(key >= this.keys[position])
+    {
+      return;
+    }
+    siftUp(position, id, key);
+  }
+
+  /**
+   * Gets the id with the smallest key without removing it.
+   * @return - ID with the smallest key.
+   */
+  public int peekMin()
+  {
+    return this.ids[0];
+  }
+
+  /**
+   * Gets the smallest key in the heap.
+   * @return - Smallest key, or infinity if the heap is empty.
+   */
+  public double getMinKey()
+  {
+    return this.size == 0 ? Double.POSITIVE_INFINITY : this.keys[0];
+  }
+
+  /**
+   * Removes the id with the smallest key.
+   * @return - ID with the smallest key.
+   */
+  public int removeMin()
+  {
+    int minID = this.ids[0];
+    removeAt(0);
+    return minID;
+  }
+
+  /**
+   * Removes an id from the heap if it is there.
+   * @param id - ID to remove.
+   */
+  public void remove(final int id)
+  {
+    int position = this.positions[id];
+    if(position != ABSENT) removeAt(position);
+  }
+
+  /**
+   * Empties the heap. Only the slots still in use are touched.
+   */
+  public void clear()
+  {
+    for(int i=0; i<this.size; i++) this.positions[this.ids[i]] = ABSENT;
+    this.size = 0;
+  }
+
+  private void removeAt(final int position)
+  {
+    this.positions[this.ids[position]] = ABSENT;
+    int last = --this.size;
+    if(position == last) return;
+
+    int lastID = this.ids[last];
+    double lastKey = this.keys[last];
+    if(position > 0 && lastKey < this.keys[(position - 1) / this.d])
+    {
+      siftUp(position, lastID, lastKey);
+    }
+    else
+    {
+      siftDown(position, lastID, lastKey);
+    }
+  }
+
+  private void siftUp(final int start, final int id, final double key)
+  {
+    int position = start;
+    while(position > 0)
+    {
+      int parent = (position - 1) / this.d;
+      if(key >= this.keys[parent]) break;
+
+      place(position, this.ids[parent], this.keys[parent]);
+      position = parent;
+    }
+    place(position, id, key);
+  }
+
+  private void siftDown(final int start, final int id, final double key)
+  {
+    int position = start;
+    while(true)
+    {
+      int firstChild = position * this.d + 1;
+      if(firstChild >= this.size) break;
+
+      int lastChild = Math.min(firstChild + this.d, this.size);
+      int smallest = firstChild;
+      for(int child = firstChild + 1; child < lastChild; child++)
+      {
+        if(this.keys[child] < this.keys[smallest]) smallest = child;
+      }
+      if(this.keys[smallest] >= key) break;
+
+      place(position, this.ids[smallest], this.keys[smallest]);
+      position = smallest;
+    }
+    place(position, id, key);
+  }
+
+  private void place(final int position, final int id, final double key)
+  {
+    this.ids[position] = id;
+    this.keys[position] = key;
+    this.positions[id] = position;
+  }
+}
@@ -0,0 +1,139 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import feature.StreetSegment;
+import geography.ConcaveHull;
+import geography.Polygon;
+
+/**
+ * The part of a street network reachable from an origin within a cost
+ * budget. Segments are either reachable from end to end or cut at the
+ * frontier, where only the fraction nearest their head is reachable. The
+ * reached intersections and frontier cuts are kept as points, so a
+ * boundary polygon can be drawn around them on request.
+ * @author Jerome Donfack
+ *
+ */
+public class Isochrone
+{
+  private double budget;
+  private Map<String, StreetSegment> segments;
+  private Map<String, StreetSegment> partialSegments;
+  private Map<String, Double> fractions;
+  private double[] xs;
+  private double[] ys;
+  private int pointCount;
+
+  /**
+   * Creates a new empty Isochrone.
+   * @param budget - Largest cost to travel.
+   */
+  Isochrone(final double budget)
+  {
+    this.budget = budget;
+    this.segments = new LinkedHashMap<>();
+    this.partialSegments = new LinkedHashMap<>();
+    this.fractions = new LinkedHashMap<>();
+    this.xs = new double[64];
+    this.ys = new double[64];
+    this.pointCount = 0;
+  }
+
+  /**
+   * Adds a segment reachable from end to end.
+   * @param segment - Segment to add.
+   */
+  void addSegment(final StreetSegment segment)
+  {
+    this.segments.put(segment.getID(), segment);
+  }
+
+  /**
+   * Adds a segment cut at the frontier.
+   * @param segment - Segment to add.
+   * @param fraction - Fraction of its length reachable from its head.
+   */
+  void addPartialSegment(final StreetSegment segment, final double fraction)
+  {
+    if(this.segments.containsKey(segment.getID())) return;
+
+    this.partialSegments.put(segment.getID(), segment);
+    this.fractions.put(segment.getID(), fraction);
+  }
+
+  /**
+   * Adds a point the boundary should enclose.
+   * @param x - X coordinate of the point.
+   * @param y - Y coordinate of the point.
+   */
+  void addPoint(final double x, final double y)
+  {
+    if(this.pointCount == this.xs.length)
+    {
+      this.xs = Arrays.copyOf(this.xs, this.pointCount * 2);
+      this.ys = Arrays.copyOf(this.ys, this.pointCount * 2);
+    }
+    this.xs[this.pointCount] = x;
+    this.ys[this.pointCount++] = y;
+  }
+
+  /**
+   * Gets the largest cost to travel.
+   * @return - The budget.
+   */
+  public double getBudget()
+  {
+    return this.budget;
+  }
+
+  /**
+   * Gets the segments reachable from end to end, in the order the search
+   * reached them.
+   * @return - Segments by ID.
+   */
+  public Map<String, StreetSegment> getSegments()
+  {
+    return Collections.unmodifiableMap(this.segments);
+  }
+
+  /**
+   * Gets the segments cut at the frontier.
+   * @return - Segments by ID.
+   */
+  public Map<String, StreetSegment> getPartialSegments()
+  {
+    return Collections.unmodifiableMap(this.partialSegments);
+  }
+
+  /**
+   * Gets how much of a segment is reachable.
+   * @param segmentID - ID of the segment.
+   * @return - Fraction of its length reachable from its head, 1 for a
+   * segment reachable from end to end and 0 for one out of reach.
+   */
+  public double getFraction(final String segmentID)
+  {
+    if(this.segments.containsKey(segmentID)) return 1;
+
+    Double fraction = this.fractions.get(segmentID);
+    return fraction == null ? 0 : fraction;
+  }
+
+  /**
+   * Draws a concave hull around the reached intersections and frontier
+   * cuts.
+   * @param id - The id of the polygon.
+   * @param concavity - How long a hull edge must be, relative to the
+   * distance of its nearest inner point, to be dug into. Around 1 to 2
+   * gives a tight boundary, and large values give the convex hull.
+   * @return - The boundary, or null if nothing was reached.
+   */
+  public Polygon createBoundary(final String id, final double concavity)
+  {
+    return ConcaveHull.create(id, this.xs, this.ys, this.pointCount, concavity);
+  }
+}
@@ -0,0 +1,148 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import feature.StreetSegment;
+import feature.StreetSegmentObserver;
+import feature.StreetSegmentSubject;
+
+/**
+ * Finds everything reachable from an origin within a cost budget with a
+ * label setting search that stops at the budget, so only the reached part
+ * of the network is ever looked at. The search leaves every intersection
+ * over its inbound segments. Segments are handed to the
+ * observers in batches as the frontier moves outward.
+ * @author Jerome Donfack
+ *
+ */
+public class IsochroneAlgorithm implements StreetSegmentSubject
+{
+  private static final int BATCH_SIZE = 64;
+
+  private PermanentLabelManager labels;
+  private Collection<StreetSegmentObserver> observers;
+
+  /**
+   * Create new IsochroneAlgorithm.
+   * @param labels - Labels to use.
+   */
+  public IsochroneAlgorithm(final PermanentLabelManager labels)
+  {
+    this.labels = labels;
+    this.observers = new LinkedList<>();
+  }
+
+  /**
+   * Finds everything reachable from a segment within a budget. Travel
+   * starts at the head of the segment, like a route from it does, and the
+   * segment itself counts as reachable.
+   * @param origin - Segment to start from.
+   * @param budget - Largest cost to travel.
+   * @param net - Network of nodes.
+   * @return - The reachable region.
+   */
+  public Isochrone findReachable(final StreetSegment origin, final double budget,
+      final StreetNetwork net)
+  {
+    Isochrone isochrone = new Isochrone(budget);
+    List<String> batch = new ArrayList<>();
+    isochrone.addSegment(origin);
+    batch.add(origin.getID());
+    search(origin.getHead(), budget, net, isochrone, batch);
+    return isochrone;
+  }
+
+  /**
+   * Finds everything reachable from an intersection within a budget.
+   * @param origin - Node to start from.
+   * @param budget - Largest cost to travel.
+   * @param net - Network of nodes.
+   * @return - The reachable region.
+   */
+  public Isochrone findReachable(final int origin, final double budget,
+      final StreetNetwork net)
+  {
+    Isochrone isochrone = new Isochrone(budget);
+    search(origin, budget, net, isochrone, new ArrayList<>());
+    return isochrone;
+  }
+
+  private void search(final int origin, final double budget, final StreetNetwork net,
+      final Isochrone isochrone, final List<String> batch)
+  {
+    CompressedAdjacency arcs = net.getInboundArcs();
+    labels.reset();
+    Label workingNode = labels.getLabel(origin);
+    workingNode.setValue(0);
+    while(workingNode != null && workingNode.getValue() <= budget)
+    {
+      labels.makePermanent(workingNode.getID());
+      int node = workingNode.getID();
+      double value = workingNode.getValue();
+      isochrone.addPoint(net.getX(node), net.getY(node));
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int tail = arcs.getTarget(arc);
+        double length = arcs.getLength(arc);
+        StreetSegment segment = net.getSegment(arcs.getSegment(arc));
+        if(value + length <= budget)
+        {
+          isochrone.addSegment(segment);
+        }
+        else
+        {
+          // Cut the segment where the budget runs out
+          double fraction = (budget - value) / length;
+          isochrone.addPartialSegment(segment, fraction);
+          isochrone.addPoint(net.getX(node) + fraction * (net.getX(tail) - net.getX(node)),
+              net.getY(node) + fraction * (net.getY(tail) - net.getY(node)));
+        }
+        batch.add(segment.getID());
+        labels.adjustHeadValue(node, tail, length, segment);
+      }
+
+      if(batch.size() >= BATCH_SIZE)
+      {
+        notifyStreetSegmentObservers(new ArrayList<>(batch));
+        batch.clear();
+      }
+      workingNode = labels.getSmallestLabel();
+    }
+    if(!batch.isEmpty()) notifyStreetSegmentObservers(batch);
+  }
+
+  /**
+   * Adds a street seg observer.
+   * @param obsever - Observer to add.
+   */
+  @Override
+  public void addStreetSegmentObserver(final StreetSegmentObserver obsever)
+  {
+    this.observers.add(obsever);
+  }
+
+  /**
+   * Removes a street seg observer.
+   * @param obsever - Observer to remove.
+   */
+  @Override
+  public void removeStreetSegmentObserver(final StreetSegmentObserver obsever)
+  {
+    this.observers.remove(obsever);
+  }
+
+  /**
+   * Notifies all street seg observers to update.
+   * @param segmentIDs - Observers to notifiy.
+   */
+  public void notifyStreetSegmentObservers(final List<String> segmentIDs)
+  {
+    for(StreetSegmentObserver observer : this.observers)
+    {
+      observer.handleStreetSegments(segmentIDs);
+    }
+  }
+}
@@ -3,34 +3,24 @@ package graph;
 import feature.StreetSegment;
 
 /**
- * Marks that contain info about each node.
+ * Marks that contain info about each node. A label is a view of one entry 
+ * of a search workspace, so the same label object is reused by every search.
  * @author Jerome Donfack
  *
  */
 public class Label
 {
-  private boolean permanent;
-  private double value;
+  private SearchWorkspace workspace;
   private int id;
-  private StreetSegment predecessor;
-  
-  /**
-   * Creates a label.
-   */
-  public Label()
-  {
-    this.permanent = false;
-    this.predecessor = null;
-    this.value = Double.POSITIVE_INFINITY;
-  }
   
   /**
    * Creates a label with an id.
+   * @param workspace - Workspace holding the label data.
    * @param id - ID to use for label.
    */
-  public Label(final int id)
+  public Label(final SearchWorkspace workspace, final int id)
   {
-    this();
+    this.workspace = workspace;
     this.id = id;
   }
   
@@ -42,11 +32,7 @@ public class Label
   public void adjustValue(final double possibleValue, 
       final StreetSegment possiblePredecessor)
   {
-    if(possibleValue < this.value)
-    {
-      this.value = possibleValue;
-      this.predecessor = possiblePredecessor;
-    }
+    this.workspace.adjustValue(this.id, possibleValue, possiblePredecessor);
   }
   
   /**
@@ -64,7 +50,7 @@ public class Label
    */
   public StreetSegment getPredecessor()
   {
-    return this.predecessor;
+    return this.workspace.getPredecessor(this.id);
   }
   
   /**
@@ -73,7 +59,7 @@ public class Label
    */
   public double getValue()
   {
-    return this.value;
+    return this.workspace.getValue(this.id);
   }
   
   /**
@@ -82,7 +68,7 @@ public class Label
    */
   public boolean isPermanent()
   {
-    return this.permanent;
+    return this.workspace.isPermanent(this.id);
   }
   
   /**
@@ -90,7 +76,7 @@ public class Label
    */
   public void makePermanent()
   {
-    this.permanent = true;
+    this.workspace.makePermanent(this.id);
   }
   
   /**
@@ -99,6 +85,6 @@ public class Label
    */
   public void setValue(final double value)
   {
-    this.value = value;
+    this.workspace.setValue(this.id, value);
   }
 }
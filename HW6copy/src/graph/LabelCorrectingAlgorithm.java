@@ -2,11 +2,14 @@ package graph;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import feature.Intersection;
 import feature.StreetSegment;
 
 /**
- * Uses the label correcting algorithm to find the shortest path.
+ * Uses the label correcting algorithm to find the shortest path. A label
+ * can still change after it has been taken from the candidates, so no node
+ * is ever known to be final before the search runs out of candidates, and
+ * early termination has no effect. The distance bound is honored: labels
+ * beyond it are not scanned, which cuts the search down just as well.
  * @author Jerome Donfack
  *
  */
@@ -23,50 +26,65 @@ public class LabelCorrectingAlgorithm extends AbstractShortestPathAlgorithm
     this.labels = labels;
   }
   
+  /**
+   * Create new LabelCorrectingAlgorithm from a candidate policy. The 
+   * CandidateLabelList policies (NEWEST, OLDEST) use a list and every 
+   * CandidateLabelDeque policy (FIFO, SMALL_LABEL_FIRST, LARGE_LABEL_LAST,
+   * SMALL_LABEL_FIRST_LARGE_LABEL_LAST, PAPE) uses a deque.
+   * @param policy - Policy to use.
+   * @param networkSize - Size of the street network.
+   */
+  public LabelCorrectingAlgorithm(final String policy, final int networkSize)
+  {
+    if(policy.equals(CandidateLabelList.NEWEST) || policy.equals(CandidateLabelList.OLDEST))
+    {
+      this.labels = new CandidateLabelList(policy, networkSize);
+    }
+    else
+    {
+      this.labels = new CandidateLabelDeque(policy, networkSize);
+    }
+  }
+  
   /**
    * Finds path from origin node to desitnation node.
    * @param origin - Node to start from.
    * @param destination - Node to travel to.
    * @param net - Network of nodes.
-   * @param allPaths - The shortest path from all nodes to dest.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
    * @return - Path from origin node to desination node.
    */
   public Map<String, StreetSegment> findPath(final int origin, final int destination, 
-      final StreetNetwork net, final Map<String, Map<String, StreetSegment>> allPaths)
+      final StreetNetwork net, final ShortestPathTree allPaths)
   {
-    Label workingNode = labels.getLabel(destination);
-    workingNode.setValue(0);
+    if(allPaths == null && !net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    labels.reset();
+    labels.getLabel(destination).setValue(0);
     labels.initializeCandiates(destination);
-    while(!labels.isCandiatesEmpty())
+    Label workingNode = labels.getCandidateLabel();
+    while(workingNode != null)
     {
-      Intersection workingIntersection = net.getIntersection(workingNode.getID());
-      for(StreetSegment segment : workingIntersection.getOutbound())
+      int node = workingNode.getID();
+      if(workingNode.getValue() <= getDistanceBound())
       {
-        labels.adjustHeadValue(segment);
-      }
-      workingNode = labels.getCandidateLabel();
-    }
-    
-    for(Label curNode : labels.getAllLabels())
-    {
-      if(curNode.getPredecessor() != null)
-      {
-        String startSegID = curNode.getPredecessor().getID();
-        Label curLabel = curNode;
-        Map<String, StreetSegment> path = new LinkedHashMap<>();
-        while(curLabel.getPredecessor() != null)
+        for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
         {
-          StreetSegment segment = curLabel.getPredecessor();
-          path.put(segment.getID(), segment);
-          curLabel = labels.getLabel(segment.getTail());
+          labels.adjustHeadValue(node, arcs.getTarget(arc), arcs.getLength(arc), 
+              net.getSegment(arcs.getSegment(arc)));
         }
-        allPaths.put(startSegID, path);
       }
+      workingNode = labels.getCandidateLabel();
     }
     
+    if(allPaths != null) allPaths.update(net, labels, getDistanceBound());
+    
     Map<String, StreetSegment> path = new LinkedHashMap<>();
     Label currentNode = labels.getLabel(origin);
-    while (currentNode.getPredecessor() != null)
+    while (currentNode.getValue() <= getDistanceBound() 
+        && currentNode.getPredecessor() != null)
     {
       StreetSegment segment = currentNode.getPredecessor();
       path.put(segment.getID(), segment);
@@ -15,6 +15,16 @@ public interface LabelManager
    */
   public abstract void adjustHeadValue(final StreetSegment segment);
   
+  /**
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
+   */
+  public abstract void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment);
+  
   /**
    * Get the label.
    * @param intersectionID - ID of the label.
@@ -27,4 +37,9 @@ public interface LabelManager
    * @return - Every label.
    */
   public abstract Label[] getAllLabels();
+  
+  /**
+   * Starts a new search, forgetting the values of every label.
+   */
+  public abstract void reset();
 }
@@ -2,7 +2,6 @@ package graph;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import feature.Intersection;
 import feature.StreetSegment;
 
 /**
@@ -28,46 +27,48 @@ public class LabelSettingAlgorithm extends AbstractShortestPathAlgorithm
    * @param origin - Node to start from.
    * @param destination - Node to travel to.
    * @param net - Network of nodes.
-   * @param allPaths - The shortest path from all nodes to dest.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
    * @return - Path from origin node to desination node.
    */
   public Map<String, StreetSegment> findPath(final int origin, final int destination, 
-      final StreetNetwork net, final Map<String, Map<String, StreetSegment>> allPaths)
+      final StreetNetwork net, final ShortestPathTree allPaths)
   {
+    if(allPaths == null && !net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    labels.reset();
     Label workingNode = labels.getLabel(destination);
     workingNode.setValue(0);
 //    labels.makePermanent(workingNode.getID());
+    double radius = Double.POSITIVE_INFINITY;
     while(workingNode != null)
     {
+      if(workingNode.getValue() > getDistanceBound())
+      {
+        radius = getDistanceBound();
+        break;
+      }
       labels.makePermanent(workingNode.getID());
-      Intersection workingIntersection = net.getIntersection(workingNode.getID());
-      for(StreetSegment segment : workingIntersection.getOutbound())
+      int node = workingNode.getID();
+      if(isEarlyTermination() && node == origin)
       {
-        labels.adjustHeadValue(segment);
+        radius = workingNode.getValue();
+        break;
       }
-      workingNode = labels.getSmallestLabel();
-    }
-    
-    for(Label curNode : labels.getAllLabels())
-    {
-      if(curNode.getPredecessor() != null)
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
       {
-        String startSegID = curNode.getPredecessor().getID();
-        Label curLabel = curNode;
-        Map<String, StreetSegment> path = new LinkedHashMap<>();
-        while(curLabel.getPredecessor() != null)
-        {
-          StreetSegment segment = curLabel.getPredecessor();
-          path.put(segment.getID(), segment);
-          curLabel = labels.getLabel(segment.getTail());
-        }
-        allPaths.put(startSegID, path);
+        labels.adjustHeadValue(node, arcs.getTarget(arc), arcs.getLength(arc), 
+            net.getSegment(arcs.getSegment(arc)));
       }
+      workingNode = labels.getSmallestLabel();
     }
     
+    if(allPaths != null) allPaths.update(net, labels, radius);
+    
     Map<String, StreetSegment> path = new LinkedHashMap<>();
     Label currentNode = labels.getLabel(origin);
-    while (currentNode.getPredecessor() != null)
+    while (currentNode.getValue() <= radius && currentNode.getPredecessor() != null)
     {
       StreetSegment segment = currentNode.getPredecessor();
       path.put(segment.getID(), segment);
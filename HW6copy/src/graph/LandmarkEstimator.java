@@ -0,0 +1,53 @@
+package graph;
+
+/**
+ * Estimates remaining distance with landmarks and the triangle inequality.
+ * For a landmark L and target t, both d(L, t) - d(L, v) and
+ * d(v, L) - d(t, L) are lower bounds on d(v, t).
+ * @author Jerome Donfack
+ *
+ */
+public class LandmarkEstimator implements DistanceEstimator
+{
+  private LandmarkTable table;
+  private double[] fromLandmarkToTarget;
+  private double[] targetToLandmark;
+
+  /**
+   * Creates a new LandmarkEstimator.
+   * @param table - Landmark distances.
+   * @param target - Intersection the search is heading to.
+   */
+  public LandmarkEstimator(final LandmarkTable table, final int target)
+  {
+    this.table = table;
+    this.fromLandmarkToTarget = new double[table.size()];
+    this.targetToLandmark = new double[table.size()];
+    for(int i=0; i<table.size(); i++)
+    {
+      this.fromLandmarkToTarget[i] = table.getDistanceFrom(i, target);
+      this.targetToLandmark[i] = table.getDistanceTo(i, target);
+    }
+  }
+
+  /**
+   * Estimates the remaining distance without overestimating it.
+   * @param intersectionID - ID of the intersection to estimate from.
+   * @return - Lower bound on the distance to the target.
+   */
+  @Override
+  public double estimate(final int intersectionID)
+  {
+    double bound = 0;
+    for(int i=0; i<this.fromLandmarkToTarget.length; i++)
+    {
+      double ahead = this.fromLandmarkToTarget[i] 
+          - this.table.getDistanceFrom(i, intersectionID);
+      double behind = this.table.getDistanceTo(i, intersectionID) 
+          - this.targetToLandmark[i];
+      if(ahead > bound && ahead != Double.POSITIVE_INFINITY) bound = ahead;
+      if(behind > bound && behind != Double.POSITIVE_INFINITY) bound = behind;
+    }
+    return bound;
+  }
+}
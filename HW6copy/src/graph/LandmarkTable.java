@@ -0,0 +1,271 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Distances to and from a few landmark intersections, used to bound the
+ * distance between any two intersections with the triangle inequality.
+ * Distances are driven along routes of {@link ShortestPathAlgorithm}.
+ * @author Jerome Donfack
+ *
+ */
+public class LandmarkTable
+{
+  private static final int MAGIC = 0x414C5431;
+  private static final int VERSION = 2;
+
+  private int[] landmarks;
+  private double[][] fromLandmark;
+  private double[][] toLandmark;
+
+  /**
+   * Creates a new LandmarkTable.
+   * @param landmarks - IDs of the landmark intersections.
+   * @param fromLandmark - Distance from each landmark to every intersection.
+   * @param toLandmark - Distance from every intersection to each landmark.
+   */
+  public LandmarkTable(final int[] landmarks, final double[][] fromLandmark,
+      final double[][] toLandmark)
+  {
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+  }
+
+  /**
+   * Gets the amount of landmarks.
+   * @return - Amount of landmarks.
+   */
+  public int size()
+  {
+    return this.landmarks.length;
+  }
+
+  /**
+   * Gets the intersection of a landmark.
+   * @param landmark - Index of the landmark.
+   * @return - ID of the landmark intersection.
+   */
+  public int getLandmark(final int landmark)
+  {
+    return this.landmarks[landmark];
+  }
+
+  /**
+   * Gets the distance from a landmark to an intersection.
+   * @param landmark - Index of the landmark.
+   * @param intersectionID - ID of the intersection.
+   * @return - Distance, or infinity if it cannot be reached.
+   */
+  public double getDistanceFrom(final int landmark, final int intersectionID)
+  {
+    return this.fromLandmark[landmark][intersectionID];
+  }
+
+  /**
+   * Gets the distance from an intersection to a landmark.
+   * @param landmark - Index of the landmark.
+   * @param intersectionID - ID of the intersection.
+   * @return - Distance, or infinity if it cannot be reached.
+   */
+  public double getDistanceTo(final int landmark, final int intersectionID)
+  {
+    return this.toLandmark[landmark][intersectionID];
+  }
+
+  /**
+   * Picks landmarks by farthest selection and computes their distances.
+   * Each new landmark is the intersection farthest from the ones already
+   * picked, which spreads them around the edge of the network.
+   * @param net - Network of nodes.
+   * @param count - Amount of landmarks to pick.
+   * @return - The landmark table.
+   */
+  public static LandmarkTable create(final StreetNetwork net, final int count)
+  {
+    int size = net.size();
+    int[] landmarks = new int[count];
+    double[][] fromLandmark = new double[count][];
+    double[][] toLandmark = new double[count][];
+
+    int start = 0;
+    CompressedAdjacency arcs = net.getInboundArcs();
+    while(start < size - 1 && arcs.getFirstArc(start) == arcs.getEndArc(start)) start++;
+    PermanentLabelManager labels = new PermanentLabelIndexedHeap(4, size);
+    double[] closest = distances(net, start, arcs, labels);
+
+    for(int i=0; i<count; i++)
+    {
+      int farthest = start;
+      double farthestDistance = -1;
+      for(int node=0; node<size; node++)
+      {
+        if(!Double.isInfinite(closest[node]) && closest[node] > farthestDistance)
+        {
+          farthest = node;
+          farthestDistance = closest[node];
+        }
+      }
+
+      landmarks[i] = farthest;
+      fromLandmark[i] = distances(net, farthest, net.getInboundArcs(), labels);
+      toLandmark[i] = distances(net, farthest, net.getOutboundArcs(), labels);
+      for(int node=0; node<size; node++)
+      {
+        closest[node] = i == 0 ? fromLandmark[i][node]
+            : Math.min(closest[node], fromLandmark[i][node]);
+      }
+    }
+    return new LandmarkTable(landmarks, fromLandmark, toLandmark);
+  }
+
+  /**
+   * Loads the landmark table from a file, or creates it and writes it to
+   * the file if read finds no table for the network there. The network is
+   * recognized by its size, its amount of segments and a checksum of its
+   * arcs.
+   * @param file - File the table is kept in.
+   * @param net - Network of nodes.
+   * @param count - Amount of landmarks to pick when creating the table.
+   * @return - The landmark table.
+   * @throws IOException
+   */
+  public static LandmarkTable loadOrCreate(final File file, final StreetNetwork net,
+      final int count) throws IOException
+  {
+    LandmarkTable table = read(file, net);
+    if(table != null) return table;
+
+    table = create(net, count);
+    table.write(file, net);
+    return table;
+  }
+
+  /**
+   * Reads a landmark table from a file.
+   * @param file - File to read.
+   * @param net - Network the table must belong to.
+   * @return - The landmark table, or null if the file is missing, cut
+   * short or belongs to another network.
+   * @throws IOException
+   */
+  public static LandmarkTable read(final File file, final StreetNetwork net)
+      throws IOException
+  {
+    if(!file.isFile()) return null;
+
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file))))
+    {
+      int networkSize = net.size();
+      if(in.readInt() != MAGIC || in.readInt() != VERSION
+          || in.readInt() != networkSize || in.readInt() != net.getSegmentCount()
+          || in.readLong() != getChecksum(net)) return null;
+
+      int count = in.readInt();
+      int[] landmarks = new int[count];
+      double[][] fromLandmark = new double[count][networkSize];
+      double[][] toLandmark = new double[count][networkSize];
+      for(int i=0; i<count; i++)
+      {
+        landmarks[i] = in.readInt();
+        for(int node=0; node<networkSize; node++) fromLandmark[i][node] = in.readDouble();
+        for(int node=0; node<networkSize; node++) toLandmark[i][node] = in.readDouble();
+      }
+      return new LandmarkTable(landmarks, fromLandmark, toLandmark);
+    }
+    catch (EOFException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the landmark table to a file.
+   * @param file - File to write.
+   * @param net - Network the table belongs to.
+   * @throws IOException
+   */
+  public void write(final File file, final StreetNetwork net) throws IOException
+  {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file))))
+    {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(net.size());
+      out.writeInt(net.getSegmentCount());
+      out.writeLong(getChecksum(net));
+      out.writeInt(this.landmarks.length);
+      for(int i=0; i<this.landmarks.length; i++)
+      {
+        out.writeInt(this.landmarks[i]);
+        for(double distance : this.fromLandmark[i]) out.writeDouble(distance);
+        for(double distance : this.toLandmark[i]) out.writeDouble(distance);
+      }
+    }
+  }
+
+  /**
+   * Computes a checksum of the outbound arcs of a network, so a table is not
+   * read back for a network of the same size with other streets or lengths.
+   * @param net - Network of nodes.
+   * @return - CRC32 of the arc offsets, targets, segments and lengths.
+   */
+  private static long getChecksum(final StreetNetwork net)
+  {
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    for(int node=0; node<net.size(); node++)
+    {
+      buffer.clear();
+      buffer.putInt(arcs.getEndArc(node)).flip();
+      crc.update(buffer);
+    }
+    for(int arc=0; arc<arcs.size(); arc++)
+    {
+      buffer.clear();
+      buffer.putInt(arcs.getTarget(arc)).putInt(arcs.getSegment(arc))
+          .putLong(Double.doubleToLongBits(arcs.getLength(arc))).flip();
+      crc.update(buffer);
+    }
+    return crc.getValue();
+  }
+
+  private static double[] distances(final StreetNetwork net, final int source,
+      final CompressedAdjacency arcs, final PermanentLabelManager labels)
+  {
+    labels.reset();
+    Label workingNode = labels.getLabel(source);
+    workingNode.setValue(0);
+    while(workingNode != null)
+    {
+      int node = workingNode.getID();
+      labels.makePermanent(node);
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        labels.adjustHeadValue(node, arcs.getTarget(arc), arcs.getLength(arc),
+            net.getSegment(arcs.getSegment(arc)));
+      }
+      workingNode = labels.getSmallestLabel();
+    }
+
+    double[] distances = new double[net.size()];
+    for(int node=0; node<distances.length; node++)
+    {
+      distances[node] = labels.getLabel(node).getValue();
+    }
+    return distances;
+  }
+}
@@ -0,0 +1,42 @@
+package graph;
+
+/**
+ * Costs every segment its length, whatever the time.
+ * @author Jerome Donfack
+ *
+ */
+public class LengthCostFunction implements EdgeCostFunction
+{
+  private CompressedAdjacency arcs;
+
+  /**
+   * Creates a new LengthCostFunction.
+   * @param net - Frozen network the segments belong to.
+   */
+  public LengthCostFunction(final StreetNetwork net)
+  {
+    this.arcs = net.getOutboundArcs();
+  }
+
+  /**
+   * Gets the length of a segment.
+   * @param segment - Index of the segment in the frozen network.
+   * @param departureTime - Time the segment is entered.
+   * @return - Length of the segment.
+   */
+  @Override
+  public double getCost(final int segment, final double departureTime)
+  {
+    return this.arcs.getLength(segment);
+  }
+
+  /**
+   * Gets the smallest cost per unit of length.
+   * @return - 1, since the cost is the length.
+   */
+  @Override
+  public double getMinimumRate()
+  {
+    return 1;
+  }
+}
@@ -0,0 +1,225 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Orders the intersections of a street network by nested dissection. The
+ * intersections are split in two halves along the wider side of their
+ * bounding box, the boundary of the smaller side becomes a separator that
+ * goes last, and both halves are ordered the same way before it. The order
+ * only depends on the layout of the streets, never on their lengths, so it
+ * stays valid however the weights change.
+ * @author Jerome Donfack
+ *
+ */
+class NestedDissectionOrder
+{
+  private static final int LEAF_SIZE = 8;
+
+  private StreetNetwork net;
+  private int[] offsets;
+  private int[] neighbors;
+  private int[] nodes;
+  private int[] buffer;
+  private int[] sides;
+  private boolean[] separated;
+  private int stamp;
+
+  /**
+   * Creates a new NestedDissectionOrder.
+   * @param net - Network of nodes.
+   * @param offsets - First neighbor of every intersection.
+   * @param neighbors - Neighbors of every intersection, in both directions.
+   */
+  NestedDissectionOrder(final StreetNetwork net, final int[] offsets, final int[] neighbors)
+  {
+    this.net = net;
+    this.offsets = offsets;
+    this.neighbors = neighbors;
+    this.nodes = new int[net.size()];
+    for(int i=0; i<this.nodes.length; i++) this.nodes[i] = i;
+    this.buffer = new int[net.size()];
+    this.sides = new int[net.size()];
+    this.separated = new boolean[net.size()];
+    this.stamp = 0;
+  }
+
+  /**
+   * Computes the order.
+   * @return - The intersection IDs, from the first to contract to the last.
+   */
+  int[] compute()
+  {
+    dissect(0, this.nodes.length);
+    return this.nodes;
+  }
+
+  /**
+   * Orders the nodes in a range as left half, right half, separator, then
+   * orders both halves.
+   */
+  private void dissect(final int from, final int to)
+  {
+    if(to - from <= LEAF_SIZE) return;
+
+    double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for(int i=from; i<to; i++)
+    {
+      minX = Math.min(minX, this.net.getX(this.nodes[i]));
+      maxX = Math.max(maxX, this.net.getX(this.nodes[i]));
+      minY = Math.min(minY, this.net.getY(this.nodes[i]));
+      maxY = Math.max(maxY, this.net.getY(this.nodes[i]));
+    }
+    boolean alongX = maxX - minX >= maxY - minY;
+    int middle = (from + to) >>> 1;
+    select(from, to - 1, middle, alongX);
+
+    int left = ++this.stamp;
+    int right = ++this.stamp;
+    for(int i=from; i<to; i++) this.sides[this.nodes[i]] = i < middle ? left : right;
+
+    int leftBoundary = markBoundary(from, middle, right, false);
+    int rightBoundary = markBoundary(middle, to, left, false);
+    if(leftBoundary <= rightBoundary) markBoundary(from, middle, right, true);
+    else markBoundary(middle, to, left, true);
+
+    int leftEnd = compact(from, middle, from);
+    int rightEnd = compact(middle, to, leftEnd);
+    int end = rightEnd;
+    for(int i=from; i<to; i++)
+    {
+      if(this.separated[this.nodes[i]])
+      {
+        this.separated[this.nodes[i]] = false;
+        this.buffer[end++] = this.nodes[i];
+      }
+    }
+    System.arraycopy(this.buffer, from, this.nodes, from, to - from);
+
+    dissect(from, leftEnd);
+    dissect(leftEnd, rightEnd);
+  }
+
+  /**
+   * Counts, and optionally marks as separated, the nodes of a range with a
+   * neighbor on the other side.
+   */
+  private int markBoundary(final int from, final int to, final int otherSide,
+      final boolean mark)
+  {
+    int count = 0;
+    for(int i=from; i<to; i++)
+    {
+      int node = this.nodes[i];
+      for(int j = this.offsets[node]; j < this.offsets[node + 1]; j++)
+      {
+        if(this.sides[this.neighbors[j]] == otherSide)
+        {
+          count++;
+          if(mark) this.separated[node] = true;
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Copies the nodes of a range that are not separated to the buffer.
+   * @return - Position one past the last copied node.
+   */
+  private int compact(final int from, final int to, final int start)
+  {
+    int end = start;
+    for(int i=from; i<to; i++)
+    {
+      if(!this.separated[this.nodes[i]]) this.buffer[end++] = this.nodes[i];
+    }
+    return end;
+  }
+
+  /**
+   * Moves the node with the k-th smallest coordinate to position k, with
+   * smaller ones before it and larger ones after it.
+   */
+  private void select(int low, int high, final int k, final boolean alongX)
+  {
+    while(low < high)
+    {
+      double pivot = coordinate(this.nodes[(low + high) >>> 1], alongX);
+      int i = low;
+      int j = high;
+      while(i <= j)
+      {
+        while(coordinate(this.nodes[i], alongX) < pivot) i++;
+        while(coordinate(this.nodes[j], alongX) > pivot) j--;
+        if(i <= j)
+        {
+          int swap = this.nodes[i];
+          this.nodes[i++] = this.nodes[j];
+          this.nodes[j--] = swap;
+        }
+      }
+      if(k <= j) high = j;
+      else if(k >= i) low = i;
+      else return;
+    }
+  }
+
+  private double coordinate(final int node, final boolean alongX)
+  {
+    return alongX ? this.net.getX(node) : this.net.getY(node);
+  }
+
+  /**
+   * Builds the undirected neighbors of every intersection, without loops
+   * or repeats.
+   * @param net - Network of nodes.
+   * @return - The offsets, with one more entry for the end, and the
+   * neighbors.
+   */
+  static int[][] undirected(final StreetNetwork net)
+  {
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    int size = net.size();
+    int[] degrees = new int[size + 1];
+    for(int node=0; node<size; node++)
+    {
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        if(arcs.getTarget(arc) == node) continue;
+        degrees[node + 1]++;
+        degrees[arcs.getTarget(arc) + 1]++;
+      }
+    }
+    for(int node=0; node<size; node++) degrees[node + 1] += degrees[node];
+
+    int[] fill = Arrays.copyOf(degrees, size);
+    int[] all = new int[degrees[size]];
+    for(int node=0; node<size; node++)
+    {
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int head = arcs.getTarget(arc);
+        if(head == node) continue;
+        all[fill[node]++] = head;
+        all[fill[head]++] = node;
+      }
+    }
+
+    int[] offsets = new int[size + 1];
+    int count = 0;
+    for(int node=0; node<size; node++)
+    {
+      Arrays.sort(all, degrees[node], degrees[node + 1]);
+      offsets[node] = count;
+      for(int i = degrees[node]; i < degrees[node + 1]; i++)
+      {
+        if(count == offsets[node] || all[i] != all[count - 1]) all[count++] = all[i];
+      }
+    }
+    offsets[size] = count;
+    return new int[][] {offsets, Arrays.copyOf(all, count)};
+  }
+}
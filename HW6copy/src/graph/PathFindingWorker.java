@@ -23,7 +23,7 @@ public class PathFindingWorker extends SwingWorker<Map<String, StreetSegment>, S
   private StreetNetwork net;
   private CartographyDocument<StreetSegment> document;
   private CartographyPanel<StreetSegment> panel;
-  private Map<String, Map<String, StreetSegment>> allPaths;
+  private ShortestPathTree allPaths;
   
   /**
    * Explicit Value Constructor.
@@ -40,7 +40,7 @@ public class PathFindingWorker extends SwingWorker<Map<String, StreetSegment>, S
       final int origin, final int destination, final StreetNetwork net,
       final CartographyDocument<StreetSegment> document, 
       final CartographyPanel<StreetSegment> panel,
-      final Map<String, Map<String, StreetSegment>> allPaths)
+      final ShortestPathTree allPaths)
   {
     this.alg = alg;
     this.origin = origin;
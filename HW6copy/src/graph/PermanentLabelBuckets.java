@@ -1,59 +1,121 @@
 package graph;
 
-import java.util.LinkedList;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 import feature.StreetSegment;
 
 /**
- * Organizes all permanent labels using buckets.
+ * Organizes all permanent labels using Dial's circular buckets. Bucket b
+ * holds the labels with values in [b * width, (b + 1) * width), each bucket
+ * is an intrusive doubly linked list over int arrays, and the buckets are
+ * reused in a ring as the smallest value grows.
  * @author Jerome Donfack
  *
  */
-public class PermanentLabelBuckets extends AbstractLabelManager 
+public class PermanentLabelBuckets extends AbstractLabelManager
     implements PermanentLabelManager
 {
-  private TreeMap<Integer, LinkedList<Label>> labelBuckets;
-  
+  public static final double DEFAULT_WIDTH = 0.1;
+  private static final int MAX_BUCKETS = 1 << 16;
+  private static final int NONE = -1;
+
+  private double width;
+  private boolean exact;
+  private int[] bucketHeads;
+  private int[] next;
+  private int[] previous;
+  private long[] bucketOf;
+  private long cursor;
+  private int count;
+
   /**
-   * Create a new PermanentLabelBucket.
+   * Create a new PermanentLabelBucket using the default bucket width.
    * @param networkSize - Size of the network.
    */
   public PermanentLabelBuckets(final int networkSize)
+  {
+    this(DEFAULT_WIDTH, networkSize);
+  }
+
+  /**
+   * Create a new PermanentLabelBucket with a given bucket width. Since the
+   * width may be wider than the shortest segment, the smallest label is
+   * found by scanning the current bucket.
+   * @param width - Range of values held by one bucket.
+   * @param networkSize - Size of the network.
+   */
+  public PermanentLabelBuckets(final double width, final int networkSize)
   {
     super(networkSize);
-    labelBuckets = new TreeMap<>();
+    initialize(width, false, 2);
   }
-  
+
   /**
-   * Adjust the head label.
-   * @param segment - Segement to use for adjusting.
+   * Create a new PermanentLabelBucket with the bucket width derived from
+   * the shortest segment in the network. When every segment is at least
+   * one bucket wide, any label in the lowest bucket is already exact, so
+   * it is removed without scanning the bucket.
+   * @param net - Network that will be searched.
    */
-  @Override
-  public void adjustHeadValue(final StreetSegment segment)
+  public PermanentLabelBuckets(final StreetNetwork net)
   {
-    int headNode = segment.getHead();
-    int tailNode = segment.getTail();
+    super(net.size());
+    CompressedAdjacency arcs = net.getOutboundArcs();
+    double minLength = Double.POSITIVE_INFINITY;
+    double minPositiveLength = Double.POSITIVE_INFINITY;
+    double maxLength = 0;
+    for(int arc=0; arc<arcs.size(); arc++)
+    {
+      double length = arcs.getLength(arc);
+      minLength = Math.min(minLength, length);
+      if(length > 0) minPositiveLength = Math.min(minPositiveLength, length);
+      maxLength = Math.max(maxLength, length);
+    }
 
-    Label headLabel = this.getLabel(headNode);
-    Label tailLabel = this.getLabel(tailNode);
+    double bucketWidth = minPositiveLength;
+    if(Double.isInfinite(bucketWidth)) bucketWidth = DEFAULT_WIDTH;
+    if(maxLength / bucketWidth > MAX_BUCKETS) bucketWidth = maxLength / MAX_BUCKETS;
+    initialize(bucketWidth, minLength >= bucketWidth,
+        (int) (maxLength / bucketWidth) + 2);
+  }
 
-    if (headLabel.isPermanent()) return;
+  private void initialize(final double bucketWidth, final boolean isExact,
+      final int bucketCount)
+  {
+    int networkSize = this.labels.length;
+    this.width = bucketWidth;
+    this.exact = isExact;
+    this.bucketHeads = new int[Integer.highestOneBit(bucketCount - 1) << 1];
+    Arrays.fill(this.bucketHeads, NONE);
+    this.next = new int[networkSize];
+    this.previous = new int[networkSize];
+    this.bucketOf = new long[networkSize];
+    Arrays.fill(this.bucketOf, NONE);
+    this.cursor = 0;
+    this.count = 0;
+  }
 
-    double possibleValue = tailLabel.getValue() + segment.getLength();
+  /**
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
+   */
+  @Override
+  public void adjustHeadValue(final int tail, final int head,
+      final double length, final StreetSegment segment)
+  {
+    if (this.workspace.isPermanent(head)) return;
 
-    if(headLabel != null) 
+    double possibleValue = this.workspace.getValue(tail) + length;
+    if(this.workspace.adjustValue(head, possibleValue, segment))
     {
-      headLabel.adjustValue(possibleValue, segment);
-      if(headLabel.getValue() != Double.POSITIVE_INFINITY)
-      {
-        removeFromBucket(headLabel);
-      }
-      headLabel.adjustValue(possibleValue, segment);
-      addToBucket(headLabel);
+      removeFromBucket(head);
+      addToBucket(head, possibleValue);
     }
   }
-  
+
   /**
    * Returns the label with the smallest value.
    * @return - Label with the smallest value.
@@ -61,29 +123,29 @@ public class PermanentLabelBuckets extends AbstractLabelManager
   @Override
   public Label getSmallestLabel()
   {
-    boolean exit = false;
-    Label retLabel = null;
-    for(int index : labelBuckets.keySet())
+    if(this.count == 0) return null;
+
+    int mask = this.bucketHeads.length - 1;
+    while(this.bucketHeads[(int) (this.cursor & mask)] == NONE)
+    {
+      this.cursor++;
+    }
+
+    int smallest = this.bucketHeads[(int) (this.cursor & mask)];
+    if(!this.exact)
     {
-      LinkedList<Label> labelList = this.labelBuckets.get(index);
-      double minValue = Double.POSITIVE_INFINITY;
-      for(Label label : labelList)
+      for(int id = this.next[smallest]; id != NONE; id = this.next[id])
       {
-        if(label.getValue() < minValue && !label.isPermanent())
+        if(this.workspace.getValue(id) < this.workspace.getValue(smallest))
         {
-          retLabel = label;
-          minValue = label.getValue();
-          exit = true;
+          smallest = id;
         }
       }
-      if(exit)
-      {
-        break;
-      }
     }
-    return retLabel;
+    removeFromBucket(smallest);
+    return this.getLabel(smallest);
   }
-  
+
   /**
    * Makes the corresponding label permanent.
    * @param intersectionID - ID of the label to make permanent.
@@ -91,20 +153,74 @@ public class PermanentLabelBuckets extends AbstractLabelManager
   @Override
   public void makePermanent(final int intersectionID)
   {
-    this.getLabel(intersectionID).makePermanent();
+    this.workspace.makePermanent(intersectionID);
+    removeFromBucket(intersectionID);
+  }
+
+  /**
+   * Starts a new search, unlinking any labels still left in the buckets.
+   */
+  @Override
+  public void reset()
+  {
+    super.reset();
+    for(int slot=0; slot<this.bucketHeads.length && this.count > 0; slot++)
+    {
+      while(this.bucketHeads[slot] != NONE) removeFromBucket(this.bucketHeads[slot]);
+    }
+    this.cursor = 0;
+  }
+
+  private void addToBucket(final int id, final double value)
+  {
+    long bucket = Math.max(this.cursor, (long) (value / this.width));
+    if(bucket - this.cursor >= this.bucketHeads.length)
+    {
+      growRing(bucket - this.cursor + 1);
+    }
+    link(id, bucket);
+    this.count++;
   }
-  
-  private void addToBucket(final Label label)
+
+  private void link(final int id, final long bucket)
   {
-    int key = ((int) (label.getValue() * 1000) / 100) * 100;
-    labelBuckets.computeIfAbsent(key, 
-        k -> new LinkedList<>()).add(label);
+    int slot = (int) (bucket & (this.bucketHeads.length - 1));
+    int first = this.bucketHeads[slot];
+    this.next[id] = first;
+    this.previous[id] = NONE;
+    if(first != NONE) this.previous[first] = id;
+    this.bucketHeads[slot] = id;
+    this.bucketOf[id] = bucket;
   }
-  
-  private void removeFromBucket(final Label label)
+
+  private void removeFromBucket(final int id)
   {
-    int key = ((int) (label.getValue() * 1000) / 100) * 100;
-    labelBuckets.computeIfAbsent(key, 
-        k -> new LinkedList<>()).remove(label);
+    long bucket = this.bucketOf[id];
+    if(bucket == NONE) return;
+
+    int before = this.previous[id];
+    int after = this.next[id];
+    if(before != NONE) this.next[before] = after;
+    else this.bucketHeads[(int) (bucket & (this.bucketHeads.length - 1))] = after;
+    if(after != NONE) this.previous[after] = before;
+    this.bucketOf[id] = NONE;
+    this.count--;
+  }
+
+  private void growRing(final long span)
+  {
+    int[] oldHeads = this.bucketHeads;
+    this.bucketHeads = new int[Integer.highestOneBit((int) span) << 1];
+    Arrays.fill(this.bucketHeads, NONE);
+    for(int first : oldHeads)
+    {
+      int id = first;
+      while(id != NONE)
+      {
+        int after = this.next[id];
+        link(id, this.bucketOf[id]);
+        id = after;
+      }
+    }
   }
 }
@@ -25,32 +25,33 @@ public class PermanentLabelHeap extends AbstractLabelManager
     super(networkSize);
     this.d = d;
     this.labelsHeap = new ArrayList<>();
-    initializeHeap();
   }
 
   /**
-   * Adjust the head label.
-   * @param segment - Segement to use for adjusting.
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
    */
   @Override
-  public void adjustHeadValue(final StreetSegment segment)
+  public void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment)
   {
-    int headNode = segment.getHead();
-    int tailNode = segment.getTail();
-
-    Label headLabel = this.getLabel(headNode);
-    Label tailLabel = this.getLabel(tailNode);
+    Label headLabel = this.getLabel(head);
+    Label tailLabel = this.getLabel(tail);
 
     if (headLabel.isPermanent()) return;
 
-    double possibleValue = tailLabel.getValue() + segment.getLength();
+    double possibleValue = tailLabel.getValue() + length;
 
     if(headLabel != null) 
     {
       headLabel.adjustValue(possibleValue, segment);
       if(headLabel.getValue() == possibleValue)
       {
-        siftUp(headLabel);
+        if(this.labelsHeap.contains(headLabel)) siftUp(headLabel);
+        else add(headLabel);
       }
     }
   }
@@ -82,6 +83,18 @@ public class PermanentLabelHeap extends AbstractLabelManager
     this.getLabel(intersectionID).makePermanent();
   }
   
+  /**
+   * Starts a new search. Labels only enter the heap once they are reached, 
+   * so a value set outside the heap (like the root) can never sit above 
+   * labels it should not block.
+   */
+  @Override
+  public void reset()
+  {
+    super.reset();
+    this.labelsHeap.clear();
+  }
+  
   private void siftUp(final Label label)
   {
     int index = this.labelsHeap.indexOf(label);
@@ -156,13 +169,5 @@ public class PermanentLabelHeap extends AbstractLabelManager
     int label2Index = this.labelsHeap.indexOf(label2);
     Collections.swap(this.labelsHeap, label1Index, label2Index);
   }
-  
-  private void initializeHeap()
-  {
-    for(Label label : this.labels)
-    {
-      add(label);
-    }
-  }
 
 }
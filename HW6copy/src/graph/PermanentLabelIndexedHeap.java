@@ -0,0 +1,94 @@
+package graph;
+
+import feature.StreetSegment;
+
+/**
+ * Organizes all permanent labels using an indexed d-ary heap. Labels are
+ * only put in the heap once they are reached, and improving a label
+ * decreases its key in place.
+ * @author Jerome Donfack
+ *
+ */
+public class PermanentLabelIndexedHeap extends AbstractLabelManager 
+    implements PermanentLabelManager
+{
+  private IndexedHeap heap;
+  private DistanceEstimator estimator;
+
+  /**
+   * Creates a new PermanentLabelIndexedHeap.
+   * @param d - Max children of the heap.
+   * @param networkSize - Size of the network.
+   */
+  public PermanentLabelIndexedHeap(final int d, final int networkSize)
+  {
+    super(networkSize);
+    this.heap = new IndexedHeap(d, networkSize);
+  }
+
+  /**
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
+   */
+  @Override
+  public void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment)
+  {
+    if (this.workspace.isPermanent(head)) return;
+
+    double possibleValue = this.workspace.getValue(tail) + length;
+    if(this.workspace.adjustValue(head, possibleValue, segment))
+    {
+      double key = possibleValue;
+      if(this.estimator != null) key += this.estimator.estimate(head);
+      this.heap.insertOrDecrease(head, key);
+    }
+  }
+  
+  /**
+   * Orders labels by value plus the estimated remaining distance, which
+   * turns a label setting search into an A* search.
+   * @param estimator - Estimator to use, or null to order by value alone.
+   */
+  public void setEstimator(final DistanceEstimator estimator)
+  {
+    this.estimator = estimator;
+  }
+  
+  /**
+   * Starts a new search, emptying the heap and dropping the estimator of
+   * the last one.
+   */
+  @Override
+  public void reset()
+  {
+    super.reset();
+    this.heap.clear();
+    this.estimator = null;
+  }
+  
+  /**
+   * Returns the label with the smallest value.
+   * @return - Label with the smallest value.
+   */
+  @Override
+  public Label getSmallestLabel()
+  {
+    if(this.heap.isEmpty()) return null;
+    return this.getLabel(this.heap.removeMin());
+  }
+  
+  /**
+   * Makes the corresponding label permanent.
+   * @param intersectionID - ID of the label to make permanent.
+   */
+  @Override
+  public void makePermanent(final int intersectionID)
+  {
+    this.workspace.makePermanent(intersectionID);
+    this.heap.remove(intersectionID);
+  }
+}
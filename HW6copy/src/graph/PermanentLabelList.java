@@ -1,7 +1,5 @@
 package graph;
 
-import java.util.Arrays;
-import java.util.LinkedList;
 import feature.StreetSegment;
 
 /**
@@ -12,8 +10,6 @@ import feature.StreetSegment;
 public class PermanentLabelList extends AbstractLabelManager 
     implements PermanentLabelManager
 {
-  private LinkedList<Label> labelsList;
-
   /**
    * Creates a new PermanentLabelList.
    * @param networkSize - Size of the network.
@@ -21,25 +17,25 @@ public class PermanentLabelList extends AbstractLabelManager
   public PermanentLabelList(final int networkSize)
   {
     super(networkSize);
-    labelsList = new LinkedList<>(Arrays.asList(this.labels));
   }
   
   /**
-   * Adjust the head label.
-   * @param segment - Segement to use for adjusting.
+   * Adjust the head label using primitive arc data.
+   * @param tail - ID of the intersection the arc leaves.
+   * @param head - ID of the intersection the arc enters.
+   * @param length - Length of the arc.
+   * @param segment - Segment behind the arc.
    */
   @Override
-  public void adjustHeadValue(final StreetSegment segment)
+  public void adjustHeadValue(final int tail, final int head, 
+      final double length, final StreetSegment segment)
   {
-    int headNode = segment.getHead();
-    int tailNode = segment.getTail();
-
-    Label headLabel = this.getLabel(headNode);
-    Label tailLabel = this.getLabel(tailNode);
+    Label headLabel = this.getLabel(head);
+    Label tailLabel = this.getLabel(tail);
 
     if (headLabel.isPermanent()) return;
 
-    double possibleValue = tailLabel.getValue() + segment.getLength();
+    double possibleValue = tailLabel.getValue() + length;
 
     if(headLabel != null) 
     {
@@ -54,17 +50,17 @@ public class PermanentLabelList extends AbstractLabelManager
   @Override
   public Label getSmallestLabel()
   {
-    Label minLabel = null;
+    int minID = -1;
     double minValue = Double.POSITIVE_INFINITY;
-    for(Label label : this.labelsList)
+    for(int id=0; id<this.labels.length; id++)
     {
-      if(label.getValue() < minValue && !label.isPermanent())
+      if(this.workspace.getValue(id) < minValue && !this.workspace.isPermanent(id))
       {
-        minValue = label.getValue();
-        minLabel = label;
+        minValue = this.workspace.getValue(id);
+        minID = id;
       }
     }
-    return minLabel;
+    return minID == -1 ? null : this.getLabel(minID);
   }
   
   /**
@@ -0,0 +1,140 @@
+package graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import feature.StreetSegment;
+
+/**
+ * Keeps the shortest path tree to the destination of the current route,
+ * so a vehicle that leaves the route gets a new one at once. The tree is
+ * built in the background as soon as the destination is set, and a path
+ * from any segment is then read off the tree in time proportional to its
+ * length.
+ * @author Jerome Donfack
+ *
+ */
+public class RerouteEngine
+{
+  private static final int NONE = -1;
+
+  private StreetNetwork net;
+  private ForkJoinPool executor;
+  private volatile DestinationTree tree;
+  private volatile int destination;
+
+  /**
+   * Creates a new RerouteEngine that builds trees on the common pool.
+   * @param net - Frozen network of nodes.
+   */
+  public RerouteEngine(final StreetNetwork net)
+  {
+    this(net, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a new RerouteEngine.
+   * @param net - Frozen network of nodes.
+   * @param executor - Pool the trees are built on.
+   */
+  public RerouteEngine(final StreetNetwork net, final ForkJoinPool executor)
+  {
+    this.net = net;
+    this.executor = executor;
+    this.destination = NONE;
+  }
+
+  /**
+   * Sets the destination and starts building its tree in the background.
+   * Paths to the old destination are no longer given meanwhile.
+   * @param target - Node to travel to.
+   */
+  public void setDestination(final int target)
+  {
+    synchronized(this)
+    {
+      this.destination = target;
+    }
+    this.executor.execute(() ->
+    {
+      DestinationTree next = new DestinationTree(this.net);
+      next.build(target, new IndexedHeap(4, this.net.size()));
+      // A newer destination may have been set while this one was built
+      synchronized(this)
+      {
+        if(this.destination == target) this.tree = next;
+      }
+    });
+  }
+
+  /**
+   * Gets the destination of the current route.
+   * @return - ID of the destination, or -1 if none is set.
+   */
+  public int getDestination()
+  {
+    return this.destination;
+  }
+
+  /**
+   * Checks if the tree of the current destination is built.
+   * @return - If paths can be given.
+   */
+  public boolean isReady()
+  {
+    DestinationTree current = this.tree;
+    return current != null && current.getDestination() == this.destination;
+  }
+
+  /**
+   * Gets the distance from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Distance, or infinity if there is no path or the tree is
+   * not built yet.
+   */
+  public double getDistance(final int intersectionID)
+  {
+    DestinationTree current = this.tree;
+    if(current == null || current.getDestination() != this.destination)
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+    return current.getDistance(intersectionID);
+  }
+
+  /**
+   * Gets the path from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Path in driving order, or null if there is no path or the
+   * tree is not built yet.
+   */
+  public Map<String, StreetSegment> getPath(final int intersectionID)
+  {
+    DestinationTree current = this.tree;
+    if(current == null || current.getDestination() != this.destination
+        || Double.isInfinite(current.getDistance(intersectionID))) return null;
+
+    return current.getPath(intersectionID);
+  }
+
+  /**
+   * Gets the path from a segment the vehicle is on to the destination.
+   * Segments are driven from head to tail, so the path goes on from the
+   * tail of the segment.
+   * @param segment - Segment the vehicle is on.
+   * @return - The segment followed by the path from its tail, or null if
+   * there is no path or the tree is not built yet.
+   */
+  public Map<String, StreetSegment> getPath(final StreetSegment segment)
+  {
+    DestinationTree current = this.tree;
+    if(current == null || current.getDestination() != this.destination
+        || Double.isInfinite(current.getDistance(segment.getTail()))) return null;
+
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    path.put(segment.getID(), segment);
+    current.addPath(segment.getTail(), path);
+    return path;
+  }
+}
@@ -0,0 +1,134 @@
+package graph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import feature.StreetSegment;
+
+/**
+ * Answers route requests from many threads at once. The street network is
+ * shared, while every running query borrows its own algorithm and labels
+ * from a pool and returns them when it is done.
+ * @author Jerome Donfack
+ *
+ */
+public class RoutingService
+{
+  private StreetNetwork net;
+  private Supplier<ShortestPathAlgorithm> algorithms;
+  private ForkJoinPool executor;
+  private ConcurrentLinkedQueue<ShortestPathAlgorithm> idleAlgorithms;
+  private ConcurrentLinkedQueue<PermanentLabelManager> idleLabels;
+
+  /**
+   * Creates a new RoutingService that answers routes with an early
+   * terminating label setting search on the common pool.
+   * @param net - Network to route on. It must not change afterwards.
+   */
+  public RoutingService(final StreetNetwork net)
+  {
+    this(net, () ->
+    {
+      ShortestPathAlgorithm alg = new LabelSettingAlgorithm(
+          new PermanentLabelIndexedHeap(4, net.size()));
+      alg.setEarlyTermination(true);
+      return alg;
+    }, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a new RoutingService.
+   * @param net - Network to route on. It must not change afterwards.
+   * @param algorithms - Creates a new algorithm whenever every pooled one
+   * is busy.
+   * @param executor - Pool that runs batches of queries.
+   */
+  public RoutingService(final StreetNetwork net,
+      final Supplier<ShortestPathAlgorithm> algorithms, final ForkJoinPool executor)
+  {
+    this.net = net;
+    this.algorithms = algorithms;
+    this.executor = executor;
+    this.idleAlgorithms = new ConcurrentLinkedQueue<>();
+    this.idleLabels = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Gets the network routes are found on.
+   * @return - The street network.
+   */
+  public StreetNetwork getNetwork()
+  {
+    return this.net;
+  }
+
+  /**
+   * Finds the path from origin node to destination node. Safe to call
+   * from any thread.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination)
+  {
+    ShortestPathAlgorithm alg = this.idleAlgorithms.poll();
+    if(alg == null) alg = this.algorithms.get();
+    try
+    {
+      return alg.findPath(origin, destination, this.net, null);
+    }
+    finally
+    {
+      this.idleAlgorithms.offer(alg);
+    }
+  }
+
+  /**
+   * Finds the path of every origin and destination pair in parallel.
+   * @param origins - Nodes to start from.
+   * @param destinations - Nodes to travel to, one for every origin.
+   * @return - Paths in the order of the pairs.
+   */
+  public List<Map<String, StreetSegment>> findPaths(final int[] origins,
+      final int[] destinations)
+  {
+    return this.executor.submit(() -> IntStream.range(0, origins.length).parallel()
+        .mapToObj(i -> findPath(origins[i], destinations[i]))
+        .collect(Collectors.toList())).join();
+  }
+
+  /**
+   * Computes the distances from every origin to every destination,
+   * searching the origins in parallel. Rows drive the same routes findPath
+   * answers, from the head of every segment to its tail.
+   * @param origins - IDs of the intersections to start from.
+   * @param destinations - IDs of the intersections to travel to.
+   * @param keepPaths - If the path of every pair should be kept.
+   * @return - The distance matrix.
+   */
+  public DistanceMatrix createDistanceMatrix(final int[] origins,
+      final int[] destinations, final boolean keepPaths)
+  {
+    DistanceMatrix matrix = new DistanceMatrix(this.net, origins, destinations, keepPaths);
+    this.executor.submit(() -> IntStream.range(0, origins.length).parallel()
+        .forEach(row ->
+        {
+          PermanentLabelManager labels = this.idleLabels.poll();
+          if(labels == null) labels = new PermanentLabelIndexedHeap(4, this.net.size());
+          try
+          {
+            matrix.fillRow(this.net, row, labels);
+          }
+          finally
+          {
+            this.idleLabels.offer(labels);
+          }
+        })).join();
+    return matrix;
+  }
+}
@@ -0,0 +1,132 @@
+package graph;
+
+import java.util.Arrays;
+
+import feature.StreetSegment;
+
+/**
+ * Primitive storage for the labels of one search that is kept between
+ * searches. Every entry is stamped with the search that wrote it, so
+ * starting a new search only bumps the current stamp instead of clearing
+ * or reallocating the arrays.
+ * @author Jerome Donfack
+ *
+ */
+public class SearchWorkspace
+{
+  private double[] values;
+  private StreetSegment[] predecessors;
+  private int[] reached;
+  private int[] permanent;
+  private int epoch;
+
+  /**
+   * Creates a new SearchWorkspace.
+   * @param networkSize - Size of the street network.
+   */
+  public SearchWorkspace(final int networkSize)
+  {
+    this.values = new double[networkSize];
+    this.predecessors = new StreetSegment[networkSize];
+    this.reached = new int[networkSize];
+    this.permanent = new int[networkSize];
+    this.epoch = 1;
+  }
+
+  /**
+   * Starts a new search, making every label unreached and not permanent.
+   */
+  public void reset()
+  {
+    if(this.epoch == Integer.MAX_VALUE)
+    {
+      Arrays.fill(this.reached, 0);
+      Arrays.fill(this.permanent, 0);
+      this.epoch = 0;
+    }
+    this.epoch++;
+  }
+
+  /**
+   * Gets the size of the workspace.
+   * @return - Size of the street network.
+   */
+  public int size()
+  {
+    return this.values.length;
+  }
+
+  /**
+   * Gets the value of a label.
+   * @param id - ID of the label.
+   * @return - Value of the label, or infinity if it was not reached.
+   */
+  public double getValue(final int id)
+  {
+    return this.reached[id] == this.epoch ? this.values[id] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Gets the predecessor of a label.
+   * @param id - ID of the label.
+   * @return - Predecessor of the label, or null if it has none.
+   */
+  public StreetSegment getPredecessor(final int id)
+  {
+    return this.reached[id] == this.epoch ? this.predecessors[id] : null;
+  }
+
+  /**
+   * Sets the value of a label, keeping its predecessor.
+   * @param id - ID of the label.
+   * @param value - New value to set.
+   */
+  public void setValue(final int id, final double value)
+  {
+    if(this.reached[id] != this.epoch)
+    {
+      this.reached[id] = this.epoch;
+      this.predecessors[id] = null;
+    }
+    this.values[id] = value;
+  }
+
+  /**
+   * Adjust the value and predecessor of label if necessary.
+   * @param id - ID of the label.
+   * @param possibleValue - Value to adjust to.
+   * @param possiblePredecessor - Predecessor to adjust to.
+   * @return - If the label was adjusted.
+   */
+  public boolean adjustValue(final int id, final double possibleValue,
+      final StreetSegment possiblePredecessor)
+  {
+    if(possibleValue < getValue(id))
+    {
+      this.reached[id] = this.epoch;
+      this.values[id] = possibleValue;
+      this.predecessors[id] = possiblePredecessor;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks if a label is permanent.
+   * @param id - ID of the label.
+   * @return - If label is permanent.
+   */
+  public boolean isPermanent(final int id)
+  {
+    return this.permanent[id] == this.epoch;
+  }
+
+  /**
+   * Makes a label permanent.
+   * @param id - ID of the label.
+   */
+  public void makePermanent(final int id)
+  {
+    this.permanent[id] = this.epoch;
+  }
+}
@@ -7,7 +7,11 @@ import feature.StreetSegment;
 import feature.StreetSegmentObserver;
 
 /**
- * Finds the shortest path from one place to another.
+ * Finds the shortest path from one place to another. A route drives its
+ * street segments from head to tail, so the search of LabelSettingAlgorithm
+ * starts at the destination and follows the outbound segments back to the
+ * origin. Searches that start at the origin leave every intersection over
+ * its inbound segments instead.
  * @author Jerome Donfack
  *
  */
@@ -18,12 +22,28 @@ public interface ShortestPathAlgorithm
    * @param origin - Node to start from.
    * @param destination - Node to travel to.
    * @param net - Network of nodes.
-   * @param allPaths - The shortest path from all nodes to dest.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
    * @return - Path from origin node to desination node.
    */
   public abstract Map<String, StreetSegment> findPath(final int origin, 
       final int destination, final StreetNetwork net, 
-      final Map<String, Map<String, StreetSegment>> allPaths);
+      final ShortestPathTree allPaths);
+  
+  /**
+   * Stops the search as soon as the origin is settled instead of finding 
+   * the path from every node. allPaths then only holds the settled nodes.
+   * @param earlyTermination - If the search should stop at the origin.
+   */
+  public abstract void setEarlyTermination(final boolean earlyTermination);
+  
+  /**
+   * Prunes every label farther than a distance, so no path longer than 
+   * it is found.
+   * @param distanceBound - Largest distance to search, or infinity for no
+   * bound.
+   */
+  public abstract void setDistanceBound(final double distanceBound);
   
   /**
    * Adds a street seg observer.
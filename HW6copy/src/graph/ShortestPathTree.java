@@ -0,0 +1,225 @@
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import feature.StreetSegment;
+
+/**
+ * The shortest paths from every intersection to the destination of a
+ * search, kept as one predecessor and one distance per intersection. It is
+ * a map from the ID of the predecessor segment of an intersection to the
+ * path from that intersection, and each path is only built when asked for.
+ * @author Jerome Donfack
+ *
+ */
+public class ShortestPathTree extends AbstractMap<String, Map<String, StreetSegment>>
+{
+  private StreetNetwork net;
+  private double[] distances;
+  private StreetSegment[] predecessors;
+  private int size;
+
+  /**
+   * Creates an empty ShortestPathTree.
+   */
+  public ShortestPathTree()
+  {
+    this.distances = new double[0];
+    this.predecessors = new StreetSegment[0];
+  }
+
+  /**
+   * Replaces the tree with the labels of a finished search. The arrays are
+   * reused when the network size does not change.
+   * @param network - Network that was searched.
+   * @param labels - Labels of the search.
+   * @param radius - Largest value known to be final; farther labels are
+   * left out.
+   */
+  void update(final StreetNetwork network, final LabelManager labels, 
+      final double radius)
+  {
+    start(network);
+    for(int id=0; id<this.distances.length; id++)
+    {
+      Label label = labels.getLabel(id);
+      boolean inside = label.getValue() <= radius;
+      this.distances[id] = inside ? label.getValue() : Double.POSITIVE_INFINITY;
+      this.predecessors[id] = inside ? label.getPredecessor() : null;
+      if(this.predecessors[id] != null) this.size++;
+    }
+  }
+
+  /**
+   * Replaces the tree with the primitive results of a finished search.
+   * @param network - Network that was searched.
+   * @param values - Distance of every intersection.
+   * @param segments - Index of the predecessor segment of every 
+   * intersection, or -1 if it has none.
+   */
+  void update(final StreetNetwork network, final double[] values, 
+      final int[] segments)
+  {
+    start(network);
+    for(int id=0; id<this.distances.length; id++)
+    {
+      this.distances[id] = values[id];
+      this.predecessors[id] = segments[id] == -1 ? null : network.getSegment(segments[id]);
+      if(this.predecessors[id] != null) this.size++;
+    }
+  }
+
+  private void start(final StreetNetwork network)
+  {
+    int networkSize = network.size();
+    if(this.distances.length != networkSize)
+    {
+      this.distances = new double[networkSize];
+      this.predecessors = new StreetSegment[networkSize];
+    }
+    this.net = network;
+    this.size = 0;
+  }
+
+  /**
+   * Gets the distance from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Distance, or infinity if there is no path.
+   */
+  public double getDistance(final int intersectionID)
+  {
+    if(intersectionID >= this.distances.length) return Double.POSITIVE_INFINITY;
+    return this.distances[intersectionID];
+  }
+
+  /**
+   * Gets the first segment of the path from an intersection.
+   * @param intersectionID - ID of the intersection.
+   * @return - Predecessor segment, or null if there is none.
+   */
+  public StreetSegment getPredecessor(final int intersectionID)
+  {
+    if(intersectionID >= this.predecessors.length) return null;
+    return this.predecessors[intersectionID];
+  }
+
+  /**
+   * Builds the path from an intersection to the destination.
+   * @param intersectionID - ID of the intersection.
+   * @return - Path from the intersection.
+   */
+  public Map<String, StreetSegment> getPath(final int intersectionID)
+  {
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    StreetSegment segment = getPredecessor(intersectionID);
+    while(segment != null)
+    {
+      path.put(segment.getID(), segment);
+      segment = this.predecessors[segment.getTail()];
+    }
+    return path;
+  }
+
+  /**
+   * Gets the path that starts with a segment.
+   * @param key - ID of the segment.
+   * @return - Path from the head of the segment, or null if the segment is
+   * not in the tree.
+   */
+  @Override
+  public Map<String, StreetSegment> get(final Object key)
+  {
+    int head = findHead(key);
+    return head == -1 ? null : getPath(head);
+  }
+
+  @Override
+  public boolean containsKey(final Object key)
+  {
+    return findHead(key) != -1;
+  }
+
+  @Override
+  public int size()
+  {
+    return this.size;
+  }
+
+  @Override
+  public void clear()
+  {
+    this.size = 0;
+    this.net = null;
+    Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.predecessors, null);
+  }
+
+  @Override
+  public Set<Map.Entry<String, Map<String, StreetSegment>>> entrySet()
+  {
+    return new AbstractSet<Map.Entry<String, Map<String, StreetSegment>>>()
+    {
+      @Override
+      public Iterator<Map.Entry<String, Map<String, StreetSegment>>> iterator()
+      {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size()
+      {
+        return ShortestPathTree.this.size;
+      }
+    };
+  }
+
+  private int findHead(final Object key)
+  {
+    if(this.net == null || !(key instanceof String)) return -1;
+
+    int index = this.net.getSegmentIndex((String) key);
+    if(index == -1) return -1;
+
+    StreetSegment segment = this.net.getSegment(index);
+    int head = segment.getHead();
+    return this.predecessors[head] == segment ? head : -1;
+  }
+
+  /**
+   * Walks the intersections that have a predecessor.
+   */
+  private class EntryIterator implements Iterator<Map.Entry<String, Map<String, StreetSegment>>>
+  {
+    private int next = advance(0);
+
+    @Override
+    public boolean hasNext()
+    {
+      return this.next < predecessors.length;
+    }
+
+    @Override
+    public Map.Entry<String, Map<String, StreetSegment>> next()
+    {
+      if(!hasNext()) throw new NoSuchElementException();
+
+      int id = this.next;
+      this.next = advance(id + 1);
+      return new SimpleImmutableEntry<>(predecessors[id].getID(), getPath(id));
+    }
+
+    private int advance(final int start)
+    {
+      int id = start;
+      while(id < predecessors.length && predecessors[id] == null) id++;
+      return id;
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package graph;
 
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -16,7 +19,24 @@ import feature.StreetSegment;
  */
 public class StreetNetwork
 {
+  private static final int HILBERT_SIDE = 1 << 15;
+  
   private List<Intersection> intersections;
+  private StreetSegment[] segments;
+  private Map<String, Integer> segmentIndices;
+  private CompressedAdjacency outbound;
+  private CompressedAdjacency inbound;
+  private double[] xs;
+  private double[] ys;
+  private double lengthScale;
+  private int[] originalIDs;
+  private int[] intersectionIDs;
+  private int[] components;
+  private int[] componentSizes;
+  private int[] componentLevels;
+  private int[] componentHeights;
+  private int[] componentIslands;
+  private int largestComponent;
   
   /**
    * Creates a StreetNetwork.
@@ -56,7 +76,563 @@ public class StreetNetwork
   }
   
   /**
-   * Creates street network from a collection of streets.
+   * Gets the outbound arcs of every intersection.
+   * @return - Outbound adjacency, or null if the network is not frozen.
+   */
+  public CompressedAdjacency getOutboundArcs()
+  {
+    return this.outbound;
+  }
+  
+  /**
+   * Gets the inbound arcs of every intersection.
+   * @return - Inbound adjacency, or null if the network is not frozen.
+   */
+  public CompressedAdjacency getInboundArcs()
+  {
+    return this.inbound;
+  }
+  
+  /**
+   * Gets a street segment by its index in the frozen network.
+   * @param index - Index of the street segment.
+   * @return - Street segment at index.
+   */
+  public StreetSegment getSegment(final int index)
+  {
+    return this.segments[index];
+  }
+  
+  /**
+   * Gets the index of a street segment in the frozen network.
+   * @param segmentID - ID of the street segment.
+   * @return - Index of the street segment, or -1 if it is not in the network.
+   */
+  public int getSegmentIndex(final String segmentID)
+  {
+    Integer index = this.segmentIndices.get(segmentID);
+    return index == null ? -1 : index;
+  }
+  
+  /**
+   * Gets the number of street segments in the frozen network.
+   * @return - Number of street segments.
+   */
+  public int getSegmentCount()
+  {
+    return this.segments.length;
+  }
+  
+  /**
+   * Gets the projected x coordinate of an intersection.
+   * @param index - Index of intersection.
+   * @return - X coordinate in kilometers.
+   */
+  public double getX(final int index)
+  {
+    return this.xs[index];
+  }
+  
+  /**
+   * Gets the projected y coordinate of an intersection.
+   * @param index - Index of intersection.
+   * @return - Y coordinate in kilometers.
+   */
+  public double getY(final int index)
+  {
+    return this.ys[index];
+  }
+  
+  /**
+   * Gets the smallest ratio of segment length to the straight line distance
+   * between its intersections. Straight line distance times this scale
+   * never overestimates the length of a path.
+   * @return - Length scale, or 0 if the segments have no geometry.
+   */
+  public double getLengthScale()
+  {
+    return this.lengthScale;
+  }
+  
+  /**
+   * Gets the ID an intersection had before the network was renumbered.
+   * @param index - Index of intersection.
+   * @return - ID from the street file.
+   */
+  public int getOriginalID(final int index)
+  {
+    return this.originalIDs == null ? index : this.originalIDs[index];
+  }
+  
+  /**
+   * Gets the index an intersection has after the network was renumbered.
+   * @param originalID - ID from the street file.
+   * @return - Index of intersection, or -1 if it is not in the network.
+   */
+  public int getIntersectionIndex(final int originalID)
+  {
+    if(originalID < 0 || originalID >= this.intersections.size()) return -1;
+    return this.intersectionIDs == null ? originalID : this.intersectionIDs[originalID];
+  }
+  
+  /**
+   * Gets the strongly connected component of an intersection. Components
+   * are numbered so that a segment between two of them always leads from
+   * its tail to the lower number, so a route, which drives segments from
+   * head to tail, always goes to the higher number.
+   * @param index - Index of intersection.
+   * @return - ID of the component.
+   */
+  public int getComponent(final int index)
+  {
+    return this.components[index];
+  }
+  
+  /**
+   * Gets the number of strongly connected components.
+   * @return - Number of components.
+   */
+  public int getComponentCount()
+  {
+    return this.componentSizes.length;
+  }
+  
+  /**
+   * Gets the number of intersections in a strongly connected component.
+   * @param component - ID of the component.
+   * @return - Number of intersections.
+   */
+  public int getComponentSize(final int component)
+  {
+    return this.componentSizes[component];
+  }
+  
+  /**
+   * Gets the strongly connected component with the most intersections.
+   * @return - ID of the component.
+   */
+  public int getLargestComponent()
+  {
+    return this.largestComponent;
+  }
+  
+  /**
+   * Checks in constant time whether a route may exist between two
+   * intersections. Routes drive segments from head to tail, so they follow
+   * the outbound segments from the destination back to the origin. Such a
+   * path always exists inside one component, and between two components
+   * it can only go down in number and in height, up in level, and never
+   * leaves the island of components joined by segments, so most queries
+   * that have no route are told apart here.
+   * @param origin - Index of the intersection to start from.
+   * @param destination - Index of the intersection to travel to.
+   * @return - False if there is certainly no route.
+   */
+  public boolean mayReach(final int origin, final int destination)
+  {
+    int from = this.components[destination];
+    int to = this.components[origin];
+    return from == to || (to < from && this.componentLevels[to] > this.componentLevels[from]
+        && this.componentHeights[to] < this.componentHeights[from]
+        && this.componentIslands[to] == this.componentIslands[from]);
+  }
+  
+  /**
+   * Finds the intersection of the largest component nearest to an
+   * intersection, so a route can start or end where most of the network
+   * is reachable.
+   * @param index - Index of intersection.
+   * @return - The intersection itself if it is in the largest component,
+   * else the nearest one that is.
+   */
+  public int snapToLargestComponent(final int index)
+  {
+    if(this.components[index] == this.largestComponent) return index;
+    
+    int nearest = index;
+    double best = Double.POSITIVE_INFINITY;
+    for(int i=0; i<this.components.length; i++)
+    {
+      if(this.components[i] != this.largestComponent) continue;
+      
+      double dx = this.xs[i] - this.xs[index];
+      double dy = this.ys[i] - this.ys[index];
+      if(dx * dx + dy * dy < best)
+      {
+        best = dx * dx + dy * dy;
+        nearest = i;
+      }
+    }
+    return nearest;
+  }
+  
+  /**
+   * Builds the compressed adjacency arrays from the intersections. 
+   * Segments are numbered in the order of their tail intersection, so
+   * outbound arc i always belongs to segment i.
+   */
+  public void freeze()
+  {
+    int size = this.intersections.size();
+    int[] outOffsets = new int[size + 1];
+    int[] inOffsets = new int[size + 1];
+    for(int i=0; i<size; i++)
+    {
+      Intersection intersection = this.intersections.get(i);
+      outOffsets[i + 1] = outOffsets[i] + intersection.getOutbound().size();
+      inOffsets[i + 1] = inOffsets[i] + intersection.getInbound().size();
+    }
+    
+    int arcCount = outOffsets[size];
+    this.segments = new StreetSegment[arcCount];
+    this.segmentIndices = new HashMap<>(arcCount * 2);
+    int[] outTargets = new int[arcCount];
+    double[] outLengths = new double[arcCount];
+    int[] outSegments = new int[arcCount];
+    int[] inTargets = new int[arcCount];
+    double[] inLengths = new double[arcCount];
+    int[] inSegments = new int[arcCount];
+    int[] inNext = inOffsets.clone();
+    
+    int arc = 0;
+    for(int i=0; i<size; i++)
+    {
+      for(StreetSegment segment : this.intersections.get(i).getOutbound())
+      {
+        this.segments[arc] = segment;
+        this.segmentIndices.put(segment.getID(), arc);
+        outTargets[arc] = segment.getHead();
+        outLengths[arc] = segment.getLength();
+        outSegments[arc] = arc;
+        
+        int inArc = inNext[segment.getHead()]++;
+        inTargets[inArc] = segment.getTail();
+        inLengths[inArc] = segment.getLength();
+        inSegments[inArc] = arc;
+        arc++;
+      }
+    }
+    this.outbound = new CompressedAdjacency(outOffsets, outTargets, 
+        outLengths, outSegments);
+    this.inbound = new CompressedAdjacency(inOffsets, inTargets, 
+        inLengths, inSegments);
+    locateIntersections();
+    findComponents();
+  }
+  
+  /**
+   * Finds the strongly connected components with Tarjan's algorithm, kept
+   * on explicit stacks so long roads cannot overflow the call stack. Then
+   * ranks the components by the longest chain of components leading to
+   * and away from each, and joins the components linked by segments into
+   * islands, for mayReach.
+   */
+  private void findComponents()
+  {
+    int size = this.intersections.size();
+    int[] order = new int[size];
+    int[] lowLinks = new int[size];
+    int[] nextArcs = new int[size];
+    int[] stack = new int[size];
+    int[] calls = new int[size];
+    int[] members = new int[size];
+    boolean[] onStack = new boolean[size];
+    this.components = new int[size];
+    int counter = 0;
+    int stackSize = 0;
+    int memberCount = 0;
+    int componentCount = 0;
+    for(int root=0; root<size; root++)
+    {
+      if(order[root] != 0) continue;
+      
+      int depth = 0;
+      calls[depth++] = root;
+      order[root] = ++counter;
+      lowLinks[root] = counter;
+      nextArcs[root] = this.outbound.getFirstArc(root);
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while(depth > 0)
+      {
+        int node = calls[depth - 1];
+        if(nextArcs[node] < this.outbound.getEndArc(node))
+        {
+          int head = this.outbound.getTarget(nextArcs[node]++);
+          if(order[head] == 0)
+          {
+            order[head] = ++counter;
+            lowLinks[head] = counter;
+            nextArcs[head] = this.outbound.getFirstArc(head);
+            stack[stackSize++] = head;
+            onStack[head] = true;
+            calls[depth++] = head;
+          }
+          else if(onStack[head])
+          {
+            lowLinks[node] = Math.min(lowLinks[node], order[head]);
+          }
+          continue;
+        }
+        
+        depth--;
+        if(depth > 0)
+        {
+          int parent = calls[depth - 1];
+          lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+        }
+        if(lowLinks[node] == order[node])
+        {
+          // A component is done only after every one it reaches
+          int member;
+          do
+          {
+            member = stack[--stackSize];
+            onStack[member] = false;
+            this.components[member] = componentCount;
+            members[memberCount++] = member;
+          }
+          while(member != node);
+          componentCount++;
+        }
+      }
+    }
+    
+    this.componentSizes = new int[componentCount];
+    this.componentLevels = new int[componentCount];
+    this.componentHeights = new int[componentCount];
+    this.componentIslands = new int[componentCount];
+    for(int c=0; c<componentCount; c++) this.componentIslands[c] = c;
+    this.largestComponent = 0;
+    for(int i=0; i<size; i++) this.componentSizes[this.components[i]]++;
+    for(int c=0; c<componentCount; c++)
+    {
+      if(this.componentSizes[c] > this.componentSizes[this.largestComponent])
+      {
+        this.largestComponent = c;
+      }
+    }
+    
+    // Arcs between components go to lower numbers, and members are grouped
+    // by component in increasing number, so one pass each way is enough
+    for(int i=0; i<size; i++)
+    {
+      int node = members[i];
+      int from = this.components[node];
+      for(int arc = this.outbound.getFirstArc(node); arc < this.outbound.getEndArc(node); arc++)
+      {
+        int to = this.components[this.outbound.getTarget(arc)];
+        if(to != from)
+        {
+          this.componentHeights[from] = Math.max(this.componentHeights[from], 
+              this.componentHeights[to] + 1);
+          int island = findIsland(from);
+          int other = findIsland(to);
+          this.componentIslands[Math.max(island, other)] = Math.min(island, other);
+        }
+      }
+    }
+    for(int i=size - 1; i>=0; i--)
+    {
+      int node = members[i];
+      int from = this.components[node];
+      for(int arc = this.outbound.getFirstArc(node); arc < this.outbound.getEndArc(node); arc++)
+      {
+        int to = this.components[this.outbound.getTarget(arc)];
+        if(to != from)
+        {
+          this.componentLevels[to] = Math.max(this.componentLevels[to], 
+              this.componentLevels[from] + 1);
+        }
+      }
+    }
+    for(int c=0; c<componentCount; c++) this.componentIslands[c] = findIsland(c);
+  }
+  
+  /**
+   * Finds the component an island is named after, halving the path to it
+   * on the way.
+   */
+  private int findIsland(final int component)
+  {
+    int c = component;
+    while(this.componentIslands[c] != c)
+    {
+      this.componentIslands[c] = this.componentIslands[this.componentIslands[c]];
+      c = this.componentIslands[c];
+    }
+    return c;
+  }
+  
+  /**
+   * Places every intersection at the end point its segments share. Shapes
+   * may be drawn from tail to head or the other way around, so both
+   * readings are tried and the one most segments agree on is kept.
+   */
+  private void locateIntersections()
+  {
+    int size = this.intersections.size();
+    double[][] forwardXY = new double[2][size];
+    double[][] reverseXY = new double[2][size];
+    boolean[] placed = new boolean[size];
+    int forwardVotes = 0;
+    int reverseVotes = 0;
+    for(StreetSegment segment : this.segments)
+    {
+      Point2D.Double first = segment.getHeadPoint();
+      Point2D.Double last = segment.getTailPoint();
+      if(first == null || last == null) continue;
+      
+      int tail = segment.getTail();
+      int head = segment.getHead();
+      for(int node : new int[] {tail, head})
+      {
+        Point2D.Double forwardPoint = node == tail ? first : last;
+        Point2D.Double reversePoint = node == tail ? last : first;
+        if(!placed[node])
+        {
+          placed[node] = true;
+          forwardXY[0][node] = forwardPoint.getX();
+          forwardXY[1][node] = forwardPoint.getY();
+          reverseXY[0][node] = reversePoint.getX();
+          reverseXY[1][node] = reversePoint.getY();
+        }
+        else
+        {
+          if(forwardXY[0][node] == forwardPoint.getX() 
+              && forwardXY[1][node] == forwardPoint.getY()) forwardVotes++;
+          if(reverseXY[0][node] == reversePoint.getX() 
+              && reverseXY[1][node] == reversePoint.getY()) reverseVotes++;
+        }
+      }
+    }
+    double[][] chosen = forwardVotes >= reverseVotes ? forwardXY : reverseXY;
+    this.xs = chosen[0];
+    this.ys = chosen[1];
+    
+    double scale = Double.POSITIVE_INFINITY;
+    for(StreetSegment segment : this.segments)
+    {
+      int tail = segment.getTail();
+      int head = segment.getHead();
+      if(!placed[tail] || !placed[head])
+      {
+        scale = 0;
+        break;
+      }
+      
+      double distance = Math.hypot(this.xs[tail] - this.xs[head], 
+          this.ys[tail] - this.ys[head]);
+      if(distance > 0) scale = Math.min(scale, segment.getLength() / distance);
+    }
+    this.lengthScale = Double.isInfinite(scale) ? 0 : scale;
+  }
+  
+  /**
+   * Renumbers the intersections of a frozen network in the order a Hilbert
+   * curve over the map visits them, so intersections near each other get
+   * nearby indices and a search reads the label and adjacency arrays
+   * mostly in runs. The segments are moved to the new indices and the
+   * network is frozen again. Intersections without a place go last, in
+   * their old order.
+   */
+  public void renumber()
+  {
+    int size = this.intersections.size();
+    boolean[] placed = new boolean[size];
+    for(StreetSegment segment : this.segments)
+    {
+      if(segment.getHeadPoint() == null || segment.getTailPoint() == null) continue;
+      placed[segment.getTail()] = true;
+      placed[segment.getHead()] = true;
+    }
+    
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for(int i=0; i<size; i++)
+    {
+      if(!placed[i]) continue;
+      minX = Math.min(minX, this.xs[i]);
+      minY = Math.min(minY, this.ys[i]);
+      maxX = Math.max(maxX, this.xs[i]);
+      maxY = Math.max(maxY, this.ys[i]);
+    }
+    double extent = Math.max(maxX - minX, maxY - minY);
+    double scale = extent > 0 ? (HILBERT_SIDE - 1) / extent : 0;
+    
+    // Curve position above, old index below, so ties keep the old order
+    long[] keys = new long[size];
+    for(int i=0; i<size; i++)
+    {
+      long position = (long) HILBERT_SIDE * HILBERT_SIDE;
+      if(placed[i])
+      {
+        position = hilbertIndex((int) ((this.xs[i] - minX) * scale), 
+            (int) ((this.ys[i] - minY) * scale));
+      }
+      keys[i] = position << 31 | i;
+    }
+    Arrays.sort(keys);
+    
+    int[] newIndices = new int[size];
+    int[] oldIDs = new int[size];
+    List<Intersection> renumbered = new ArrayList<>(size);
+    for(int i=0; i<size; i++)
+    {
+      int old = (int) (keys[i] & Integer.MAX_VALUE);
+      newIndices[old] = i;
+      oldIDs[i] = getOriginalID(old);
+      renumbered.add(this.intersections.get(old));
+    }
+    for(StreetSegment segment : this.segments)
+    {
+      segment.setEnds(newIndices[segment.getTail()], newIndices[segment.getHead()]);
+    }
+    
+    this.intersections = renumbered;
+    this.originalIDs = oldIDs;
+    this.intersectionIDs = new int[size];
+    for(int i=0; i<size; i++) this.intersectionIDs[oldIDs[i]] = i;
+    freeze();
+  }
+  
+  /**
+   * Gets the distance along a Hilbert curve filling the square of
+   * HILBERT_SIDE cells to a cell.
+   */
+  private static long hilbertIndex(final int cellX, final int cellY)
+  {
+    int x = cellX;
+    int y = cellY;
+    long index = 0;
+    for(int side = HILBERT_SIDE / 2; side > 0; side /= 2)
+    {
+      int rx = (x & side) > 0 ? 1 : 0;
+      int ry = (y & side) > 0 ? 1 : 0;
+      index += (long) side * side * ((3 * rx) ^ ry);
+      if(ry == 0)
+      {
+        // Turn the quadrant so the curve enters and leaves it in order
+        if(rx == 1)
+        {
+          x = HILBERT_SIDE - 1 - x;
+          y = HILBERT_SIDE - 1 - y;
+        }
+        int swap = x;
+        x = y;
+        y = swap;
+      }
+    }
+    return index;
+  }
+  
+  /**
+   * Creates street network from a collection of streets. The segments are
+   * shared with the network and renumbered, so every network starts from
+   * their original ends and a second network of the same streets numbers
+   * them the same way.
    * @param streets - Streets to create a network out of.
    * @return - The created street network.
    */
@@ -70,8 +646,9 @@ public class StreetNetwork
       {
         StreetSegment streetSeg = streetSegs.next();
         
-        int tail = streetSeg.getTail();
-        int head = streetSeg.getHead();
+        int tail = streetSeg.getOriginalTail();
+        int head = streetSeg.getOriginalHead();
+        streetSeg.setEnds(tail, head);
         retStreetNetwork.expandIfNeeded(tail);
         retStreetNetwork.expandIfNeeded(head);
         
@@ -79,6 +656,36 @@ public class StreetNetwork
         retStreetNetwork.getIntersection(head).addInbound(streetSeg);
       }
     }
+    retStreetNetwork.freeze();
+    retStreetNetwork.renumber();
+    return retStreetNetwork;
+  }
+  
+  /**
+   * Creates a street network that was numbered before, such as one read
+   * back from a file. The segments keep their order, and their original
+   * ends are moved to the numbering given.
+   * @param segments - Segments in the order of the frozen network.
+   * @param size - Number of intersections.
+   * @param originalIDs - ID from the street file of every intersection.
+   * @return - The created street network.
+   */
+  public static StreetNetwork createStreetNetwork(final StreetSegment[] segments,
+      final int size, final int[] originalIDs)
+  {
+    StreetNetwork retStreetNetwork = new StreetNetwork();
+    retStreetNetwork.expandIfNeeded(size - 1);
+    retStreetNetwork.originalIDs = originalIDs;
+    retStreetNetwork.intersectionIDs = new int[size];
+    for(int i=0; i<size; i++) retStreetNetwork.intersectionIDs[originalIDs[i]] = i;
+    for(StreetSegment streetSeg : segments)
+    {
+      streetSeg.setEnds(retStreetNetwork.intersectionIDs[streetSeg.getOriginalTail()],
+          retStreetNetwork.intersectionIDs[streetSeg.getOriginalHead()]);
+      retStreetNetwork.getIntersection(streetSeg.getTail()).addOutbound(streetSeg);
+      retStreetNetwork.getIntersection(streetSeg.getHead()).addInbound(streetSeg);
+    }
+    retStreetNetwork.freeze();
     return retStreetNetwork;
   }
   
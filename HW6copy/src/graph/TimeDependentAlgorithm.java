@@ -0,0 +1,102 @@
+package graph;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Uses a time dependent label setting search from the origin, driving in
+ * the direction of {@link ShortestPathAlgorithm}. Label values are
+ * arrival times, and the cost of a segment is evaluated at the time it is
+ * entered. When the cost function has a positive minimum rate, the
+ * straight line distance times that rate guides the search like A*.
+ * @author Jerome Donfack
+ *
+ */
+public class TimeDependentAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private PermanentLabelIndexedHeap labels;
+  private EdgeCostFunction costs;
+  private double departureTime;
+
+  /**
+   * Create new TimeDependentAlgorithm leaving at time 0.
+   * @param labels - Labels to use.
+   * @param costs - Cost of every segment by departure time.
+   */
+  public TimeDependentAlgorithm(final PermanentLabelIndexedHeap labels,
+      final EdgeCostFunction costs)
+  {
+    this.labels = labels;
+    this.costs = costs;
+    this.departureTime = 0;
+  }
+
+  /**
+   * Sets the time the route leaves the origin.
+   * @param departureTime - Departure time.
+   */
+  public void setDepartureTime(final double departureTime)
+  {
+    this.departureTime = departureTime;
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched. The distance bound limits the
+   * travel time.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    if(!net.mayReach(origin, destination)) return new LinkedHashMap<>();
+
+    CompressedAdjacency arcs = net.getInboundArcs();
+    labels.reset();
+    double rate = costs.getMinimumRate();
+    if(rate > 0)
+    {
+      EuclideanEstimator distances = new EuclideanEstimator(net, destination);
+      labels.setEstimator(node -> rate * distances.estimate(node));
+    }
+
+    double latest = departureTime + getDistanceBound();
+    Label workingNode = labels.getLabel(origin);
+    workingNode.setValue(departureTime);
+    while(workingNode != null && workingNode.getID() != destination)
+    {
+      int node = workingNode.getID();
+      labels.makePermanent(node);
+      double time = workingNode.getValue();
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        labels.adjustHeadValue(node, arcs.getTarget(arc), 
+            costs.getCost(arcs.getSegment(arc), time), 
+            net.getSegment(arcs.getSegment(arc)));
+      }
+      workingNode = labels.getSmallestLabel();
+      if(workingNode != null && workingNode.getValue() > latest) workingNode = null;
+    }
+    
+    LinkedList<StreetSegment> segments = new LinkedList<>();
+    Label currentNode = labels.getLabel(destination);
+    while (workingNode != null && currentNode.getPredecessor() != null)
+    {
+      StreetSegment segment = currentNode.getPredecessor();
+      segments.addFirst(segment);
+      currentNode = labels.getLabel(segment.getHead());
+    }
+    
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    for(StreetSegment segment : segments) path.put(segment.getID(), segment);
+    return path;
+  }
+}
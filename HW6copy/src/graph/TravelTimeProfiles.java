@@ -0,0 +1,198 @@
+package graph;
+
+import java.util.Arrays;
+
+import feature.StreetSegment;
+
+/**
+ * Travel times that change over the day. A profile is a periodic,
+ * piecewise linear pace (time per unit of length) by time of day, and
+ * many segments can share one profile by its id. The breakpoints of every
+ * profile are stored back to back in primitive arrays, so a segment only
+ * costs the int naming its profile. Segments without a profile use the
+ * default pace.
+ *
+ * Routes stay correct as long as no profile lets a later departure arrive
+ * earlier, that is the travel time never falls faster than time passes.
+ * @author Jerome Donfack
+ *
+ */
+public class TravelTimeProfiles implements EdgeCostFunction
+{
+  private static final int NONE = -1;
+
+  private CompressedAdjacency arcs;
+  private StreetNetwork net;
+  private double period;
+  private double defaultPace;
+  private double minimumPace;
+  private int[] profileOf;
+  private int[] offsets;
+  private double[] times;
+  private double[] paces;
+  private int profileCount;
+
+  /**
+   * Creates a new TravelTimeProfiles with no profiles.
+   * @param net - Frozen network the segments belong to.
+   * @param period - Length of the repeating cycle, such as 24 hours.
+   * @param defaultPace - Pace of the segments without a profile.
+   */
+  public TravelTimeProfiles(final StreetNetwork net, final double period,
+      final double defaultPace)
+  {
+    this.net = net;
+    this.arcs = net.getOutboundArcs();
+    this.period = period;
+    this.defaultPace = defaultPace;
+    this.minimumPace = defaultPace;
+    this.profileOf = new int[net.getSegmentCount()];
+    Arrays.fill(this.profileOf, NONE);
+    this.offsets = new int[9];
+    this.times = new double[64];
+    this.paces = new double[64];
+    this.profileCount = 0;
+  }
+
+  /**
+   * Adds a profile that segments can share.
+   * @param breakpointTimes - Times of day of the breakpoints, increasing
+   * and within one period.
+   * @param breakpointPaces - Pace at every breakpoint.
+   * @return - ID of the profile.
+   * @throws IllegalArgumentException if there are no breakpoints, the arrays
+   * differ in length or the times are not increasing within one period.
+   */
+  public int addProfile(final double[] breakpointTimes, final double[] breakpointPaces)
+  {
+    if(breakpointTimes.length == 0 || breakpointTimes.length != breakpointPaces.length)
+    {
+      throw new IllegalArgumentException("A profile needs one pace for every "
+          + "breakpoint and at least one breakpoint.");
+    }
+    for(int i=0; i<breakpointTimes.length; i++)
+    {
+      double earliest = i == 0 ? 0 : Math.nextUp(breakpointTimes[i - 1]);
+      if(!(breakpointTimes[i] >= earliest && breakpointTimes[i] < this.period))
+      {
+        throw new IllegalArgumentException("Breakpoint times must increase "
+            + "within one period.");
+      }
+    }
+
+    int start = this.offsets[this.profileCount];
+    int end = start + breakpointTimes.length;
+    if(this.profileCount + 2 > this.offsets.length)
+    {
+      this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+    }
+    if(end > this.times.length)
+    {
+      int capacity = Math.max(end, this.times.length * 2);
+      this.times = Arrays.copyOf(this.times, capacity);
+      this.paces = Arrays.copyOf(this.paces, capacity);
+    }
+
+    System.arraycopy(breakpointTimes, 0, this.times, start, breakpointTimes.length);
+    System.arraycopy(breakpointPaces, 0, this.paces, start, breakpointPaces.length);
+    for(double pace : breakpointPaces) this.minimumPace = Math.min(this.minimumPace, pace);
+    this.offsets[++this.profileCount] = end;
+    return this.profileCount - 1;
+  }
+
+  /**
+   * Gives a segment a profile.
+   * @param segment - Index of the segment in the frozen network.
+   * @param profile - ID of the profile, or -1 for the default pace.
+   */
+  public void setProfile(final int segment, final int profile)
+  {
+    this.profileOf[segment] = profile;
+  }
+
+  /**
+   * Gives a segment a profile.
+   * @param segment - Segment to give the profile.
+   * @param profile - ID of the profile, or -1 for the default pace.
+   */
+  public void setProfile(final StreetSegment segment, final int profile)
+  {
+    setProfile(this.net.getSegmentIndex(segment.getID()), profile);
+  }
+
+  /**
+   * Gets the amount of profiles.
+   * @return - Amount of profiles.
+   */
+  public int getProfileCount()
+  {
+    return this.profileCount;
+  }
+
+  /**
+   * Gets the pace of a profile at a time.
+   * @param profile - ID of the profile, or -1 for the default pace.
+   * @param time - Time, wrapped into one period.
+   * @return - Time per unit of length.
+   */
+  public double getPace(final int profile, final double time)
+  {
+    if(profile == NONE) return this.defaultPace;
+
+    int start = this.offsets[profile];
+    int end = this.offsets[profile + 1];
+    if(end - start == 1) return this.paces[start];
+
+    double t = time - Math.floor(time / this.period) * this.period;
+    if(t < this.times[start])
+    {
+      return interpolate(t + this.period, end - 1, start, this.period);
+    }
+    int low = start;
+    int high = end - 1;
+    while(low < high)
+    {
+      int middle = (low + high + 1) >>> 1;
+      if(this.times[middle] <= t) low = middle;
+      else high = middle - 1;
+    }
+    if(low == end - 1) return interpolate(t, low, start, this.period);
+    return interpolate(t, low, low + 1, 0);
+  }
+
+  /**
+   * Gets the travel time of a segment.
+   * @param segment - Index of the segment in the frozen network.
+   * @param departureTime - Time the segment is entered.
+   * @return - Travel time of the segment.
+   */
+  @Override
+  public double getCost(final int segment, final double departureTime)
+  {
+    return this.arcs.getLength(segment) * getPace(this.profileOf[segment], departureTime);
+  }
+
+  /**
+   * Gets the smallest pace of every profile and the default pace.
+   * @return - Smallest time per unit of length.
+   */
+  @Override
+  public double getMinimumRate()
+  {
+    return this.minimumPace;
+  }
+
+  /**
+   * Interpolates between two breakpoints, the second one shifted by a
+   * period when the interval wraps around the end of the cycle.
+   */
+  private double interpolate(final double t, final int from, final int to,
+      final double shift)
+  {
+    double span = this.times[to] + shift - this.times[from];
+    if(span <= 0) return this.paces[from];
+
+    double fraction = (t - this.times[from]) / span;
+    return this.paces[from] + fraction * (this.paces[to] - this.paces[from]);
+  }
+}
@@ -0,0 +1,108 @@
+package graph;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import feature.StreetSegment;
+
+/**
+ * Uses an edge based label setting search so turns can have costs. Every
+ * street segment is a state whose value is the cost of arriving at its
+ * tail, and moving from a segment onto one whose head is that tail costs
+ * the turn plus the length of the new segment. States are the segment
+ * indices of the frozen network, so the expanded search only needs arrays
+ * as long as the segment list instead of an explicit line graph.
+ * @author Jerome Donfack
+ *
+ */
+public class TurnCostAlgorithm extends AbstractShortestPathAlgorithm
+{
+  private static final int NONE = -1;
+
+  private TurnCostTable turnCosts;
+  private SearchWorkspace workspace;
+  private IndexedHeap heap;
+
+  /**
+   * Create new TurnCostAlgorithm.
+   * @param turnCosts - Costs of the turns.
+   */
+  public TurnCostAlgorithm(final TurnCostTable turnCosts)
+  {
+    this.turnCosts = turnCosts;
+  }
+
+  /**
+   * Finds path from origin node to desitnation node. Only one route is
+   * searched, so allPaths is left untouched.
+   * @param origin - Node to start from.
+   * @param destination - Node to travel to.
+   * @param net - Network of nodes.
+   * @param allPaths - The shortest path from all nodes to dest, or null to
+   * skip it.
+   * @return - Path from origin node to desination node.
+   */
+  public Map<String, StreetSegment> findPath(final int origin, final int destination,
+      final StreetNetwork net, final ShortestPathTree allPaths)
+  {
+    Map<String, StreetSegment> path = new LinkedHashMap<>();
+    if(origin == destination) return path;
+    if(!net.mayReach(origin, destination)) return path;
+
+    if(this.workspace == null || this.workspace.size() != net.getSegmentCount())
+    {
+      this.workspace = new SearchWorkspace(net.getSegmentCount());
+      this.heap = new IndexedHeap(4, net.getSegmentCount());
+    }
+    this.workspace.reset();
+    this.heap.clear();
+
+    CompressedAdjacency arcs = net.getInboundArcs();
+    for(int arc = arcs.getFirstArc(origin); arc < arcs.getEndArc(origin); arc++)
+    {
+      int next = arcs.getSegment(arc);
+      if(this.workspace.adjustValue(next, arcs.getLength(arc), null))
+      {
+        this.heap.insertOrDecrease(next, arcs.getLength(arc));
+      }
+    }
+
+    int last = NONE;
+    while(!this.heap.isEmpty() && this.heap.getMinKey() <= getDistanceBound())
+    {
+      int segment = this.heap.removeMin();
+      this.workspace.makePermanent(segment);
+      int node = net.getSegment(segment).getTail();
+      if(node == destination)
+      {
+        last = segment;
+        break;
+      }
+
+      double value = this.workspace.getValue(segment);
+      for(int arc = arcs.getFirstArc(node); arc < arcs.getEndArc(node); arc++)
+      {
+        int next = arcs.getSegment(arc);
+        if(this.workspace.isPermanent(next)) continue;
+
+        double possibleValue = value + this.turnCosts.getCost(segment, next)
+            + arcs.getLength(arc);
+        if(this.workspace.adjustValue(next, possibleValue, net.getSegment(segment)))
+        {
+          this.heap.insertOrDecrease(next, possibleValue);
+        }
+      }
+    }
+
+    LinkedList<StreetSegment> segments = new LinkedList<>();
+    StreetSegment segment = last == NONE ? null : net.getSegment(last);
+    while(segment != null)
+    {
+      segments.addFirst(segment);
+      segment = this.workspace.getPredecessor(net.getSegmentIndex(segment.getID()));
+    }
+    for(StreetSegment step : segments) path.put(step.getID(), step);
+    return path;
+  }
+}
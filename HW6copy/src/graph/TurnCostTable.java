@@ -0,0 +1,175 @@
+package graph;
+
+import java.util.Arrays;
+
+import feature.StreetSegment;
+
+/**
+ * Costs of turning from one segment onto another at an intersection. Routes
+ * of {@link ShortestPathAlgorithm} drive a segment from its head to its
+ * tail, so a turn is made at the tail of the segment driven and the head
+ * of the next one, which are one of the outbound and one of the inbound
+ * segments of the intersection. Turns are keyed by the pair of segment
+ * indices packed into a long and kept in an open addressing hash table, so
+ * only the turns that differ from the default cost take space. A forbidden
+ * turn costs infinity.
+ * @author Jerome Donfack
+ *
+ */
+public class TurnCostTable
+{
+  private static final long EMPTY = -1L;
+
+  private StreetNetwork net;
+  private long[] keys;
+  private double[] costs;
+  private int count;
+  private double uTurnCost;
+
+  /**
+   * Creates a new TurnCostTable where every turn is free.
+   * @param net - Frozen network the segments belong to.
+   */
+  public TurnCostTable(final StreetNetwork net)
+  {
+    this.net = net;
+    this.keys = new long[16];
+    Arrays.fill(this.keys, EMPTY);
+    this.costs = new double[16];
+    this.count = 0;
+    this.uTurnCost = 0;
+  }
+
+  /**
+   * Sets the cost of turning back onto the street just driven, for every
+   * U-turn that has no cost of its own.
+   * @param uTurnCost - Cost of a U-turn, or infinity to forbid them.
+   */
+  public void setUTurnCost(final double uTurnCost)
+  {
+    this.uTurnCost = uTurnCost;
+  }
+
+  /**
+   * Sets the cost of a turn.
+   * @param from - Segment driven to the intersection, which is its tail.
+   * @param onto - Segment driven away from the intersection, which is its
+   * head.
+   * @param cost - Cost of the turn, or infinity to forbid it.
+   * @throws IllegalArgumentException if a segment is not in the network or
+   * the tail of the first is not the head of the second.
+   */
+  public void setCost(final StreetSegment from, final StreetSegment onto,
+      final double cost)
+  {
+    setCost(this.net.getSegmentIndex(from.getID()),
+        this.net.getSegmentIndex(onto.getID()), cost);
+  }
+
+  /**
+   * Forbids a turn.
+   * @param from - Segment driven to the intersection, which is its tail.
+   * @param onto - Segment driven away from the intersection, which is its
+   * head.
+   * @throws IllegalArgumentException if a segment is not in the network or
+   * the tail of the first is not the head of the second.
+   */
+  public void forbid(final StreetSegment from, final StreetSegment onto)
+  {
+    setCost(from, onto, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Sets the cost of a turn by segment index.
+   * @param from - Index of the segment driven to the intersection.
+   * @param onto - Index of the segment driven away from it.
+   * @param cost - Cost of the turn, or infinity to forbid it.
+   * @throws IllegalArgumentException if a segment is not in the network or
+   * the tail of the first is not the head of the second.
+   */
+  public void setCost(final int from, final int onto, final double cost)
+  {
+    if(from < 0 || from >= this.net.getSegmentCount() || onto < 0 
+        || onto >= this.net.getSegmentCount())
+    {
+      throw new IllegalArgumentException("A turn needs two segments of the "
+          + "network.");
+    }
+    if(this.net.getSegment(from).getTail() != this.net.getSegment(onto).getHead())
+    {
+      throw new IllegalArgumentException("A turn must be made where the "
+          + "first segment ends and the second starts.");
+    }
+    if((this.count + 1) * 2 > this.keys.length) grow();
+
+    long key = key(from, onto);
+    int slot = find(key);
+    if(this.keys[slot] == EMPTY)
+    {
+      this.keys[slot] = key;
+      this.count++;
+    }
+    this.costs[slot] = cost;
+  }
+
+  /**
+   * Gets the cost of a turn by segment index.
+   * @param from - Index of the segment driven to the intersection.
+   * @param onto - Index of the segment driven away from it.
+   * @return - Cost of the turn, infinity if it is forbidden.
+   */
+  public double getCost(final int from, final int onto)
+  {
+    int slot = find(key(from, onto));
+    if(this.keys[slot] != EMPTY) return this.costs[slot];
+
+    if(this.net.getSegment(onto).getTail() == this.net.getSegment(from).getHead())
+    {
+      return this.uTurnCost;
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the amount of turns with a cost of their own.
+   * @return - Amount of turns in the table.
+   */
+  public int size()
+  {
+    return this.count;
+  }
+
+  private static long key(final int from, final int onto)
+  {
+    return ((long) from << 32) | (onto & 0xFFFFFFFFL);
+  }
+
+  private int find(final long key)
+  {
+    int mask = this.keys.length - 1;
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+    while(this.keys[slot] != EMPTY && this.keys[slot] != key)
+    {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow()
+  {
+    long[] oldKeys = this.keys;
+    double[] oldCosts = this.costs;
+    this.keys = new long[oldKeys.length * 2];
+    Arrays.fill(this.keys, EMPTY);
+    this.costs = new double[oldKeys.length * 2];
+    for(int i=0; i<oldKeys.length; i++)
+    {
+      if(oldKeys[i] == EMPTY) continue;
+
+      int slot = find(oldKeys[i]);
+      this.keys[slot] = oldKeys[i];
+      this.costs[slot] = oldCosts[i];
+    }
+  }
+}
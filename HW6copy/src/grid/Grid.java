@@ -170,6 +170,17 @@ public class Grid
     }
   }
   
+  /**
+   * Adds a street segment to a cell without checking that it crosses the
+   * cell, for cells that were filled in before.
+   * @param cell - Coordinates of the cell.
+   * @param seg - Segment to add.
+   */
+  public void addToCell(final GridTuple<Double, Double> cell, final StreetSegment seg)
+  {
+    this.grid.get(cell).add(seg);
+  }
+  
   /**
    * Fills in the grid based on the items in the elementMap.
    */
@@ -21,6 +21,7 @@ import feature.StreetSegment;
 import geography.MapProjection;
 import gps.GPGGASentence;
 import gps.GPSObserver;
+import graph.RerouteEngine;
 import grid.Grid;
 import grid.GridTuple;
 import matching.MapMatchingFactory;
@@ -41,7 +42,7 @@ public class DynamicCartographyPanel<T> extends CartographyPanel<T>
   private Grid grid;
   private ArrayList<Path2D.Double> gridLines;
   private Queue<Point2D.Double> inertia;
-  private Map<String, Map<String, T>> allPaths;
+  private RerouteEngine reroute;
   private Map<String, T> path;
   private int intertiaReset;
   private int reCalcReset;
@@ -52,12 +53,12 @@ public class DynamicCartographyPanel<T> extends CartographyPanel<T>
    * @param cartographer - Cartographer used to make the conversion calculations.
    * @param proj - Projection used.
    * @param grid - Grid that has all related street segments.
-   * @param allPaths - All paths to dest.
+   * @param reroute - Gives the path to dest from any segment.
    * @param path - Current path following to dest.
    */
   public DynamicCartographyPanel(final CartographyDocument<T> model, 
       final Cartographer<T> cartographer, final MapProjection proj, 
-      final Grid grid, final Map<String, Map<String, T>> allPaths,
+      final Grid grid, final RerouteEngine reroute,
       final Map<String, T> path)
   {
     super(model, cartographer);
@@ -65,7 +66,7 @@ public class DynamicCartographyPanel<T> extends CartographyPanel<T>
     this.grid = grid;
     this.gridLines = new ArrayList<>();
     this.inertia = new LinkedList<>();
-    this.allPaths = allPaths;
+    this.reroute = reroute;
     this.path = path;
     this.intertiaReset = 0;
     this.reCalcReset = 0;
@@ -210,17 +211,17 @@ public class DynamicCartographyPanel<T> extends CartographyPanel<T>
       {
         this.reCalcReset += 1;
       }
-      if(this.reCalcReset == 40)
+      if(this.reCalcReset >= 40 && this.reroute.isReady())
       {
-        this.path = this.allPaths.get(bestSeg.getID());
+        this.path = getReroutePath(bestSeg);
         this.reCalcReset = 0;
       }
     }
     else
     {
-      if(!this.allPaths.isEmpty() && this.path == null)
+      if(this.reroute.isReady() && this.path == null)
       {
-        this.path = this.allPaths.get(bestSeg.getID());
+        this.path = getReroutePath(bestSeg);
       }
       this.reCalcReset = 0;
     }
@@ -257,4 +258,17 @@ public class DynamicCartographyPanel<T> extends CartographyPanel<T>
     g2.fillOval((int)(screenPoint.getX() - radius), 
         (int)(screenPoint.getY() - radius), diameter, diameter);
   }
+
+  /**
+   * Gets the path from the segment the vehicle is on to the destination.
+   * @param segment - Segment the vehicle is on.
+   * @return - The path, or null if there is none or the tree is not built.
+   */
+  private Map<String, T> getReroutePath(final StreetSegment segment)
+  {
+    // The panel is only ever made for street segments, so T is StreetSegment
+    @SuppressWarnings("unchecked")
+    Map<String, T> reroutePath = (Map<String, T>) this.reroute.getPath(segment);
+    return reroutePath;
+  }
 }
@@ -0,0 +1,279 @@
+package dataprocessing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.geom.PathIterator;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import feature.Street;
+import feature.StreetSegment;
+import geography.ConicalEqualAreaProjection;
+import geography.GeographicShape;
+import geography.MapProjection;
+import geography.SinusoidalProjection;
+import graph.StreetNetwork;
+import grid.GridTuple;
+
+/**
+ * Checks that a snapshot reads back everything the text files build, and
+ * that it is only read back for the files and projection it was made with.
+ * @author Jerome Donfack
+ *
+ */
+public class MapSnapshotTest
+{
+  private static final MapProjection PROJ = 
+      new ConicalEqualAreaProjection(-96.0, 37.5, 29.5, 45.5);
+
+  @TempDir
+  File folder;
+
+  private File geoFile;
+  private File strFile;
+  private File file;
+
+  /**
+   * Writes the text files of a small grid of streets, with a polygon and
+   * a comment among the shapes and intersections numbered out of order.
+   * @throws IOException
+   */
+  @BeforeEach
+  public void writeMap() throws IOException
+  {
+    this.geoFile = new File(this.folder, "streets.geo");
+    this.strFile = new File(this.folder, "streets.str");
+    this.file = new File(this.folder, "streets.map");
+
+    int width = 8;
+    int height = 6;
+    Random random = new Random(3);
+    try (PrintWriter geo = new PrintWriter(this.geoFile);
+        PrintWriter str = new PrintWriter(this.strFile))
+    {
+      geo.println("X Comment X note");
+      geo.println("Made for the test");
+      geo.println("X Polygon X county");
+      geo.println("-78.9 38.4");
+      geo.println("-78.8 38.4");
+      geo.println("-78.8 38.5");
+      geo.println("-78.9 38.4");
+      geo.println("END");
+      int count = 0;
+      for(int node=0; node<width * height; node++)
+      {
+        int[] neighbors = {node % width + 1 < width ? node + 1 : -1,
+            node / width + 1 < height ? node + width : -1};
+        for(int neighbor : neighbors)
+        {
+          if(neighbor == -1 || random.nextDouble() < 0.1) continue;
+
+          int direction = random.nextInt(3);
+          for(int k=0; k<2; k++)
+          {
+            if(k == 0 ? direction == 1 : direction == 0) continue;
+
+            int tail = k == 0 ? node : neighbor;
+            int head = k == 0 ? neighbor : node;
+            String id = "seg" + count++;
+            geo.println("X PiecewiseLinearCurve X " + id);
+            geo.println(getLongitude(head, width) + " " + getLatitude(head, width));
+            geo.println((getLongitude(head, width) + getLongitude(tail, width)) / 2 + 0.0003 
+                + " " + (getLatitude(head, width) + getLatitude(tail, width)) / 2);
+            geo.println(getLongitude(tail, width) + " " + getLatitude(tail, width));
+            geo.println("END");
+            str.println((tail * 7 + 5) + "\t" + (head * 7 + 5) + "\t" 
+                + (0.2 + random.nextDouble()) + "\tA4\t" + id + "\t" 
+                + (random.nextBoolean() ? "N" : " ") + "\tMain" + random.nextInt(5) 
+                + "\tST\t \t" + (100 + 2 * random.nextInt(50)) + "\t" 
+                + (200 + 2 * random.nextInt(50)));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A snapshot reads back the same shapes, segments, streets, grid and
+   * network as building from the text files.
+   * @throws IOException
+   */
+  @Test
+  public void readsBackWhatWasWritten() throws IOException
+  {
+    MapSnapshot expected = MapSnapshot.loadOrCreate(this.file, this.geoFile, this.strFile, PROJ);
+    MapSnapshot snapshot = MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ);
+    assertNotNull(snapshot);
+
+    int shapes = 0;
+    for(GeographicShape shape : expected.getShapes())
+    {
+      GeographicShape read = snapshot.getShapes().getElement(shape.getId());
+      assertEquals(shape.getClass(), read.getClass());
+      assertEquals(getPoints(shape), getPoints(read), shape.getId());
+      shapes++;
+    }
+    assertEquals(shapes, getSize(snapshot.getShapes()));
+    assertEquals(expected.getShapes().getBounds(), snapshot.getShapes().getBounds());
+
+    int segments = 0;
+    for(StreetSegment segment : expected.getDocument())
+    {
+      StreetSegment read = snapshot.getDocument().getElement(segment.getID());
+      assertEquals(segment.getCode(), read.getCode());
+      assertEquals(segment.getTail(), read.getTail());
+      assertEquals(segment.getHead(), read.getHead());
+      assertEquals(segment.getLength(), read.getLength());
+      assertEquals(segment.getLowaddress(), read.getLowaddress());
+      assertEquals(segment.getHighaddress(), read.getHighaddress());
+      assertEquals(segment.getparentCanonicalName(), read.getparentCanonicalName());
+      assertEquals(segment.getHeadPoint(), read.getHeadPoint());
+      assertEquals(segment.getTailPoint(), read.getTailPoint());
+      assertSame(snapshot.getShapes().getElement(segment.getID()), read.getGeographicShape());
+      segments++;
+    }
+    assertEquals(segments, getSize(snapshot.getDocument()));
+
+    assertEquals(expected.getStreets().keySet(), snapshot.getStreets().keySet());
+    for(Street street : expected.getStreets().values())
+    {
+      Street read = snapshot.getStreets().get(street.getID());
+      assertEquals(street.getCode(), read.getCode());
+      assertEquals(getIDs(street.getSgements()), getIDs(read.getSgements()));
+    }
+
+    Map<GridTuple<Double, Double>, Set<String>> cells = getCells(expected);
+    assertEquals(cells, getCells(snapshot));
+    for(HashSet<StreetSegment> cell : snapshot.getGrid().getGrid().values())
+    {
+      for(StreetSegment segment : cell)
+      {
+        assertSame(snapshot.getDocument().getElement(segment.getID()), segment);
+      }
+    }
+
+    StreetNetwork net = expected.getNetwork();
+    StreetNetwork readNet = snapshot.getNetwork();
+    assertEquals(net.size(), readNet.size());
+    assertEquals(net.getSegmentCount(), readNet.getSegmentCount());
+    for(int i=0; i<net.size(); i++)
+    {
+      assertEquals(net.getOriginalID(i), readNet.getOriginalID(i));
+    }
+    for(int i=0; i<net.getSegmentCount(); i++)
+    {
+      StreetSegment segment = readNet.getSegment(i);
+      assertEquals(net.getSegment(i).getID(), segment.getID());
+      assertEquals(net.getSegment(i).getTail(), segment.getTail());
+      assertEquals(net.getSegment(i).getHead(), segment.getHead());
+      assertSame(snapshot.getDocument().getElement(segment.getID()), segment);
+    }
+  }
+
+  /**
+   * A snapshot made with another projection, or from text files changed
+   * since, is not read back.
+   * @throws IOException
+   */
+  @Test
+  public void staleSnapshotIsNotRead() throws IOException
+  {
+    assertNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ));
+    MapSnapshot.loadOrCreate(this.file, this.geoFile, this.strFile, PROJ);
+    assertNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, 
+        new SinusoidalProjection()));
+
+    this.strFile.setLastModified(this.strFile.lastModified() + 5000);
+    assertNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ));
+    MapSnapshot.loadOrCreate(this.file, this.geoFile, this.strFile, PROJ);
+    assertNotNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ));
+  }
+
+  /**
+   * A snapshot cut short is built again from the text files.
+   * @throws IOException
+   */
+  @Test
+  public void damagedSnapshotIsBuiltAgain() throws IOException
+  {
+    MapSnapshot.loadOrCreate(this.file, this.geoFile, this.strFile, PROJ);
+    long length = this.file.length();
+    try (RandomAccessFile out = new RandomAccessFile(this.file, "rw"))
+    {
+      out.setLength(length / 2);
+    }
+    assertNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ));
+
+    MapSnapshot.loadOrCreate(this.file, this.geoFile, this.strFile, PROJ);
+    assertEquals(length, this.file.length());
+    assertNotNull(MapSnapshot.read(this.file, this.geoFile, this.strFile, PROJ));
+  }
+
+  private static double getLongitude(final int node, final int width)
+  {
+    return -78.9 + (node % width) * 0.002;
+  }
+
+  private static double getLatitude(final int node, final int width)
+  {
+    return 38.4 + (node / width) * 0.002;
+  }
+
+  private static List<Double> getPoints(final GeographicShape shape)
+  {
+    List<Double> points = new ArrayList<>();
+    double[] coords = new double[6];
+    for(PathIterator it = shape.getShape().getPathIterator(null); !it.isDone(); it.next())
+    {
+      if(it.currentSegment(coords) == PathIterator.SEG_CLOSE) continue;
+      points.add(coords[0]);
+      points.add(coords[1]);
+    }
+    return points;
+  }
+
+  private static List<String> getIDs(final Iterator<StreetSegment> segments)
+  {
+    List<String> ids = new ArrayList<>();
+    while(segments.hasNext()) ids.add(segments.next().getID());
+    return ids;
+  }
+
+  private static int getSize(final Iterable<?> elements)
+  {
+    int size = 0;
+    for(Iterator<?> it = elements.iterator(); it.hasNext(); it.next()) size++;
+    return size;
+  }
+
+  private static Map<GridTuple<Double, Double>, Set<String>> getCells(
+      final MapSnapshot snapshot)
+  {
+    Map<GridTuple<Double, Double>, Set<String>> cells = new HashMap<>();
+    for(Map.Entry<GridTuple<Double, Double>, HashSet<StreetSegment>> entry 
+        : snapshot.getGrid().getGrid().entrySet())
+    {
+      Set<String> ids = new HashSet<>();
+      for(StreetSegment segment : entry.getValue()) ids.add(segment.getID());
+      cells.put(entry.getKey(), ids);
+    }
+    return cells;
+  }
+}
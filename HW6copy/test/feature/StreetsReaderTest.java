@@ -0,0 +1,188 @@
+package feature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import geography.GeographicShape;
+import geography.PiecewiseLinearCurve;
+import grid.Grid;
+import gui.CartographyDocument;
+
+/**
+ * Checks that reading the street file in parallel chunks gives the same
+ * segments and streets as reading its lines one after another and splitting
+ * them on tabs.
+ * @author Jerome Donfack
+ *
+ */
+public class StreetsReaderTest
+{
+  private static final int LINES = 12000;
+
+  @TempDir
+  File folder;
+
+  /**
+   * A file of many chunks, with CR LF line ends, blank and empty fields,
+   * blank addresses and lines missing fields, reads like the lines one
+   * after another.
+   * @throws IOException
+   */
+  @Test
+  public void chunksReadLikeLines() throws IOException
+  {
+    Random random = new Random(4);
+    Map<String, GeographicShape> shapeMap = new HashMap<>();
+    StringBuilder text = new StringBuilder();
+    for(int i=0; i<LINES; i++)
+    {
+      String id = "seg" + i;
+      PiecewiseLinearCurve curve = new PiecewiseLinearCurve(id);
+      curve.add(new double[] {random.nextDouble(), random.nextDouble()});
+      curve.add(new double[] {random.nextDouble(), random.nextDouble()});
+      shapeMap.put(id, curve);
+
+      String prefix = random.nextBoolean() ? "N" : " ";
+      // An empty field merges with the tab after it, so the line is one
+      // field short
+      String name = random.nextInt(50) == 0 ? "" 
+          : random.nextInt(20) == 0 ? " " : "Main" + random.nextInt(40);
+      String low = random.nextInt(10) == 0 ? " " : Integer.toString(100 + random.nextInt(900));
+      String high = random.nextInt(10) == 0 ? " " 
+          : random.nextInt(10) == 0 ? "12A" : Integer.toString(100 + random.nextInt(900));
+      text.append(random.nextInt(5000)).append('\t').append(random.nextInt(5000))
+          .append('\t').append(random.nextDouble()).append("\tA4\t").append(id)
+          .append('\t').append(prefix).append('\t').append(name).append("\tST\t \t")
+          .append(low).append('\t').append(high);
+      text.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+    }
+    CartographyDocument<GeographicShape> shapes = new CartographyDocument<>(shapeMap,
+        new Rectangle2D.Double(0, 0, 1, 1));
+
+    Map<String, Street> expectedStreets = new HashMap<>();
+    Map<String, StreetSegment> expected = readLines(text.toString(), shapes, expectedStreets);
+    assertTrue(expected.size() > LINES * 9 / 10 && expected.size() < LINES);
+
+    File file = new File(this.folder, "streets.str");
+    Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.US_ASCII));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      Map<String, Street> streets = new HashMap<>();
+      CartographyDocument<StreetSegment> document = 
+          new StreetsReader(file, shapes, pool).read(streets, new Grid());
+      assertSameSegments(expected, expectedStreets, document, streets);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+
+    Map<String, Street> streets = new HashMap<>();
+    CartographyDocument<StreetSegment> document = new StreetsReader(new ByteArrayInputStream(
+        text.toString().getBytes(StandardCharsets.US_ASCII)), shapes).read(streets, new Grid());
+    assertSameSegments(expected, expectedStreets, document, streets);
+  }
+
+  private static void assertSameSegments(final Map<String, StreetSegment> expected,
+      final Map<String, Street> expectedStreets,
+      final CartographyDocument<StreetSegment> document, final Map<String, Street> streets)
+  {
+    int count = 0;
+    for(Iterator<StreetSegment> it = document.iterator(); it.hasNext(); it.next()) count++;
+    assertEquals(expected.size(), count);
+    for(StreetSegment segment : expected.values())
+    {
+      StreetSegment read = document.getElement(segment.getID());
+      assertEquals(segment.getTail(), read.getTail());
+      assertEquals(segment.getHead(), read.getHead());
+      assertEquals(segment.getLength(), read.getLength());
+      assertEquals(segment.getCode(), read.getCode());
+      assertEquals(segment.getLowaddress(), read.getLowaddress());
+      assertEquals(segment.getHighaddress(), read.getHighaddress());
+      assertEquals(segment.getparentCanonicalName(), read.getparentCanonicalName());
+      assertSame(segment.getGeographicShape(), read.getGeographicShape());
+    }
+
+    assertEquals(expectedStreets.keySet(), streets.keySet());
+    for(Street street : expectedStreets.values())
+    {
+      Street read = streets.get(street.getID());
+      assertEquals(street.getPrefix(), read.getPrefix());
+      assertEquals(street.getName(), read.getName());
+      assertEquals(street.getCategory(), read.getCategory());
+      assertEquals(street.getCode(), read.getCode());
+      assertEquals(getIDs(street.getSgements()), getIDs(read.getSgements()));
+    }
+  }
+
+  /**
+   * Reads the lines one after another, splitting them on runs of tabs, and
+   * skips the lines with fewer than eleven fields.
+   */
+  private static Map<String, StreetSegment> readLines(final String text,
+      final CartographyDocument<GeographicShape> shapes, final Map<String, Street> streets)
+      throws IOException
+  {
+    Map<String, StreetSegment> elementMap = new HashMap<>();
+    BufferedReader in = new BufferedReader(new StringReader(text));
+    String line;
+    while((line = in.readLine()) != null)
+    {
+      String[] words = line.split("\\t+");
+      if(words.length < 11) continue;
+
+      String prefix = words[5].trim();
+      String name = words[6].trim();
+      String type = words[7].trim();
+      String suffix = words[8].trim();
+      int tailAddress = getAddress(words[9]);
+      int headAddress = getAddress(words[10]);
+      String canonicalName = Street.createCanonicalName(prefix, name, type, suffix);
+      StreetSegment seg = new StreetSegment(words[4].trim(), words[3].trim(),
+          shapes.getElement(words[4].trim()), Math.min(tailAddress, headAddress),
+          Math.max(tailAddress, headAddress), Integer.parseInt(words[0].trim()),
+          Integer.parseInt(words[1].trim()), Double.parseDouble(words[2].trim()),
+          canonicalName);
+      elementMap.put(seg.getID(), seg);
+      if(!canonicalName.isEmpty())
+      {
+        streets.computeIfAbsent(canonicalName,
+            k -> new Street(prefix, name, type, suffix, seg.getCode())).addSegment(seg);
+      }
+    }
+    return elementMap;
+  }
+
+  private static int getAddress(final String word)
+  {
+    return word.trim().isEmpty() ? -1 : Integer.parseInt(word.trim().replaceAll("\\D", ""));
+  }
+
+  private static List<String> getIDs(final Iterator<StreetSegment> segments)
+  {
+    List<String> ids = new ArrayList<>();
+    while(segments.hasNext()) ids.add(segments.next().getID());
+    return ids;
+  }
+}
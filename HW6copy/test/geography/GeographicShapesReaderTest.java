@@ -0,0 +1,202 @@
+package geography;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.geom.PathIterator;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gui.CartographyDocument;
+
+/**
+ * Checks that the byte scanning reader reads shapes like splitting every
+ * line on whitespace and parsing the words with Double.parseDouble did.
+ * @author Jerome Donfack
+ *
+ */
+public class GeographicShapesReaderTest
+{
+  private static final MapProjection PROJ = 
+      new ConicalEqualAreaProjection(-96.0, 37.5, 29.5, 45.5);
+
+  // The comment block hides a header, a leading blank pushes the type of
+  // a header to its second word, and a Rectangle is no known type
+  private static final String SHAPES = 
+      "X Comment X note\r\n"
+      + "X Polygon X hidden\r\n"
+      + "X PiecewiseLinearCurve X curve\r\n"
+      + "-78.9 38.4\r\n"
+      + "  -7.89E1\t3.845e+1\r\n"
+      + "-78.85 38.450000000000000000001\r\n"
+      + "+78.123456789012345 -0.5\r\n"
+      + "END\r\n"
+      + " X Polygon X shifted\r\n"
+      + "-78.9 38.4\r\n"
+      + "END\r\n"
+      + "X Rectangle X box\n"
+      + "1 2\n"
+      + "END\n"
+      + "X polygon X county\n"
+      + "-78.9 38.4\n"
+      + "\t-78.8  38.4 \n"
+      + "-78.8 38.5\n"
+      + "-78.9 38.4\n"
+      + "END";
+
+  @TempDir
+  File folder;
+
+  /**
+   * Shapes read from a stream and from a mapped file both have the points
+   * of the split lines, and only the known types are kept.
+   * @throws IOException
+   */
+  @Test
+  public void readsLikeSplitLines() throws IOException
+  {
+    File file = new File(this.folder, "shapes.geo");
+    Files.write(file.toPath(), SHAPES.getBytes(StandardCharsets.US_ASCII));
+    assertShapes(new GeographicShapesReader(new ByteArrayInputStream(
+        SHAPES.getBytes(StandardCharsets.US_ASCII)), PROJ).read());
+    assertShapes(new GeographicShapesReader(file, PROJ).read());
+  }
+
+  /**
+   * Coordinates of every length, with and without a sign, a point or an
+   * exponent, parse to the same doubles as Double.parseDouble gives.
+   */
+  @Test
+  public void parsesLikeDoubleParseDouble()
+  {
+    Random random = new Random(5);
+    List<Double> expected = new ArrayList<>();
+    StringBuilder text = new StringBuilder("X PiecewiseLinearCurve X numbers\n");
+    for(int i=0; i<4000; i++)
+    {
+      String number = createNumber(random);
+      expected.add(Double.parseDouble(number));
+      text.append(number).append(i % 2 == 0 ? " " : "\n");
+    }
+    text.append("END\n");
+
+    GeographicShape numbers = new GeographicShapesReader(new ByteArrayInputStream(
+        text.toString().getBytes(StandardCharsets.US_ASCII)), new IdentityProjection())
+        .read().getElement("numbers");
+    assertEquals(expected, getPoints(numbers));
+  }
+
+  private static String createNumber(final Random random)
+  {
+    StringBuilder number = new StringBuilder();
+    int sign = random.nextInt(3);
+    if(sign > 0) number.append(sign == 1 ? '-' : '+');
+    int digits = 1 + random.nextInt(24);
+    int point = random.nextInt(digits + 2);
+    for(int i=0; i<digits; i++)
+    {
+      if(i == point) number.append('.');
+      number.append((char) ('0' + random.nextInt(10)));
+    }
+    if(point == digits) number.append('.');
+    if(random.nextInt(8) == 0) number.append('e').append(random.nextInt(40) - 20);
+    return number.toString();
+  }
+
+  private static void assertShapes(final CartographyDocument<GeographicShape> shapes)
+  {
+    GeographicShape curve = shapes.getElement("curve");
+    assertEquals(PiecewiseLinearCurve.class, curve.getClass());
+    assertEquals(getPoints("-78.9 38.4", "  -7.89E1\t3.845e+1", 
+        "-78.85 38.450000000000000000001", "+78.123456789012345 -0.5"), getPoints(curve));
+
+    GeographicShape county = shapes.getElement("county");
+    assertEquals(Polygon.class, county.getClass());
+    assertEquals(getPoints("-78.9 38.4", "\t-78.8  38.4 ", "-78.8 38.5", "-78.9 38.4"),
+        getPoints(county));
+
+    assertNull(shapes.getElement("note"));
+    assertNull(shapes.getElement("hidden"));
+    assertNull(shapes.getElement("shifted"));
+    assertNull(shapes.getElement("box"));
+    int count = 0;
+    for(Iterator<GeographicShape> it = shapes.iterator(); it.hasNext(); it.next()) count++;
+    assertEquals(2, count);
+  }
+
+  /**
+   * Projects lines of coordinates the way the reader used to, by splitting
+   * them on whitespace.
+   */
+  private static List<Double> getPoints(final String... lines)
+  {
+    List<Double> points = new ArrayList<>();
+    for(String line : lines)
+    {
+      String[] words = line.trim().split("\\s+");
+      double[] point = PROJ.forward(new double[] {Double.parseDouble(words[0]),
+          Double.parseDouble(words[1])});
+      points.add(point[0]);
+      points.add(point[1]);
+    }
+    return points;
+  }
+
+  private static List<Double> getPoints(final GeographicShape shape)
+  {
+    List<Double> points = new ArrayList<>();
+    double[] coords = new double[6];
+    for(PathIterator it = shape.getShape().getPathIterator(null); !it.isDone(); it.next())
+    {
+      if(it.currentSegment(coords) == PathIterator.SEG_CLOSE) continue;
+      points.add(coords[0]);
+      points.add(coords[1]);
+    }
+    return points;
+  }
+
+  /**
+   * Leaves the coordinates as they are read.
+   */
+  private static class IdentityProjection implements MapProjection
+  {
+    @Override
+    public double[] forward(final double[] ll)
+    {
+      return ll.clone();
+    }
+
+    @Override
+    public double[] forward(final double lambda, final double phi)
+    {
+      return new double[] {lambda, phi};
+    }
+
+    @Override
+    public void forward(final double[] xs, final double[] ys, final int count)
+    {
+    }
+
+    @Override
+    public double[] inverse(final double[] km)
+    {
+      return km.clone();
+    }
+
+    @Override
+    public double[] inverse(final double ew, final double ns)
+    {
+      return new double[] {ew, ns};
+    }
+  }
+}
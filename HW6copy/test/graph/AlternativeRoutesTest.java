@@ -0,0 +1,126 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks the alternative routes on grids with one way streets.
+ * @author Jerome Donfack
+ *
+ */
+public class AlternativeRoutesTest
+{
+  /**
+   * Every route is driven from the origin to the destination without
+   * visiting an intersection twice, the first one is a shortest route, and
+   * no route is shorter than the one before it.
+   */
+  @Test
+  public void routesAreLooplessAndSorted()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 17);
+    AlternativeRoutes alternatives = new AlternativeRoutes(net);
+    ShortestPathAlgorithm shortest = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()));
+    Random random = new Random(4);
+    int offered = 0;
+    for(int i=0; i<60; i++)
+    {
+      int origin = random.nextInt(net.size());
+      int destination = random.nextInt(net.size());
+      if(origin == destination) continue;
+
+      List<Map<String, StreetSegment>> routes = alternatives.findPaths(origin, destination, 3);
+      Map<String, StreetSegment> expected = shortest.findPath(origin, destination, net, null);
+      assertEquals(expected.isEmpty(), routes.isEmpty());
+      if(routes.isEmpty()) continue;
+
+      assertEquals(TestNetworks.getLength(expected), TestNetworks.getLength(routes.get(0)), 1e-9);
+      double last = 0;
+      for(Map<String, StreetSegment> route : routes)
+      {
+        TestNetworks.assertRoute(origin, destination, route);
+        Set<Integer> visited = new HashSet<>();
+        visited.add(origin);
+        for(StreetSegment segment : route.values())
+        {
+          assertTrue(visited.add(segment.getTail()), "route visits " + segment.getTail() + " twice");
+        }
+        assertTrue(TestNetworks.getLength(route) >= last - 1e-9);
+        last = TestNetworks.getLength(route);
+      }
+      offered += routes.size();
+    }
+    assertTrue(offered > 60);
+  }
+
+  /**
+   * Allowing any overlap, the routes are the k shortest loopless routes,
+   * which only holds when every spur is kept off the ways already taken.
+   */
+  @Test
+  public void plainRoutesAreTheShortest()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(4, 4, 2);
+    AlternativeRoutes alternatives = new AlternativeRoutes(net);
+    alternatives.setMaximumOverlap(1);
+    for(int origin=0; origin<net.size(); origin++)
+    {
+      for(int destination=0; destination<net.size(); destination++)
+      {
+        if(origin == destination) continue;
+
+        List<Double> lengths = new ArrayList<>();
+        enumerate(net, origin, destination, new HashSet<>(), 0, lengths);
+        Collections.sort(lengths);
+        List<Map<String, StreetSegment>> routes = alternatives.findPaths(origin, destination, 6);
+        assertEquals(Math.min(6, lengths.size()), routes.size(), origin + " to " + destination);
+        for(int i=0; i<routes.size(); i++)
+        {
+          TestNetworks.assertRoute(origin, destination, routes.get(i));
+          assertEquals(lengths.get(i), TestNetworks.getLength(routes.get(i)), 1e-9);
+          for(int j=0; j<i; j++)
+          {
+            assertNotEquals(routes.get(j).keySet(), routes.get(i).keySet());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the length of every loopless route from a node to the destination.
+   */
+  private static void enumerate(final StreetNetwork net, final int node,
+      final int destination, final Set<Integer> visited, final double length,
+      final List<Double> lengths)
+  {
+    if(node == destination)
+    {
+      lengths.add(length);
+      return;
+    }
+    visited.add(node);
+    for(StreetSegment segment : net.getIntersection(node).getInbound())
+    {
+      if(visited.contains(segment.getTail())) continue;
+
+      enumerate(net, segment.getTail(), destination, visited, length + segment.getLength(),
+          lengths);
+    }
+    visited.remove(node);
+  }
+}
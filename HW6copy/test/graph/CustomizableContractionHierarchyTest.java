@@ -0,0 +1,83 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks that customizing the hierarchy changes the routes it finds.
+ * @author Jerome Donfack
+ *
+ */
+public class CustomizableContractionHierarchyTest
+{
+  /**
+   * Closing the segments of routes with an infinite weight makes the
+   * hierarchy route around them, and giving them back their lengths brings
+   * the old routes back.
+   */
+  @Test
+  public void closedSegmentsAreAvoided()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 21);
+    CustomizableContractionHierarchy hierarchy = CustomizableContractionHierarchy.create(net);
+    ShortestPathAlgorithm alg = new CustomizableContractionHierarchyAlgorithm(hierarchy);
+    Random random = new Random(5);
+    int[] origins = new int[20];
+    int[] destinations = new int[origins.length];
+    List<StreetSegment> closing = new ArrayList<>();
+    Set<String> closed = new HashSet<>();
+    for(int i=0; i<origins.length; i++)
+    {
+      origins[i] = random.nextInt(net.size());
+      destinations[i] = random.nextInt(net.size());
+      for(StreetSegment segment : alg.findPath(origins[i], destinations[i], net, null).values())
+      {
+        if(i % 4 == 0 && closed.add(segment.getID())) closing.add(segment);
+      }
+    }
+    assertFalse(closing.isEmpty());
+
+    double[] infinite = new double[closing.size()];
+    Arrays.fill(infinite, Double.POSITIVE_INFINITY);
+    hierarchy.updateWeights(closing, infinite);
+    for(int i=0; i<origins.length; i++)
+    {
+      double distance = TestNetworks.getDistances(net, origins[i], closed)[destinations[i]];
+      Map<String, StreetSegment> path = alg.findPath(origins[i], destinations[i], net, null);
+      if(Double.isInfinite(distance))
+      {
+        assertTrue(path.isEmpty() || origins[i] == destinations[i]);
+        continue;
+      }
+      TestNetworks.assertRoute(origins[i], destinations[i], path);
+      for(String id : path.keySet()) assertFalse(closed.contains(id), id + " is closed");
+      assertEquals(distance, TestNetworks.getLength(path), 1e-9);
+    }
+
+    double[] lengths = new double[closing.size()];
+    for(int i=0; i<lengths.length; i++) lengths[i] = closing.get(i).getLength();
+    hierarchy.updateWeights(closing, lengths);
+    for(int i=0; i<origins.length; i++)
+    {
+      double distance = TestNetworks.getDistances(net, origins[i])[destinations[i]];
+      Map<String, StreetSegment> path = alg.findPath(origins[i], destinations[i], net, null);
+      if(Double.isInfinite(distance)) continue;
+
+      TestNetworks.assertRoute(origins[i], destinations[i], path);
+      assertEquals(distance, TestNetworks.getLength(path), 1e-9);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks the distance matrix against the label setting search on a grid
+ * with one way streets.
+ * @author Jerome Donfack
+ *
+ */
+public class DistanceMatrixTest
+{
+  /**
+   * Every distance and kept path is the one the label setting search finds
+   * for the same pair.
+   */
+  @Test
+  public void matchesLabelSetting()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 9);
+    int[] origins = {0, 17, 45, 80, 119};
+    int[] destinations = {3, 17, 60, 99, 101, 118};
+    DistanceMatrix matrix = DistanceMatrix.create(net, origins, destinations, true);
+
+    ShortestPathAlgorithm alg = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()));
+    for(int row=0; row<origins.length; row++)
+    {
+      for(int column=0; column<destinations.length; column++)
+      {
+        Map<String, StreetSegment> expected = alg.findPath(origins[row],
+            destinations[column], net, null);
+        Map<String, StreetSegment> path = matrix.getPath(row, column);
+        if(expected.isEmpty() && origins[row] != destinations[column])
+        {
+          assertTrue(Double.isInfinite(matrix.getDistance(row, column)));
+          continue;
+        }
+        TestNetworks.assertRoute(origins[row], destinations[column], path);
+        assertEquals(TestNetworks.getLength(expected), matrix.getDistance(row, column), 1e-9);
+        assertEquals(TestNetworks.getLength(expected), TestNetworks.getLength(path), 1e-9);
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the d-ary heap against an array of keys searched from end to end.
+ * @author Jerome Donfack
+ *
+ */
+public class IndexedHeapTest
+{
+  private static final int CAPACITY = 200;
+
+  /**
+   * Inserts, decreases, removals and clears in any order always leave the
+   * smallest key on top, for several arities.
+   */
+  @Test
+  public void keepsSmallestKeyOnTop()
+  {
+    for(int d : new int[] {2, 3, 4, 8})
+    {
+      IndexedHeap heap = new IndexedHeap(d, CAPACITY);
+      double[] keys = new double[CAPACITY];
+      Arrays.fill(keys, Double.NaN);
+      int size = 0;
+      Random random = new Random(d);
+      for(int i=0; i<20000; i++)
+      {
+        int id = random.nextInt(CAPACITY);
+        int operation = random.nextInt(10);
+        if(operation < 5)
+        {
+          // Keys are few, so equal keys are common
+          double key = random.nextInt(1000) / 4.0;
+          if(Double.isNaN(keys[id])) size++;
+          if(Double.isNaN(keys[id]) || key < keys[id]) keys[id] = key;
+          heap.insertOrDecrease(id, key);
+        }
+        else if(operation < 8 && size > 0)
+        {
+          double min = heap.getMinKey();
+          int minID = heap.peekMin();
+          assertEquals(minID, heap.removeMin());
+          assertEquals(keys[minID], min);
+          for(double key : keys) assertFalse(key < min);
+          keys[minID] = Double.NaN;
+          size--;
+        }
+        else if(operation < 9)
+        {
+          if(!Double.isNaN(keys[id])) size--;
+          keys[id] = Double.NaN;
+          heap.remove(id);
+        }
+        else if(random.nextInt(50) == 0)
+        {
+          Arrays.fill(keys, Double.NaN);
+          size = 0;
+          heap.clear();
+        }
+
+        assertEquals(size, heap.size());
+        assertEquals(size == 0, heap.isEmpty());
+        assertEquals(!Double.isNaN(keys[id]), heap.contains(id));
+        if(heap.contains(id)) assertEquals(keys[id], heap.getKey(id));
+      }
+      while(!heap.isEmpty())
+      {
+        double min = heap.getMinKey();
+        heap.removeMin();
+        assertTrue(heap.getMinKey() >= min);
+      }
+      assertEquals(Double.POSITIVE_INFINITY, heap.getMinKey());
+    }
+  }
+}
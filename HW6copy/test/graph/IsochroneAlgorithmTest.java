@@ -0,0 +1,56 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks the reachable region against driving distances.
+ * @author Jerome Donfack
+ *
+ */
+public class IsochroneAlgorithmTest
+{
+  /**
+   * A segment is reachable when it can be driven to its end within the
+   * budget, and partly reachable when only its start can be reached.
+   */
+  @Test
+  public void regionMatchesDrivingDistances()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 19);
+    IsochroneAlgorithm alg = new IsochroneAlgorithm(new PermanentLabelIndexedHeap(4, net.size()));
+    for(int origin : new int[] {0, 55, 119})
+    {
+      double budget = 0.6;
+      double[] distances = TestNetworks.getDistances(net, origin);
+      Isochrone isochrone = alg.findReachable(origin, budget, net);
+      int reached = 0;
+      for(int index=0; index<net.getSegmentCount(); index++)
+      {
+        StreetSegment segment = net.getSegment(index);
+        double start = distances[segment.getHead()];
+        if(start + segment.getLength() <= budget)
+        {
+          assertTrue(isochrone.getSegments().containsKey(segment.getID()), segment.getID());
+          reached++;
+        }
+        else if(start <= budget)
+        {
+          assertTrue(isochrone.getPartialSegments().containsKey(segment.getID()),
+              segment.getID());
+          assertEquals((budget - start) / segment.getLength(),
+              isochrone.getFraction(segment.getID()), 1e-9);
+        }
+        else
+        {
+          assertEquals(0, isochrone.getFraction(segment.getID()), 1e-9);
+        }
+      }
+      assertEquals(reached, isochrone.getSegments().size());
+    }
+  }
+}
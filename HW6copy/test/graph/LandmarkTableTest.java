@@ -0,0 +1,98 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the landmark distances and the file they are kept in.
+ * @author Jerome Donfack
+ *
+ */
+public class LandmarkTableTest
+{
+  @TempDir
+  File folder;
+
+  /**
+   * Landmark distances are driving distances, and the estimate never
+   * exceeds the distance it bounds.
+   */
+  @Test
+  public void distancesAreDriven()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(10, 8, 11);
+    LandmarkTable table = LandmarkTable.create(net, 4);
+    for(int i=0; i<table.size(); i++)
+    {
+      double[] from = TestNetworks.getDistances(net, table.getLandmark(i));
+      for(int node=0; node<net.size(); node++)
+      {
+        assertEquals(from[node], table.getDistanceFrom(i, node), 1e-9);
+        assertEquals(TestNetworks.getDistances(net, node)[table.getLandmark(i)],
+            table.getDistanceTo(i, node), 1e-9);
+      }
+    }
+
+    Random random = new Random(2);
+    for(int i=0; i<100; i++)
+    {
+      int origin = random.nextInt(net.size());
+      int destination = random.nextInt(net.size());
+      double distance = TestNetworks.getDistances(net, origin)[destination];
+      assertTrue(new LandmarkEstimator(table, destination).estimate(origin) <= distance + 1e-9);
+    }
+  }
+
+  /**
+   * A table kept for one network is not read back for another network of
+   * the same size.
+   */
+  @Test
+  public void fileBelongsToItsNetwork() throws IOException
+  {
+    StreetNetwork net = TestNetworks.createNetwork(10, 8, 11);
+    StreetNetwork other = TestNetworks.createNetwork(10, 8, 12);
+    assertEquals(net.size(), other.size());
+
+    File file = new File(this.folder, "streets.alt");
+    LandmarkTable.loadOrCreate(file, net, 4);
+    assertNotNull(LandmarkTable.read(file, net));
+    assertNull(LandmarkTable.read(file, other));
+  }
+
+  /**
+   * A missing or cut short file is made again, while a file that cannot be
+   * written is reported to the caller.
+   */
+  @Test
+  public void damagedFileIsRecomputed() throws IOException
+  {
+    StreetNetwork net = TestNetworks.createNetwork(10, 8, 11);
+    File file = new File(this.folder, "streets.alt");
+    assertNull(LandmarkTable.read(file, net));
+
+    LandmarkTable.loadOrCreate(file, net, 4);
+    long length = file.length();
+    try (RandomAccessFile out = new RandomAccessFile(file, "rw"))
+    {
+      out.setLength(length / 2);
+    }
+    assertNull(LandmarkTable.read(file, net));
+    LandmarkTable.loadOrCreate(file, net, 4);
+    assertEquals(length, file.length());
+
+    File unwritable = new File(new File(this.folder, "missing"), "streets.alt");
+    assertThrows(IOException.class, () -> LandmarkTable.loadOrCreate(unwritable, net, 4));
+  }
+}
@@ -0,0 +1,73 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks the reroute paths against the shortest path tree of the label
+ * setting search.
+ * @author Jerome Donfack
+ *
+ */
+public class RerouteEngineTest
+{
+  /**
+   * The path from an intersection is as long as its tree path, and the
+   * path from a segment is the segment followed by the tree path from its
+   * tail.
+   */
+  @Test
+  public void pathsMatchShortestPathTree() throws InterruptedException
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 23);
+    int destination = 64;
+    ShortestPathTree allPaths = new ShortestPathTree();
+    new LabelSettingAlgorithm(new PermanentLabelIndexedHeap(4, net.size()))
+        .findPath(0, destination, net, allPaths);
+
+    RerouteEngine reroute = new RerouteEngine(net, ForkJoinPool.commonPool());
+    reroute.setDestination(destination);
+    for(int i=0; i<500 && !reroute.isReady(); i++) Thread.sleep(10);
+
+    for(int node=0; node<net.size(); node++)
+    {
+      double distance = allPaths.getDistance(node);
+      Map<String, StreetSegment> path = reroute.getPath(node);
+      if(Double.isInfinite(distance))
+      {
+        assertNull(path);
+        continue;
+      }
+      TestNetworks.assertRoute(node, destination, path);
+      assertEquals(distance, reroute.getDistance(node), 1e-9);
+      assertEquals(TestNetworks.getLength(allPaths.getPath(node)), TestNetworks.getLength(path),
+          1e-9);
+    }
+
+    for(int index=0; index<net.getSegmentCount(); index++)
+    {
+      StreetSegment segment = net.getSegment(index);
+      Map<String, StreetSegment> path = reroute.getPath(segment);
+      double distance = allPaths.getDistance(segment.getTail());
+      if(Double.isInfinite(distance))
+      {
+        assertNull(path);
+        continue;
+      }
+      List<StreetSegment> segments = new ArrayList<>(path.values());
+      assertSame(segment, segments.get(0));
+      TestNetworks.assertRoute(segment.getHead(), destination, path);
+      assertEquals(segment.getLength() + distance, TestNetworks.getLength(path), 1e-9);
+    }
+  }
+}
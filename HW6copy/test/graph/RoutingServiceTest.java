@@ -0,0 +1,58 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks that the routing service answers single routes and distance
+ * matrices the same way.
+ * @author Jerome Donfack
+ *
+ */
+public class RoutingServiceTest
+{
+  /**
+   * Every pair of the matrix has the distance and path of the route the
+   * service finds for it.
+   */
+  @Test
+  public void matrixMatchesRoutes()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 4);
+    RoutingService service = new RoutingService(net);
+    int[] origins = {1, 30, 57, 88, 110, 119};
+    int[] destinations = {5, 44, 57, 73, 116};
+    DistanceMatrix matrix = service.createDistanceMatrix(origins, destinations, true);
+
+    int[] pairOrigins = new int[origins.length * destinations.length];
+    int[] pairDestinations = new int[pairOrigins.length];
+    for(int i=0; i<pairOrigins.length; i++)
+    {
+      pairOrigins[i] = origins[i / destinations.length];
+      pairDestinations[i] = destinations[i % destinations.length];
+    }
+    List<Map<String, StreetSegment>> paths = service.findPaths(pairOrigins, pairDestinations);
+
+    for(int i=0; i<paths.size(); i++)
+    {
+      int row = i / destinations.length;
+      int column = i % destinations.length;
+      Map<String, StreetSegment> path = paths.get(i);
+      if(path.isEmpty() && pairOrigins[i] != pairDestinations[i])
+      {
+        assertTrue(Double.isInfinite(matrix.getDistance(row, column)));
+        continue;
+      }
+      TestNetworks.assertRoute(pairOrigins[i], pairDestinations[i], path);
+      assertEquals(TestNetworks.getLength(path), matrix.getDistance(row, column), 1e-9);
+      assertEquals(path.keySet(), matrix.getPath(row, column).keySet());
+    }
+  }
+}
@@ -0,0 +1,347 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks every shortest path algorithm against the label setting search on
+ * a grid with one way streets, where a route driven the wrong way round
+ * either does not exist or has another length.
+ * @author Jerome Donfack
+ *
+ */
+public class ShortestPathAlgorithmTest
+{
+  private static final int PAIRS = 300;
+  private static final StreetNetwork NET = TestNetworks.createNetwork(14, 12, 5);
+
+  /**
+   * Label setting routes are driven from head to tail and as long as the
+   * plain Dijkstra distances.
+   */
+  @Test
+  public void labelSettingMatchesDijkstra()
+  {
+    ShortestPathAlgorithm alg = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, NET.size()));
+    Random random = new Random(3);
+    int reached = 0;
+    for(int i=0; i<PAIRS; i++)
+    {
+      int origin = random.nextInt(NET.size());
+      int destination = random.nextInt(NET.size());
+      double distance = TestNetworks.getDistances(NET, origin)[destination];
+      Map<String, StreetSegment> path = alg.findPath(origin, destination, NET, null);
+      if(Double.isInfinite(distance))
+      {
+        assertTrue(path.isEmpty());
+        continue;
+      }
+      TestNetworks.assertRoute(origin, destination, path);
+      assertEquals(distance, TestNetworks.getLength(path), 1e-9);
+      reached++;
+    }
+    assertTrue(reached > PAIRS / 2);
+  }
+
+  /**
+   * Heaps of any arity give routes as long as those of the 4-ary heap.
+   */
+  @Test
+  public void indexedHeapAritiesMatch()
+  {
+    for(int d : new int[] {2, 3, 8})
+    {
+      assertSameLengths(net -> new LabelSettingAlgorithm(
+          new PermanentLabelIndexedHeap(d, net.size())));
+    }
+  }
+
+  /**
+   * Every label manager reused from one query to the next, with early
+   * termination leaving the labels of the last search half done, finds
+   * the same routes as a fresh search.
+   */
+  @Test
+  public void reusedLabelsMatchLabelSetting()
+  {
+    for(Function<StreetNetwork, PermanentLabelManager> labels : 
+        List.<Function<StreetNetwork, PermanentLabelManager>>of(
+        net -> new PermanentLabelList(net.size()),
+        net -> new PermanentLabelHeap(4, net.size()),
+        net -> new PermanentLabelBuckets(net),
+        net -> new PermanentLabelIndexedHeap(2, net.size())))
+    {
+      assertSameLengths(net -> {
+        ShortestPathAlgorithm alg = new LabelSettingAlgorithm(labels.apply(net));
+        alg.setEarlyTermination(true);
+        return alg;
+      });
+    }
+  }
+
+  /**
+   * The tree of all paths to a destination holds, for every intersection
+   * with a route, the route a search from it finds under the ID of its
+   * first segment, and the driving distance.
+   */
+  @Test
+  public void treeMatchesEagerPaths()
+  {
+    for(ShortestPathAlgorithm alg : new ShortestPathAlgorithm[] {
+        new LabelSettingAlgorithm(new PermanentLabelIndexedHeap(4, NET.size())),
+        new LabelCorrectingAlgorithm(CandidateLabelList.OLDEST, NET.size())})
+    {
+      ShortestPathAlgorithm expected = new LabelSettingAlgorithm(
+          new PermanentLabelIndexedHeap(4, NET.size()));
+      ShortestPathTree tree = new ShortestPathTree();
+      Random random = new Random(11);
+      for(int i=0; i<10; i++)
+      {
+        int destination = random.nextInt(NET.size());
+        alg.findPath(random.nextInt(NET.size()), destination, NET, tree);
+
+        Map<String, Map<String, StreetSegment>> eager = new HashMap<>();
+        for(int node=0; node<NET.size(); node++)
+        {
+          double distance = TestNetworks.getDistances(NET, node)[destination];
+          assertEquals(distance, tree.getDistance(node), 1e-9);
+          Map<String, StreetSegment> path = expected.findPath(node, destination, NET, null);
+          if(path.isEmpty()) continue;
+
+          String first = path.keySet().iterator().next();
+          eager.put(first, path);
+          assertEquals(new ArrayList<>(path.keySet()), new ArrayList<>(tree.get(first).keySet()));
+        }
+        assertEquals(eager, tree);
+      }
+    }
+  }
+
+  /**
+   * With a distance bound, exactly the routes no longer than it are
+   * found, and early termination changes none of them.
+   */
+  @Test
+  public void distanceBoundPrunesLongerRoutes()
+  {
+    assertBounded(net -> new LabelSettingAlgorithm(new PermanentLabelIndexedHeap(4, net.size())));
+    assertBounded(net -> new LabelCorrectingAlgorithm(CandidateLabelList.NEWEST, net.size()));
+    assertBounded(net -> new BidirectionalLabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()),
+        new PermanentLabelIndexedHeap(4, net.size())));
+    assertBounded(net -> new AStarAlgorithm(new PermanentLabelIndexedHeap(4, net.size())));
+    assertBounded(net -> new ContractionHierarchyAlgorithm(ContractionHierarchy.create(net)));
+    assertSameLengths(net -> {
+      ShortestPathAlgorithm alg = new LabelSettingAlgorithm(
+          new PermanentLabelIndexedHeap(4, net.size()));
+      alg.setEarlyTermination(true);
+      return alg;
+    });
+  }
+
+  /**
+   * Bidirectional routes are as long as the label setting ones.
+   */
+  @Test
+  public void bidirectionalMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new BidirectionalLabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()),
+        new PermanentLabelIndexedHeap(4, net.size())));
+  }
+
+  /**
+   * A* routes are as long as the label setting ones.
+   */
+  @Test
+  public void aStarMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new AStarAlgorithm(new PermanentLabelIndexedHeap(4, net.size())));
+  }
+
+  /**
+   * ALT routes are as long as the label setting ones.
+   */
+  @Test
+  public void altMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new ALTAlgorithm(new PermanentLabelIndexedHeap(4, net.size()),
+        LandmarkTable.create(net, 4)));
+  }
+
+  /**
+   * Contraction hierarchy routes, unpacked from their shortcuts, are as long
+   * as the label setting ones.
+   */
+  @Test
+  public void contractionHierarchyMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new ContractionHierarchyAlgorithm(ContractionHierarchy.create(net)));
+  }
+
+  /**
+   * Customizable contraction hierarchy routes, unpacked from their edges,
+   * are as long as the label setting ones.
+   */
+  @Test
+  public void customizableHierarchyMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new CustomizableContractionHierarchyAlgorithm(
+        CustomizableContractionHierarchy.create(net)));
+  }
+
+  /**
+   * Label setting routes kept in Dial buckets sized for the network are as
+   * long as the ones kept in a heap.
+   */
+  @Test
+  public void bucketsMatchHeap()
+  {
+    assertSameLengths(net -> new LabelSettingAlgorithm(new PermanentLabelBuckets(net)));
+  }
+
+  /**
+   * Label correcting routes are as long as the label setting ones under
+   * every policy.
+   */
+  @Test
+  public void labelCorrectingMatchesLabelSetting()
+  {
+    for(String policy : new String[] {CandidateLabelList.NEWEST, CandidateLabelList.OLDEST,
+        CandidateLabelDeque.FIFO, CandidateLabelDeque.SMALL_LABEL_FIRST,
+        CandidateLabelDeque.LARGE_LABEL_LAST,
+        CandidateLabelDeque.SMALL_LABEL_FIRST_LARGE_LABEL_LAST, CandidateLabelDeque.PAPE})
+    {
+      assertSameLengths(net -> new LabelCorrectingAlgorithm(policy, net.size()));
+    }
+  }
+
+  /**
+   * Delta-stepping routes are as long as the label setting ones, with the
+   * bucket width picked from the network and with a narrow one.
+   */
+  @Test
+  public void deltaSteppingMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new DeltaSteppingAlgorithm());
+    assertSameLengths(net -> new DeltaSteppingAlgorithm(0.01, ForkJoinPool.commonPool()));
+  }
+
+  /**
+   * Edge based routes with free turns are as long as the label setting ones.
+   */
+  @Test
+  public void freeTurnsMatchLabelSetting()
+  {
+    assertSameLengths(net -> new TurnCostAlgorithm(new TurnCostTable(net)));
+  }
+
+  /**
+   * Time dependent routes at a constant pace are as long as the label
+   * setting ones.
+   */
+  @Test
+  public void constantPaceMatchesLabelSetting()
+  {
+    assertSameLengths(net -> new TimeDependentAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()), new TravelTimeProfiles(net, 24, 1)));
+  }
+
+  /**
+   * A label setting search on labels a guided search used before is not
+   * ordered by the old estimator, which here is no lower bound at all.
+   */
+  @Test
+  public void sharedLabelsForgetEstimator()
+  {
+    PermanentLabelIndexedHeap labels = new PermanentLabelIndexedHeap(4, NET.size());
+    labels.setEstimator(node -> (node * 7919 % NET.size()) * 10.0);
+    assertSameLengths(net -> new LabelSettingAlgorithm(labels));
+  }
+
+  /**
+   * Checks that an algorithm bounded to a distance finds the label setting
+   * route when it is no longer than the bound, and no route otherwise.
+   */
+  private static void assertBounded(
+      final Function<StreetNetwork, ShortestPathAlgorithm> algorithms)
+  {
+    double bound = 0.8;
+    ShortestPathAlgorithm expected = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, NET.size()));
+    ShortestPathAlgorithm alg = algorithms.apply(NET);
+    alg.setDistanceBound(bound);
+    Random random = new Random(13);
+    int inside = 0;
+    for(int i=0; i<PAIRS; i++)
+    {
+      int origin = random.nextInt(NET.size());
+      int destination = random.nextInt(NET.size());
+      Map<String, StreetSegment> expectedPath = expected.findPath(origin, destination, NET, null);
+      double length = TestNetworks.getLength(expectedPath);
+      Map<String, StreetSegment> path = alg.findPath(origin, destination, NET, null);
+      if(expectedPath.isEmpty() || length > bound)
+      {
+        assertTrue(path.isEmpty(), origin + " to " + destination);
+        continue;
+      }
+
+      TestNetworks.assertRoute(origin, destination, path);
+      assertEquals(length, TestNetworks.getLength(path), 1e-9, origin + " to " + destination);
+      inside++;
+    }
+    assertTrue(inside > PAIRS / 10);
+  }
+
+  /**
+   * Checks that an algorithm finds a route wherever the label setting
+   * search does, driven the same way and of the same length, and an empty
+   * one from every intersection to itself.
+   */
+  private static void assertSameLengths(
+      final Function<StreetNetwork, ShortestPathAlgorithm> algorithms)
+  {
+    ShortestPathAlgorithm expected = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, NET.size()));
+    ShortestPathAlgorithm alg = algorithms.apply(NET);
+    Random random = new Random(7);
+    for(int i=0; i<PAIRS; i++)
+    {
+      int origin = random.nextInt(NET.size());
+      int destination = random.nextInt(NET.size());
+      Map<String, StreetSegment> expectedPath = expected.findPath(origin, destination, NET, null);
+      Map<String, StreetSegment> path = alg.findPath(origin, destination, NET, null);
+      assertEquals(expectedPath.isEmpty(), path.isEmpty(), origin + " to " + destination);
+      if(path.isEmpty()) continue;
+
+      TestNetworks.assertRoute(origin, destination, path);
+      assertEquals(TestNetworks.getLength(expectedPath), TestNetworks.getLength(path), 1e-9,
+          origin + " to " + destination);
+    }
+
+    // On small networks a search may touch every intersection, so one
+    // counted twice would overrun
+    for(int seed=0; seed<10; seed++)
+    {
+      StreetNetwork small = TestNetworks.createNetwork(2 + seed % 2, 1 + seed % 2, seed);
+      ShortestPathAlgorithm smallAlg = algorithms.apply(small);
+      for(int node=0; node<small.size(); node++)
+      {
+        assertTrue(smallAlg.findPath(node, node, small, null).isEmpty(), node + " to itself");
+      }
+    }
+  }
+}
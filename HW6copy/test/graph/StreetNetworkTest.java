@@ -0,0 +1,166 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import feature.Street;
+import feature.StreetSegment;
+
+/**
+ * Checks the frozen arrays of a street network against its intersections,
+ * and that renumbering the intersections keeps the street file IDs.
+ * @author Jerome Donfack
+ *
+ */
+public class StreetNetworkTest
+{
+  /**
+   * The arcs of an intersection are its segments, leading to their heads
+   * when outbound and to their tails when inbound.
+   */
+  @Test
+  public void arcsMatchIntersections()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(9, 7, 31);
+    CompressedAdjacency outbound = net.getOutboundArcs();
+    CompressedAdjacency inbound = net.getInboundArcs();
+    assertEquals(net.getSegmentCount(), outbound.size());
+    assertEquals(net.getSegmentCount(), inbound.size());
+    for(int node=0; node<net.size(); node++)
+    {
+      Set<StreetSegment> segments = new HashSet<>();
+      for(int arc = outbound.getFirstArc(node); arc < outbound.getEndArc(node); arc++)
+      {
+        StreetSegment segment = net.getSegment(outbound.getSegment(arc));
+        assertEquals(node, segment.getTail());
+        assertEquals(segment.getHead(), outbound.getTarget(arc));
+        assertEquals(segment.getLength(), outbound.getLength(arc));
+        segments.add(segment);
+      }
+      assertEquals(new HashSet<>(net.getIntersection(node).getOutbound()), segments);
+
+      segments.clear();
+      for(int arc = inbound.getFirstArc(node); arc < inbound.getEndArc(node); arc++)
+      {
+        StreetSegment segment = net.getSegment(inbound.getSegment(arc));
+        assertEquals(node, segment.getHead());
+        assertEquals(segment.getTail(), inbound.getTarget(arc));
+        assertEquals(segment.getLength(), inbound.getLength(arc));
+        segments.add(segment);
+      }
+      assertEquals(new HashSet<>(net.getIntersection(node).getInbound()), segments);
+    }
+  }
+
+  /**
+   * A second network of the same streets numbers them the same way and
+   * still knows the ID every intersection has in the street file.
+   */
+  @Test
+  public void buildingTwiceKeepsOriginalIDs()
+  {
+    Map<String, Street> streets = TestNetworks.createStreets(9, 7, 31);
+    StreetNetwork first = StreetNetwork.createStreetNetwork(streets);
+    int[] tails = new int[first.getSegmentCount()];
+    int[] heads = new int[tails.length];
+    for(int i=0; i<tails.length; i++)
+    {
+      tails[i] = first.getSegment(i).getTail();
+      heads[i] = first.getSegment(i).getHead();
+    }
+
+    StreetNetwork second = StreetNetwork.createStreetNetwork(streets);
+    assertEquals(first.size(), second.size());
+    for(int i=0; i<second.getSegmentCount(); i++)
+    {
+      StreetSegment segment = second.getSegment(i);
+      assertEquals(segment.getOriginalTail(), second.getOriginalID(segment.getTail()));
+      assertEquals(segment.getOriginalHead(), second.getOriginalID(segment.getHead()));
+      assertEquals(tails[i], segment.getTail());
+      assertEquals(heads[i], segment.getHead());
+    }
+  }
+
+  /**
+   * A network rebuilt from its segments and numbering, like a snapshot
+   * reads it back, has the same ends and distances.
+   */
+  @Test
+  public void numberedNetworkKeepsItsEnds()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(9, 7, 31);
+    StreetSegment[] segments = new StreetSegment[net.getSegmentCount()];
+    for(int i=0; i<segments.length; i++) segments[i] = net.getSegment(i);
+    int[] originalIDs = new int[net.size()];
+    for(int i=0; i<originalIDs.length; i++) originalIDs[i] = net.getOriginalID(i);
+
+    StreetNetwork copy = StreetNetwork.createStreetNetwork(segments, net.size(), originalIDs);
+    for(int i=0; i<segments.length; i++)
+    {
+      assertEquals(copy.getIntersectionIndex(segments[i].getOriginalTail()),
+          copy.getSegment(i).getTail());
+      assertEquals(net.getIntersectionIndex(segments[i].getOriginalHead()),
+          copy.getSegment(i).getHead());
+    }
+    assertArrayEquals(TestNetworks.getDistances(net, 5), TestNetworks.getDistances(copy, 5));
+  }
+
+  /**
+   * No route is allowed between two grids that share no street, and every
+   * route inside one grid is.
+   */
+  @Test
+  public void mayReachSeparatesGrids()
+  {
+    Map<String, Street> streets = TestNetworks.createStreets(6, 5, 21);
+    int offset = 6 * 5;
+    for(Street street : TestNetworks.createStreets(6, 5, 22).values())
+    {
+      Street far = new Street(street.getPrefix(), "Far " + street.getName(), 
+          street.getCategory(), street.getSuffix(), street.getCode());
+      for(Iterator<StreetSegment> it = street.getSgements(); it.hasNext();)
+      {
+        StreetSegment segment = it.next();
+        StreetSegment copy = new StreetSegment("far" + segment.getID(), segment.getCode(),
+            segment.getGeographicShape(), segment.getLowaddress(), segment.getHighaddress(),
+            segment.getTail() + offset, segment.getHead() + offset, segment.getLength(),
+            far.getID());
+        copy.initHeadPoint();
+        copy.initTailPoint();
+        far.addSegment(copy);
+      }
+      streets.put(far.getID(), far);
+    }
+
+    StreetNetwork net = StreetNetwork.createStreetNetwork(streets);
+    int reached = 0;
+    for(int origin=0; origin<net.size(); origin++)
+    {
+      double[] distances = TestNetworks.getDistances(net, origin);
+      for(int destination=0; destination<net.size(); destination++)
+      {
+        boolean apart = net.getOriginalID(origin) < offset 
+            != net.getOriginalID(destination) < offset;
+        if(apart)
+        {
+          assertFalse(net.mayReach(origin, destination), origin + " to " + destination);
+        }
+        else if(!Double.isInfinite(distances[destination]))
+        {
+          assertTrue(net.mayReach(origin, destination), origin + " to " + destination);
+          reached++;
+        }
+      }
+    }
+    assertTrue(reached > net.size() * net.size() / 4);
+  }
+}
@@ -0,0 +1,191 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import feature.Street;
+import feature.StreetSegment;
+import geography.PiecewiseLinearCurve;
+
+/**
+ * Small generated street networks, and a plain Dijkstra search over the
+ * intersections to check the path finding algorithms against.
+ * @author Jerome Donfack
+ *
+ */
+final class TestNetworks
+{
+  private TestNetworks()
+  {
+  }
+
+  /**
+   * Creates a grid of streets. Blocks are a little longer than the straight
+   * line between their corners, about two thirds of them are one way in
+   * either direction, and a few are missing.
+   * @param width - Intersections in a row.
+   * @param height - Intersections in a column.
+   * @param seed - Seed of the lengths and directions.
+   * @return - Streets by canonical name.
+   */
+  static Map<String, Street> createStreets(final int width, final int height,
+      final long seed)
+  {
+    Random random = new Random(seed);
+    double[][] points = new double[width * height][];
+    for(int i=0; i<points.length; i++)
+    {
+      points[i] = new double[] {(i % width) * 0.1 + random.nextDouble() * 0.03,
+          (i / width) * 0.1 + random.nextDouble() * 0.03};
+    }
+
+    Map<String, Street> streets = new HashMap<>();
+    int count = 0;
+    for(int node=0; node<points.length; node++)
+    {
+      int[] neighbors = {node % width + 1 < width ? node + 1 : -1,
+          node / width + 1 < height ? node + width : -1};
+      for(int neighbor : neighbors)
+      {
+        if(neighbor == -1 || random.nextDouble() < 0.05) continue;
+
+        String name = neighbor == node + 1 ? "Row " + node / width : "Column " + node % width;
+        Street street = streets.computeIfAbsent(Street.createCanonicalName("", name, "ST", ""),
+            k -> new Street("", name, "ST", "", "A4"));
+        double length = Math.hypot(points[node][0] - points[neighbor][0],
+            points[node][1] - points[neighbor][1]) * (1 + random.nextDouble());
+        int direction = random.nextInt(3);
+        if(direction != 1)
+        {
+          street.addSegment(createSegment("s" + count++, node, neighbor, length, points,
+              street.getID()));
+        }
+        if(direction != 0)
+        {
+          street.addSegment(createSegment("s" + count++, neighbor, node, length, points,
+              street.getID()));
+        }
+      }
+    }
+    return streets;
+  }
+
+  /**
+   * Creates the network of a grid of streets.
+   * @param width - Intersections in a row.
+   * @param height - Intersections in a column.
+   * @param seed - Seed of the lengths and directions.
+   * @return - The frozen network.
+   */
+  static StreetNetwork createNetwork(final int width, final int height, final long seed)
+  {
+    return StreetNetwork.createStreetNetwork(createStreets(width, height, seed));
+  }
+
+  /**
+   * Creates a segment whose shape is drawn from its head, where the street
+   * starts, to its tail.
+   */
+  private static StreetSegment createSegment(final String id, final int tail,
+      final int head, final double length, final double[][] points, final String street)
+  {
+    PiecewiseLinearCurve curve = new PiecewiseLinearCurve(id);
+    curve.add(points[head].clone());
+    curve.add(points[tail].clone());
+    StreetSegment segment = new StreetSegment(id, "A4", curve, 100, 198, tail, head,
+        length, street);
+    segment.initHeadPoint();
+    segment.initTailPoint();
+    return segment;
+  }
+
+  /**
+   * Finds the driving distance from an intersection to every other one.
+   * Routes drive segments from head to tail, so the search leaves every
+   * intersection along the segments whose head it is.
+   * @param net - Network of nodes.
+   * @param origin - Node to start from.
+   * @return - Distance to every intersection, or infinity if there is no
+   * route.
+   */
+  static double[] getDistances(final StreetNetwork net, final int origin)
+  {
+    return getDistances(net, origin, Collections.emptySet());
+  }
+
+  /**
+   * Finds the driving distance from an intersection to every other one
+   * with some segments closed.
+   * @param net - Network of nodes.
+   * @param origin - Node to start from.
+   * @param closed - IDs of the segments that cannot be driven.
+   * @return - Distance to every intersection, or infinity if there is no
+   * route.
+   */
+  static double[] getDistances(final StreetNetwork net, final int origin,
+      final Set<String> closed)
+  {
+    double[] distances = new double[net.size()];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    distances[origin] = 0;
+    PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+    queue.add(new double[] {0, origin});
+    while(!queue.isEmpty())
+    {
+      double[] entry = queue.poll();
+      int node = (int) entry[1];
+      if(entry[0] > distances[node]) continue;
+
+      for(StreetSegment segment : net.getIntersection(node).getInbound())
+      {
+        if(closed.contains(segment.getID())) continue;
+
+        double value = distances[node] + segment.getLength();
+        if(value < distances[segment.getTail()])
+        {
+          distances[segment.getTail()] = value;
+          queue.add(new double[] {value, segment.getTail()});
+        }
+      }
+    }
+    return distances;
+  }
+
+  /**
+   * Adds up the lengths of the segments of a path.
+   * @param path - Path to measure.
+   * @return - Length of the path.
+   */
+  static double getLength(final Map<String, StreetSegment> path)
+  {
+    double length = 0;
+    for(StreetSegment segment : path.values()) length += segment.getLength();
+    return length;
+  }
+
+  /**
+   * Checks that a path can be driven from the origin to the destination,
+   * every segment starting where the one before it ends.
+   * @param origin - Node the path must start from.
+   * @param destination - Node the path must end at.
+   * @param path - Path to check.
+   */
+  static void assertRoute(final int origin, final int destination,
+      final Map<String, StreetSegment> path)
+  {
+    int node = origin;
+    for(StreetSegment segment : path.values())
+    {
+      assertEquals(node, segment.getHead(), "segment " + segment.getID() + " is not driven on");
+      node = segment.getTail();
+    }
+    assertEquals(destination, node, "route ends elsewhere");
+  }
+}
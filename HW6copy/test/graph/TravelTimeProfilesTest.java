@@ -0,0 +1,110 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks travel time profiles and the time dependent search on them.
+ * @author Jerome Donfack
+ *
+ */
+public class TravelTimeProfilesTest
+{
+  private static final StreetNetwork NET = TestNetworks.createNetwork(12, 10, 13);
+
+  /**
+   * Profiles without breakpoints, with a pace missing or with times that do
+   * not increase within one period are rejected.
+   */
+  @Test
+  public void invalidProfilesAreRejected()
+  {
+    TravelTimeProfiles profiles = new TravelTimeProfiles(NET, 24, 1);
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[0], new double[0]));
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[] {0, 12}, new double[] {1}));
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[] {6, 6}, new double[] {1, 2}));
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[] {12, 6}, new double[] {1, 2}));
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[] {-1, 6}, new double[] {1, 2}));
+    assertThrows(IllegalArgumentException.class,
+        () -> profiles.addProfile(new double[] {6, 24}, new double[] {1, 2}));
+    assertEquals(0, profiles.getProfileCount());
+    assertEquals(0, profiles.addProfile(new double[] {0, 12}, new double[] {1, 2}));
+  }
+
+  /**
+   * The pace is interpolated between breakpoints and wraps around the end
+   * of the period.
+   */
+  @Test
+  public void paceIsInterpolated()
+  {
+    TravelTimeProfiles profiles = new TravelTimeProfiles(NET, 24, 1);
+    int profile = profiles.addProfile(new double[] {6, 18}, new double[] {1, 3});
+    assertEquals(2, profiles.getPace(profile, 12), 1e-9);
+    assertEquals(2, profiles.getPace(profile, 0), 1e-9);
+    assertEquals(2, profiles.getPace(profile, 48), 1e-9);
+    assertEquals(1, profiles.getPace(-1, 12), 1e-9);
+  }
+
+  /**
+   * No time dependent route arrives later than the shortest route driven at
+   * the same departure time.
+   */
+  @Test
+  public void routesArriveFirst()
+  {
+    TravelTimeProfiles profiles = new TravelTimeProfiles(NET, 24, 1);
+    int rush = profiles.addProfile(new double[] {7, 8, 10}, new double[] {1, 1.6, 1});
+    int quiet = profiles.addProfile(new double[] {0}, new double[] {0.8});
+    for(int segment=0; segment<NET.getSegmentCount(); segment++)
+    {
+      profiles.setProfile(segment, segment % 3 == 0 ? quiet : rush);
+    }
+    TimeDependentAlgorithm alg = new TimeDependentAlgorithm(
+        new PermanentLabelIndexedHeap(4, NET.size()), profiles);
+    ShortestPathAlgorithm shortest = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, NET.size()));
+
+    Random random = new Random(1);
+    for(int i=0; i<100; i++)
+    {
+      int origin = random.nextInt(NET.size());
+      int destination = random.nextInt(NET.size());
+      double departure = 6 + random.nextDouble() * 4;
+      alg.setDepartureTime(departure);
+      Map<String, StreetSegment> path = alg.findPath(origin, destination, NET, null);
+      Map<String, StreetSegment> shortestPath = shortest.findPath(origin, destination,
+          NET, null);
+      assertEquals(shortestPath.isEmpty(), path.isEmpty());
+      if(path.isEmpty()) continue;
+
+      TestNetworks.assertRoute(origin, destination, path);
+      assertTrue(arrive(profiles, path, departure)
+          <= arrive(profiles, shortestPath, departure) + 1e-9);
+    }
+  }
+
+  private static double arrive(final TravelTimeProfiles profiles,
+      final Map<String, StreetSegment> path, final double departure)
+  {
+    double time = departure;
+    for(StreetSegment segment : path.values())
+    {
+      time += profiles.getCost(NET.getSegmentIndex(segment.getID()), time);
+    }
+    return time;
+  }
+}
@@ -0,0 +1,134 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import feature.StreetSegment;
+
+/**
+ * Checks that forbidden turns are never taken.
+ * @author Jerome Donfack
+ *
+ */
+public class TurnCostAlgorithmTest
+{
+  /**
+   * With U-turns forbidden, no route drives back along the segment it just
+   * came from, none is shorter than the unrestricted route, and every other
+   * turn is still taken.
+   */
+  @Test
+  public void forbiddenUTurnsAreAvoided()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 6);
+    TurnCostTable turnCosts = new TurnCostTable(net);
+    turnCosts.setUTurnCost(Double.POSITIVE_INFINITY);
+    ShortestPathAlgorithm alg = new TurnCostAlgorithm(turnCosts);
+    ShortestPathAlgorithm expected = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()));
+
+    Random random = new Random(8);
+    int routes = 0;
+    for(int i=0; i<200; i++)
+    {
+      int origin = random.nextInt(net.size());
+      int destination = random.nextInt(net.size());
+      Map<String, StreetSegment> path = alg.findPath(origin, destination, net, null);
+      if(path.isEmpty()) continue;
+
+      TestNetworks.assertRoute(origin, destination, path);
+      StreetSegment previous = null;
+      for(StreetSegment segment : path.values())
+      {
+        if(previous != null) assertNotEquals(previous.getHead(), segment.getTail());
+        previous = segment;
+      }
+      assertTrue(TestNetworks.getLength(path) + 1e-9 >= TestNetworks.getLength(
+          expected.findPath(origin, destination, net, null)));
+      if(path.size() > 1) routes++;
+    }
+    assertTrue(routes > 50);
+  }
+
+  /**
+   * Forbidding one turn of the shortest route, other than a U-turn, makes
+   * the route go around it.
+   */
+  @Test
+  public void forbiddenTurnIsAvoided()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(12, 10, 6);
+    ShortestPathAlgorithm expected = new LabelSettingAlgorithm(
+        new PermanentLabelIndexedHeap(4, net.size()));
+    Random random = new Random(9);
+    int detours = 0;
+    for(int i=0; i<100; i++)
+    {
+      int origin = random.nextInt(net.size());
+      int destination = random.nextInt(net.size());
+      List<StreetSegment> route = new ArrayList<>(
+          expected.findPath(origin, destination, net, null).values());
+      if(route.size() < 2) continue;
+
+      int turn = random.nextInt(route.size() - 1);
+      StreetSegment from = route.get(turn);
+      StreetSegment onto = route.get(turn + 1);
+      if(onto.getTail() == from.getHead()) continue;
+
+      TurnCostTable turnCosts = new TurnCostTable(net);
+      turnCosts.forbid(from, onto);
+      Map<String, StreetSegment> path = new TurnCostAlgorithm(turnCosts).findPath(
+          origin, destination, net, null);
+      if(path.isEmpty()) continue;
+
+      TestNetworks.assertRoute(origin, destination, path);
+      StreetSegment previous = null;
+      for(StreetSegment segment : path.values())
+      {
+        assertTrue(previous != from || segment != onto, "forbidden turn taken");
+        previous = segment;
+      }
+      assertTrue(TestNetworks.getLength(path) + 1e-9 
+          >= TestNetworks.getDistances(net, origin)[destination]);
+      detours++;
+    }
+    assertTrue(detours > 20);
+  }
+
+  /**
+   * A turn has to be made where one segment ends and the next starts, and
+   * both have to be in the network.
+   */
+  @Test
+  public void invalidTurnsAreRejected()
+  {
+    StreetNetwork net = TestNetworks.createNetwork(4, 3, 2);
+    TurnCostTable turnCosts = new TurnCostTable(net);
+    StreetSegment from = net.getSegment(0);
+    for(int i=0; i<net.getSegmentCount(); i++)
+    {
+      StreetSegment onto = net.getSegment(i);
+      if(onto.getHead() == from.getTail())
+      {
+        turnCosts.setCost(from, onto, 5);
+        assertEquals(5, turnCosts.getCost(0, i));
+      }
+      else
+      {
+        assertThrows(IllegalArgumentException.class, () -> turnCosts.forbid(from, onto));
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> turnCosts.setCost(-1, -1, 1));
+    assertThrows(IllegalArgumentException.class, 
+        () -> turnCosts.setCost(0, net.getSegmentCount(), 1));
+  }
+}